@@ -97,14 +97,19 @@ public class BlockInventoryBasic extends ContainerBlock
   // ---------------------------
   // If you want your container to provide redstone power to a comparator based on its contents, implement these methods
   //  see vanilla for examples
+  // The TileEntity keeps a summary of the comparator level up to date, so that we don't need to look at the contents here
 
   @Override
   public boolean hasComparatorInputOverride(BlockState state) {
-    return false;
+    return true;
   }
 
   @Override
   public int getComparatorInputOverride(BlockState blockState, World worldIn, BlockPos pos) {
+    TileEntity tileentity = worldIn.getTileEntity(pos);
+    if (tileentity instanceof TileEntityInventoryBasic) {
+      return ((TileEntityInventoryBasic)tileentity).getComparatorLevel();
+    }
     return 0;
   }
 
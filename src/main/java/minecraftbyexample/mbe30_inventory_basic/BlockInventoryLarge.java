@@ -0,0 +1,44 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockReader;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * BlockInventoryLarge is a high-capacity storage block: it works the same as BlockInventoryBasic except that its
+ *   tile entity (TileEntityInventoryLarge) stores thousands of item stacks, viewed one page at a time.
+ * Opening the GUI is inherited from BlockInventoryBasic; the TileEntity provides the ContainerLarge.
+ */
+public class BlockInventoryLarge extends BlockInventoryBasic
+{
+  @Nullable
+  @Override
+  public TileEntity createNewTileEntity(IBlockReader worldIn) {
+    return new TileEntityInventoryLarge();
+  }
+
+  // This is where you can do something when the block is broken. In this case drop the inventory's contents
+  @Override
+  public void onReplaced(BlockState state, World world, BlockPos blockPos, BlockState newState, boolean isMoving) {
+    if (state.getBlock() != newState.getBlock()) {
+      TileEntity tileentity = world.getTileEntity(blockPos);
+      if (tileentity instanceof TileEntityInventoryLarge) {
+        TileEntityInventoryLarge tileEntityInventoryLarge = (TileEntityInventoryLarge)tileentity;
+        tileEntityInventoryLarge.dropAllContents(world, blockPos);
+      }
+    }
+    super.onReplaced(state, world, blockPos, newState, isMoving);
+  }
+
+  // The large storage doesn't provide a comparator output
+  @Override
+  public boolean hasComparatorInputOverride(BlockState state) {
+    return false;
+  }
+}
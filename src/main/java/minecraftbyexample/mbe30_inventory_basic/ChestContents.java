@@ -4,11 +4,15 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.ListNBT;
+import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.items.ItemStackHandler;
+import net.minecraftforge.registries.ForgeRegistries;
 
+import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -50,7 +54,20 @@ public class ChestContents implements IInventory {
   public static ChestContents createForTileEntity(int size,
                                                      Predicate<PlayerEntity> canPlayerAccessInventoryLambda,
                                                      Notify markDirtyNotificationLambda) {
-     return new ChestContents(size, canPlayerAccessInventoryLambda, markDirtyNotificationLambda);
+     return new ChestContents(new ItemStackHandler(size), canPlayerAccessInventoryLambda, markDirtyNotificationLambda);
+  }
+
+  /**
+   * As for createForTileEntity(size, ...), except that the caller provides the ItemStackHandler used to store the items.
+   * Useful if your TileEntity needs a different storage strategy from the default (eg ItemStackHandlerCompact for a very
+   *   large number of slots)
+   * @param itemStackHandler the storage for the items; its number of slots is the size of the inventory
+   * @return the new ChestContents.
+   */
+  public static ChestContents createForTileEntity(ItemStackHandler itemStackHandler,
+                                                  Predicate<PlayerEntity> canPlayerAccessInventoryLambda,
+                                                  Notify markDirtyNotificationLambda) {
+    return new ChestContents(itemStackHandler, canPlayerAccessInventoryLambda, markDirtyNotificationLambda);
   }
 
   /**
@@ -69,18 +86,69 @@ public class ChestContents implements IInventory {
 
   /**
    * Writes the chest contents to a CompoundNBT tag (used to save the contents to disk)
+   * If lazy deserialisation is turned on and the contents have never been looked at since they were loaded, the original
+   *   tag is returned unchanged (without decoding it).
    * @return the tag containing the contents
    */
   public CompoundNBT serializeNBT()  {
+    if (undecodedNBT != null) return undecodedNBT.copy();
     return chestContents.serializeNBT();
   }
 
   /**
    * Fills the chest contents from the nbt; resizes automatically to fit.  (used to load the contents from disk)
+   * If lazy deserialisation is turned on, the nbt is just stored, and is decoded the first time that the contents
+   *   are accessed (eg by a container, hopper, or comparator).  The caller must not modify the nbt afterwards.
    * @param nbt
    */
   public void deserializeNBT(CompoundNBT nbt)   {
-    chestContents.deserializeNBT(nbt);
+    if (lazyDeserialisation) {
+      undecodedNBT = nbt;
+    } else {
+      undecodedNBT = null;
+      chestContents.deserializeNBT(nbt);
+    }
+  }
+
+  /**
+   * Turn lazy deserialisation on or off.
+   * Most chests in a loaded chunk are never opened during a session, so decoding every ItemStack when the chunk is
+   *   loaded (and encoding them again when it is saved) is often wasted effort.  With lazy deserialisation turned on,
+   *   deserializeNBT() keeps the raw nbt and only decodes it when the contents are first accessed.
+   * @param lazyDeserialisation true to turn on lazy deserialisation
+   */
+  public void setLazyDeserialisation(boolean lazyDeserialisation) {
+    this.lazyDeserialisation = lazyDeserialisation;
+    if (!lazyDeserialisation) getDecodedContents();
+  }
+
+  /**
+   * Returns all the different items stored in the chest (including items stored inside items, see ItemLocationIndex)
+   * If the contents haven't been decoded yet (lazy deserialisation), the item ids are read directly from the nbt without
+   *   decoding the ItemStacks.  In this case, items stored inside items aren't included.
+   * @return a new set containing the items
+   */
+  public Set<Item> getItemTypes() {
+    Set<Item> itemTypes = new HashSet<>();
+    if (undecodedNBT != null) {
+      // "Items" is the list of ItemStacks used by ItemStackHandler; "Compact" is the extra list used by ItemStackHandlerCompact
+      addItemTypesFromNBT(undecodedNBT.getList(ITEMS_NBT, Constants.NBT.TAG_COMPOUND), itemTypes);
+      addItemTypesFromNBT(undecodedNBT.getList(COMPACT_NBT, Constants.NBT.TAG_COMPOUND), itemTypes);
+    } else if (chestContents instanceof ItemStackHandlerCompact) {
+      ((ItemStackHandlerCompact)chestContents).addItemTypes(itemTypes);  // avoids materialising all the ItemStacks
+    } else {
+      for (int i = 0; i < chestContents.getSlots(); ++i) {
+        ItemLocationIndex.addItemTypes(chestContents.getStackInSlot(i), itemTypes);
+      }
+    }
+    return itemTypes;
+  }
+
+  private static void addItemTypesFromNBT(ListNBT itemsNBT, Set<Item> itemTypes) {
+    for (int i = 0; i < itemsNBT.size(); ++i) {
+      Item item = ForgeRegistries.ITEMS.getValue(new ResourceLocation(itemsNBT.getCompound(i).getString(ID_NBT)));
+      if (item != null && item != Items.AIR) itemTypes.add(item);
+    }
   }
 
   //  ------------- linking methods  -------------
@@ -137,7 +205,7 @@ public class ChestContents implements IInventory {
 
   @Override
   public boolean isItemValidForSlot(int index, ItemStack stack) {
-    return chestContents.isItemValid(index, stack);
+    return getDecodedContents().isItemValid(index, stack);
   }
 
   // ----- Methods used to inform the parent tile entity that something has happened to the contents
@@ -168,42 +236,48 @@ public class ChestContents implements IInventory {
 
   @Override
   public int getSizeInventory() {
-    return chestContents.getSlots();
+    if (undecodedNBT != null && undecodedNBT.contains(SIZE_NBT, Constants.NBT.TAG_INT)) {
+      return undecodedNBT.getInt(SIZE_NBT);  // no need to decode all the ItemStacks just to find the size
+    }
+    return getDecodedContents().getSlots();
   }
 
   @Override
   public boolean isEmpty() {
-    for (int i = 0; i < chestContents.getSlots(); ++i) {
-      if (!chestContents.getStackInSlot(i).isEmpty()) return false;
+    ItemStackHandler contents = getDecodedContents();
+    for (int i = 0; i < contents.getSlots(); ++i) {
+      if (!contents.getStackInSlot(i).isEmpty()) return false;
     }
     return true;
   }
 
   @Override
   public ItemStack getStackInSlot(int index) {
-    return chestContents.getStackInSlot(index);
+    return getDecodedContents().getStackInSlot(index);
   }
 
   @Override
   public ItemStack decrStackSize(int index, int count) {
-    return chestContents.extractItem(index, count, false);
+    return getDecodedContents().extractItem(index, count, false);
   }
 
   @Override
   public ItemStack removeStackFromSlot(int index) {
-    int maxPossibleItemStackSize = chestContents.getSlotLimit(index);
-    return chestContents.extractItem(index, maxPossibleItemStackSize, false);
+    ItemStackHandler contents = getDecodedContents();
+    int maxPossibleItemStackSize = contents.getSlotLimit(index);
+    return contents.extractItem(index, maxPossibleItemStackSize, false);
   }
 
   @Override
   public void setInventorySlotContents(int index, ItemStack stack) {
-    chestContents.setStackInSlot(index, stack);
+    getDecodedContents().setStackInSlot(index, stack);
   }
 
   @Override
   public void clear() {
-    for (int i = 0; i < chestContents.getSlots(); ++i) {
-      chestContents.setStackInSlot(i, ItemStack.EMPTY);
+    ItemStackHandler contents = getDecodedContents();
+    for (int i = 0; i < contents.getSlots(); ++i) {
+      contents.setStackInSlot(i, ItemStack.EMPTY);
     }
   }
 
@@ -213,8 +287,8 @@ public class ChestContents implements IInventory {
     this.chestContents = new ItemStackHandler(size);
   }
 
-  private ChestContents(int size, Predicate<PlayerEntity> canPlayerAccessInventoryLambda, Notify markDirtyNotificationLambda) {
-    this.chestContents = new ItemStackHandler(size);
+  private ChestContents(ItemStackHandler itemStackHandler, Predicate<PlayerEntity> canPlayerAccessInventoryLambda, Notify markDirtyNotificationLambda) {
+    this.chestContents = itemStackHandler;
     this.canPlayerAccessInventoryLambda = canPlayerAccessInventoryLambda;
     this.markDirtyNotificationLambda = markDirtyNotificationLambda;
   }
@@ -239,5 +313,25 @@ public class ChestContents implements IInventory {
   // default is "do nothing"
   private Notify closeInventoryNotificationLambda = ()->{};
 
+  /**
+   * Decode the undecoded nbt (if any) and return the contents.
+   * @return the ItemStackHandler holding the contents
+   */
+  private ItemStackHandler getDecodedContents() {
+    if (undecodedNBT != null) {
+      CompoundNBT nbt = undecodedNBT;
+      undecodedNBT = null;
+      chestContents.deserializeNBT(nbt);
+    }
+    return chestContents;
+  }
+
   private final ItemStackHandler chestContents;
+
+  private boolean lazyDeserialisation = false;
+  private CompoundNBT undecodedNBT = null;  // if not null: the contents loaded from nbt that haven't been decoded yet
+  private static final String SIZE_NBT = "Size";   // the ItemStackHandler nbt tag for the number of slots
+  private static final String ITEMS_NBT = "Items";
+  private static final String COMPACT_NBT = "Compact";
+  private static final String ID_NBT = "id";
 }
@@ -109,6 +109,9 @@ public class ContainerBasic extends Container {
 			int slotNumber = x;
 			addSlot(new Slot(chestContents, slotNumber, TILE_INVENTORY_XPOS + SLOT_X_SPACING * x, TILE_INVENTORY_YPOS));
 		}
+
+		// tell the parent TileEntity that a player is now looking at its contents (does nothing on the client)
+		chestContents.openInventory(playerInventory.player);
 	}
 
 	// Vanilla calls this method every tick to make sure the player is still able to access the inventory, and if not closes the gui
@@ -170,12 +173,14 @@ public class ContainerBasic extends Container {
 		return copyOfSourceStack;
 	}
 
-	// pass the close container message to the parent inventory (not strictly needed for this example)
+	// pass the close container message to the parent inventory
 	//  see ContainerChest and TileEntityChest - used to animate the lid when no players are accessing the chest any more
+	//  TileEntityInventoryBasic uses it to stop sending the detailed contents to the client
 	@Override
 	public void onContainerClosed(PlayerEntity playerIn)
 	{
 		super.onContainerClosed(playerIn);
+		chestContents.closeInventory(playerIn);
 	}
 
 	private ChestContents chestContents;
@@ -0,0 +1,199 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.inventory.container.Slot;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.IntReferenceHolder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * The container for the large storage block (TileEntityInventoryLarge).
+ * It works the same way as ContainerBasic, except that the storage holds thousands of slots, which is far too many to
+ *   show (and synchronise) at once.  So the container only holds the slots for one page of the storage, and the player
+ *   uses the buttons on the ContainerScreenLarge to switch between pages:
+ * 1) the page slots are linked to a PagedContents, which maps them onto the current page of the ChestContents
+ * 2) the client asks the server to change the page using the vanilla "button click" packet (the same one used by the
+ *    enchantment table buttons) -> enchantItem() is called on the server
+ * 3) vanilla detectAndSendChanges() then notices that the page slots have all changed, and sends the new page to the client
+ * 4) the current page number is sent to the client using trackInt(), so that the screen can display it.
+ */
+public class ContainerLarge extends Container {
+
+  public static ContainerLarge createContainerServerSide(int windowID, PlayerInventory playerInventory, ChestContents chestContents) {
+    return new ContainerLarge(windowID, playerInventory, chestContents, true);
+  }
+
+  public static ContainerLarge createContainerClientSide(int windowID, PlayerInventory playerInventory, net.minecraft.network.PacketBuffer extraData) {
+    // on the client side we only need to store one page of items at a time
+    ChestContents chestContents = ChestContents.createForClientSideContainer(PAGE_SLOT_COUNT);
+    return new ContainerLarge(windowID, playerInventory, chestContents, false);
+  }
+
+  public static final int PAGE_ROW_COUNT = 6;
+  public static final int PAGE_COLUMN_COUNT = 9;
+  public static final int PAGE_SLOT_COUNT = PAGE_ROW_COUNT * PAGE_COLUMN_COUNT;
+
+  // the button IDs sent to the server using the vanilla enchantItem mechanism
+  public static final int BUTTON_PREVIOUS_PAGE = 0;
+  public static final int BUTTON_NEXT_PAGE = 1;
+
+  // must assign a slot number to each of the slots used by the GUI.
+  //  0 - 8 = hotbar slots (which will map to the InventoryPlayer slot numbers 0 - 8)
+  //  9 - 35 = player inventory slots (which map to the InventoryPlayer slot numbers 9 - 35)
+  //  36 - 89 = page slots, which map to the ChestContents slots on the currently visible page
+
+  private static final int HOTBAR_SLOT_COUNT = 9;
+  private static final int PLAYER_INVENTORY_ROW_COUNT = 3;
+  private static final int PLAYER_INVENTORY_COLUMN_COUNT = 9;
+  private static final int PLAYER_INVENTORY_SLOT_COUNT = PLAYER_INVENTORY_COLUMN_COUNT * PLAYER_INVENTORY_ROW_COUNT;
+  private static final int VANILLA_SLOT_COUNT = HOTBAR_SLOT_COUNT + PLAYER_INVENTORY_SLOT_COUNT;
+
+  private static final int VANILLA_FIRST_SLOT_INDEX = 0;
+  private static final int PAGE_FIRST_SLOT_INDEX = VANILLA_FIRST_SLOT_INDEX + VANILLA_SLOT_COUNT;
+
+  // the ContainerScreenLarge needs to know these so it can tell where to draw the Titles.  They match the vanilla
+  //  six-row chest texture (generic_54.png)
+  public static final int PAGE_INVENTORY_YPOS = 18;
+  public static final int PLAYER_INVENTORY_YPOS = PAGE_INVENTORY_YPOS + PAGE_ROW_COUNT * 18 + 13;
+
+  /**
+   * Creates a container suitable for server side or client side
+   * @param windowID ID of the container
+   * @param playerInventory the inventory of the player
+   * @param chestContents the inventory stored in the chest (server) or one page of dummy storage (client)
+   * @param serverSide true if this is the server-side container
+   */
+  private ContainerLarge(int windowID, PlayerInventory playerInventory, ChestContents chestContents, boolean serverSide) {
+    super(StartupCommon.containerTypeContainerLarge, windowID);
+    if (StartupCommon.containerTypeContainerLarge == null)
+      throw new IllegalStateException("Must initialise containerTypeContainerLarge before constructing a ContainerLarge!");
+
+    this.chestContents = chestContents;
+    trackInt(pageNumber);
+    // The client only holds one page of items, so its page slots never have an offset.
+    pagedContents = new PagedContents(chestContents, PAGE_SLOT_COUNT, serverSide ? pageNumber : IntReferenceHolder.single());
+
+    final int SLOT_X_SPACING = 18;
+    final int SLOT_Y_SPACING = 18;
+    final int HOTBAR_XPOS = 8;
+    final int HOTBAR_YPOS = PLAYER_INVENTORY_YPOS + PLAYER_INVENTORY_ROW_COUNT * SLOT_Y_SPACING + 4;
+    // Add the players hotbar to the gui - the [xpos, ypos] location of each item
+    for (int x = 0; x < HOTBAR_SLOT_COUNT; x++) {
+      int slotNumber = x;
+      addSlot(new Slot(playerInventory, slotNumber, HOTBAR_XPOS + SLOT_X_SPACING * x, HOTBAR_YPOS));
+    }
+
+    final int PLAYER_INVENTORY_XPOS = 8;
+    // Add the rest of the player's inventory to the gui
+    for (int y = 0; y < PLAYER_INVENTORY_ROW_COUNT; y++) {
+      for (int x = 0; x < PLAYER_INVENTORY_COLUMN_COUNT; x++) {
+        int slotNumber = HOTBAR_SLOT_COUNT + y * PLAYER_INVENTORY_COLUMN_COUNT + x;
+        int xpos = PLAYER_INVENTORY_XPOS + x * SLOT_X_SPACING;
+        int ypos = PLAYER_INVENTORY_YPOS + y * SLOT_Y_SPACING;
+        addSlot(new Slot(playerInventory, slotNumber,  xpos, ypos));
+      }
+    }
+
+    final int PAGE_INVENTORY_XPOS = 8;
+    // Add the page slots to the gui
+    for (int y = 0; y < PAGE_ROW_COUNT; y++) {
+      for (int x = 0; x < PAGE_COLUMN_COUNT; x++) {
+        int slotNumber = y * PAGE_COLUMN_COUNT + x;
+        int xpos = PAGE_INVENTORY_XPOS + x * SLOT_X_SPACING;
+        int ypos = PAGE_INVENTORY_YPOS + y * SLOT_Y_SPACING;
+        addSlot(new Slot(pagedContents, slotNumber, xpos, ypos));
+      }
+    }
+
+    // tell the parent TileEntity that a player has opened the container (does nothing on the client)
+    chestContents.openInventory(playerInventory.player);
+  }
+
+  public int getPageNumber() {
+    return pageNumber.get();
+  }
+
+  // Vanilla calls this method every tick to make sure the player is still able to access the inventory, and if not closes the gui
+  // Called on the SERVER side only
+  @Override
+  public boolean canInteractWith(PlayerEntity playerEntity) {
+    return chestContents.isUsableByPlayer(playerEntity);
+  }
+
+  /**
+   * Called on the server when the client clicks one of the page buttons
+   * @param playerEntity
+   * @param buttonID BUTTON_PREVIOUS_PAGE or BUTTON_NEXT_PAGE
+   * @return true if the button is valid
+   */
+  @Override
+  public boolean enchantItem(PlayerEntity playerEntity, int buttonID) {
+    switch (buttonID) {
+      case BUTTON_PREVIOUS_PAGE: {
+        pagedContents.setPageNumber(pagedContents.getPageNumber() - 1);
+        return true;
+      }
+      case BUTTON_NEXT_PAGE: {
+        pagedContents.setPageNumber(pagedContents.getPageNumber() + 1);
+        return true;
+      }
+      default: {
+        LOGGER.warn("Invalid buttonID:" + buttonID);
+        return false;
+      }
+    }
+  }
+
+  // This is where you specify what happens when a player shift clicks a slot in the gui
+  //  Same as ContainerBasic, except that items from the player's inventory are only merged into the visible page.
+  @Override
+  public ItemStack transferStackInSlot(PlayerEntity playerEntity, int sourceSlotIndex) {
+    Slot sourceSlot = inventorySlots.get(sourceSlotIndex);
+    if (sourceSlot == null || !sourceSlot.getHasStack()) return ItemStack.EMPTY;  //EMPTY_ITEM
+    ItemStack sourceStack = sourceSlot.getStack();
+    ItemStack copyOfSourceStack = sourceStack.copy();
+
+    // Check if the slot clicked is one of the vanilla container slots
+    if (sourceSlotIndex >= VANILLA_FIRST_SLOT_INDEX && sourceSlotIndex < VANILLA_FIRST_SLOT_INDEX + VANILLA_SLOT_COUNT) {
+      // This is a vanilla container slot so merge the stack into the visible page
+      if (!mergeItemStack(sourceStack, PAGE_FIRST_SLOT_INDEX, PAGE_FIRST_SLOT_INDEX + PAGE_SLOT_COUNT, false)){
+        return ItemStack.EMPTY;  // EMPTY_ITEM
+      }
+    } else if (sourceSlotIndex >= PAGE_FIRST_SLOT_INDEX && sourceSlotIndex < PAGE_FIRST_SLOT_INDEX + PAGE_SLOT_COUNT) {
+      // This is a page slot so merge the stack into the players inventory
+      if (!mergeItemStack(sourceStack, VANILLA_FIRST_SLOT_INDEX, VANILLA_FIRST_SLOT_INDEX + VANILLA_SLOT_COUNT, false)) {
+        return ItemStack.EMPTY;
+      }
+    } else {
+      LOGGER.warn("Invalid slotIndex:" + sourceSlotIndex);
+      return ItemStack.EMPTY;
+    }
+
+    // If stack size == 0 (the entire stack was moved) set slot contents to null
+    if (sourceStack.getCount() == 0) {
+      sourceSlot.putStack(ItemStack.EMPTY);
+    } else {
+      sourceSlot.onSlotChanged();
+    }
+
+    sourceSlot.onTake(playerEntity, sourceStack);
+    return copyOfSourceStack;
+  }
+
+  // pass the close container message to the parent inventory, so that it knows when nobody is looking at it any more
+  @Override
+  public void onContainerClosed(PlayerEntity playerIn) {
+    super.onContainerClosed(playerIn);
+    chestContents.closeInventory(playerIn);
+  }
+
+  private final ChestContents chestContents;
+  private final PagedContents pagedContents;
+  private final IntReferenceHolder pageNumber = IntReferenceHolder.single();
+  private static final Logger LOGGER = LogManager.getLogger();
+}
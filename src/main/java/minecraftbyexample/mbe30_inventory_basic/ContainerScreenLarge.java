@@ -0,0 +1,98 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.gui.screen.inventory.ContainerScreen;
+import net.minecraft.client.gui.widget.button.Button;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.StringTextComponent;
+
+import java.awt.*;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * The screen for the large storage block.  Draws one page of the storage, using the vanilla large chest texture, plus
+ *   two buttons to move to the previous / next page.
+ * The buttons send a "button click" to the server container (see ContainerLarge.enchantItem), which changes the page.
+ *   The client doesn't change the page itself; it just waits for the server to send the new page contents.
+ */
+public class ContainerScreenLarge extends ContainerScreen<ContainerLarge> {
+
+  public ContainerScreenLarge(ContainerLarge containerLarge, PlayerInventory playerInventory, ITextComponent title) {
+    super(containerLarge, playerInventory, title);
+
+    // Set the width and height of the gui.  Should match the size of the texture!
+    xSize = 176;
+    ySize = 114 + ContainerLarge.PAGE_ROW_COUNT * 18;
+  }
+
+  @Override
+  protected void init() {
+    super.init();
+    final int BUTTON_WIDTH = 12;
+    final int BUTTON_HEIGHT = 12;
+    final int PREVIOUS_BUTTON_XOFFSET = 128;
+    final int NEXT_BUTTON_XOFFSET = PREVIOUS_BUTTON_XOFFSET + 30;
+    final int BUTTON_YOFFSET = 3;
+    this.addButton(new Button(guiLeft + PREVIOUS_BUTTON_XOFFSET, guiTop + BUTTON_YOFFSET, BUTTON_WIDTH, BUTTON_HEIGHT,
+                              new StringTextComponent("<"), button -> sendButtonClick(ContainerLarge.BUTTON_PREVIOUS_PAGE)));
+    this.addButton(new Button(guiLeft + NEXT_BUTTON_XOFFSET, guiTop + BUTTON_YOFFSET, BUTTON_WIDTH, BUTTON_HEIGHT,
+                              new StringTextComponent(">"), button -> sendButtonClick(ContainerLarge.BUTTON_NEXT_PAGE)));
+  }
+
+  private void sendButtonClick(int buttonID) {
+    this.minecraft.playerController.sendEnchantPacket(this.container.windowId, buttonID);
+  }
+
+  @Override
+  public void render(MatrixStack matrixStack, int mouseX, int mouseY, float partialTicks) {
+    this.renderBackground(matrixStack);
+    super.render(matrixStack, mouseX, mouseY, partialTicks);
+    this.renderHoveredTooltip(matrixStack, mouseX, mouseY);
+  }
+
+  /**
+   * Draw the foreground layer for the GuiContainer (everything in front of the items)
+   */
+  @Override
+  protected void drawGuiContainerForegroundLayer(MatrixStack matrixStack, int mouseX, int mouseY) {
+    final float LABEL_XPOS = 8;
+    final float FONT_Y_SPACING = 12;
+    final float CHEST_LABEL_YPOS = ContainerLarge.PAGE_INVENTORY_YPOS - FONT_Y_SPACING;
+    this.font.func_243248_b(matrixStack, this.title,
+            LABEL_XPOS, CHEST_LABEL_YPOS, Color.darkGray.getRGB());  //this.font.drawString;
+
+    final float PAGE_LABEL_XPOS = 142;
+    ITextComponent pageNumber = new StringTextComponent(String.valueOf(this.container.getPageNumber() + 1));
+    this.font.func_243248_b(matrixStack, pageNumber,
+            PAGE_LABEL_XPOS, CHEST_LABEL_YPOS, Color.darkGray.getRGB());
+
+    final float PLAYER_INV_LABEL_YPOS = ContainerLarge.PLAYER_INVENTORY_YPOS - FONT_Y_SPACING;
+    this.font.func_243248_b(matrixStack, this.playerInventory.getDisplayName(),
+            LABEL_XPOS, PLAYER_INV_LABEL_YPOS, Color.darkGray.getRGB());
+  }
+
+  /**
+   * Draws the background layer of this container (behind the items).
+   * Taken directly from ChestScreen: the top part of the texture holds the chest rows, the bottom part holds the player inventory
+   */
+  @Override
+  protected void drawGuiContainerBackgroundLayer(MatrixStack matrixStack, float partialTicks, int mouseX, int mouseY) {
+    RenderSystem.color4f(1.0F, 1.0F, 1.0F, 1.0F);
+    this.minecraft.getTextureManager().bindTexture(BACKGROUND_TEXTURE);
+
+    int edgeSpacingX = (this.width - this.xSize) / 2;
+    int edgeSpacingY = (this.height - this.ySize) / 2;
+    final int CHEST_ROWS_HEIGHT = ContainerLarge.PAGE_ROW_COUNT * 18 + 17;
+    final int PLAYER_INVENTORY_TEXTURE_V = 126;
+    final int PLAYER_INVENTORY_HEIGHT = 96;
+    this.blit(matrixStack, edgeSpacingX, edgeSpacingY, 0, 0, this.xSize, CHEST_ROWS_HEIGHT);
+    this.blit(matrixStack, edgeSpacingX, edgeSpacingY + CHEST_ROWS_HEIGHT, 0, PLAYER_INVENTORY_TEXTURE_V, this.xSize, PLAYER_INVENTORY_HEIGHT);
+  }
+
+  // the vanilla texture for a large (six row) chest
+  private static final ResourceLocation BACKGROUND_TEXTURE = new ResourceLocation("textures/gui/container/generic_54.png");
+}
@@ -0,0 +1,55 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Keeps count of how many players currently have a TileEntity's container open (similar to the numPlayersUsing in
+ *   the vanilla ChestTileEntity).
+ * Typical usage:
+ * 1) Link it to the ChestContents using
+ *    chestContents.setOpenInventoryNotificationLambda(viewerTracker::onContainerOpened) and
+ *    chestContents.setCloseInventoryNotificationLambda(viewerTracker::onContainerClosed)
+ * 2) Make sure that your Container calls chestContents.openInventory() when it is created on the server, and
+ *    chestContents.closeInventory() in onContainerClosed()
+ * 3) Use hasViewers() to decide whether it's worth doing expensive work, eg sending the detailed contents of the
+ *    TileEntity to the client.  Optionally, be notified when the first viewer opens or the last viewer closes the container.
+ *
+ * The count is only meaningful on the server side.
+ */
+public class ContainerViewerTracker {
+
+  public void onContainerOpened() {
+    ++numberOfViewers;
+    if (numberOfViewers == 1) firstViewerOpenedLambda.invoke();
+  }
+
+  public void onContainerClosed() {
+    if (numberOfViewers <= 0) return;  // shouldn't happen, but just in case
+    --numberOfViewers;
+    if (numberOfViewers == 0) lastViewerClosedLambda.invoke();
+  }
+
+  public boolean hasViewers() {
+    return numberOfViewers > 0;
+  }
+
+  public int getNumberOfViewers() {
+    return numberOfViewers;
+  }
+
+  // the function to call when the number of viewers goes from zero to one
+  // default is "do nothing"
+  public void setFirstViewerOpenedLambda(ChestContents.Notify firstViewerOpenedLambda) {
+    this.firstViewerOpenedLambda = firstViewerOpenedLambda;
+  }
+
+  // the function to call when the number of viewers drops back to zero
+  // default is "do nothing"
+  public void setLastViewerClosedLambda(ChestContents.Notify lastViewerClosedLambda) {
+    this.lastViewerClosedLambda = lastViewerClosedLambda;
+  }
+
+  private int numberOfViewers = 0;
+  private ChestContents.Notify firstViewerOpenedLambda = ()->{};
+  private ChestContents.Notify lastViewerClosedLambda = ()->{};
+}
@@ -0,0 +1,125 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.IItemHandler;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A per-world index of which containers hold which items, so that we can find all the containers holding a particular
+ *   item without having to look inside every TileEntity.
+ * It's an "inverted index": for each item, the set of container positions which hold at least one of that item.
+ *
+ * The index is kept up to date incrementally by the TileEntities themselves (server side only):
+ * 1) when the TileEntity is loaded (onLoad), it tells the index which items it holds
+ * 2) whenever its contents change (i.e. the markDirty notification from ChestContents or FurnaceZoneContents), it tells
+ *    the index again.  The index compares the new items against the old ones, so the cost depends only on the number of
+ *    different items in that container.
+ * 3) when the TileEntity is removed or its chunk is unloaded, it removes itself from the index
+ *
+ * Items stored inside other items (eg flowers inside an ItemFlowerBag, which uses an ITEM_HANDLER_CAPABILITY) are also
+ *   indexed, as being in the container which holds the bag.
+ *
+ * The index only covers loaded chunks; it isn't saved to disk.
+ */
+public class ItemLocationIndex {
+
+  /**
+   * Get the index for the given world (created if necessary).  Server side only!
+   */
+  public static ItemLocationIndex forWorld(World world) {
+    if (world.isRemote) throw new IllegalArgumentException("ItemLocationIndex is only valid on the server");
+    return indexes.computeIfAbsent(world, k -> new ItemLocationIndex());
+  }
+
+  /**
+   * Update the index with the current contents of the container at the given position
+   * @param pos the position of the container
+   * @param itemsNowPresent all the items present in the container
+   */
+  public void updateContainer(BlockPos pos, Set<Item> itemsNowPresent) {
+    BlockPos key = pos.toImmutable();
+    Set<Item> itemsPreviouslyPresent = itemsByPosition.getOrDefault(key, Collections.emptySet());
+    if (itemsPreviouslyPresent.equals(itemsNowPresent)) return;
+
+    for (Item item : itemsPreviouslyPresent) {
+      if (!itemsNowPresent.contains(item)) removePosition(item, key);
+    }
+    for (Item item : itemsNowPresent) {
+      if (!itemsPreviouslyPresent.contains(item)) {
+        positionsByItem.computeIfAbsent(item, k -> new HashSet<>()).add(key);
+      }
+    }
+    if (itemsNowPresent.isEmpty()) {
+      itemsByPosition.remove(key);
+    } else {
+      itemsByPosition.put(key, new HashSet<>(itemsNowPresent));
+    }
+  }
+
+  /**
+   * Remove the container at the given position from the index (eg because it has been broken or unloaded)
+   */
+  public void removeContainer(BlockPos pos) {
+    Set<Item> itemsPreviouslyPresent = itemsByPosition.remove(pos);
+    if (itemsPreviouslyPresent == null) return;
+    for (Item item : itemsPreviouslyPresent) {
+      removePosition(item, pos);
+    }
+  }
+
+  /**
+   * Find all the containers which hold the given item.
+   * @return an unmodifiable view of the positions; don't keep it, because it will change as the index is updated
+   */
+  public Collection<BlockPos> findContainers(Item item) {
+    Set<BlockPos> positions = positionsByItem.get(item);
+    return positions == null ? Collections.emptySet() : Collections.unmodifiableSet(positions);
+  }
+
+  public int getNumberOfIndexedContainers() {
+    return itemsByPosition.size();
+  }
+
+  /**
+   * Adds the item in the given ItemStack to the set, as well as any items stored inside it (if it has an
+   *   ITEM_HANDLER_CAPABILITY, eg ItemFlowerBag)
+   */
+  public static void addItemTypes(ItemStack itemStack, Set<Item> itemTypes) {
+    if (itemStack.isEmpty()) return;
+    itemTypes.add(itemStack.getItem());
+    IItemHandler containedItems = itemStack.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY).orElse(null);
+    if (containedItems == null) return;
+    for (int i = 0; i < containedItems.getSlots(); ++i) {
+      ItemStack containedStack = containedItems.getStackInSlot(i);
+      if (!containedStack.isEmpty()) itemTypes.add(containedStack.getItem());
+    }
+  }
+
+  // ---------
+
+  private void removePosition(Item item, BlockPos pos) {
+    Set<BlockPos> positions = positionsByItem.get(item);
+    if (positions == null) return;
+    positions.remove(pos);
+    if (positions.isEmpty()) positionsByItem.remove(item);
+  }
+
+  private final Map<Item, Set<BlockPos>> positionsByItem = new HashMap<>();
+  private final Map<BlockPos, Set<Item>> itemsByPosition = new HashMap<>();
+
+  // one index per world.  Weak keys so that the index disappears when the world is unloaded.
+  private static final Map<World, ItemLocationIndex> indexes = new WeakHashMap<>();
+}
@@ -0,0 +1,368 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.items.ItemHandlerHelper;
+import net.minecraftforge.items.ItemStackHandler;
+import net.minecraftforge.registries.ForgeRegistries;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * An ItemStackHandler intended for a very large number of slots (thousands), most of which are usually empty or hold
+ *   plain items (eg cobblestone, dirt) without any NBT.
+ * The vanilla ItemStackHandler stores one ItemStack per slot, which is wasteful when there are thousands of slots:
+ *   every occupied slot costs a full ItemStack object, and every slot (even empty ones) is written to NBT.
+ * Instead, this handler stores
+ * 1) plain items as a compact [Item, count] entry, in a sparse map keyed by slot number (empty slots cost nothing)
+ * 2) a running total of the compact items of each type (item -> count), so that totals can be queried without looping
+ *    through every slot
+ * 3) "materialised" ItemStacks for slots which hold items with NBT, or which have been accessed via getStackInSlot().
+ *
+ * Why do we need materialised ItemStacks at all?  The vanilla Container code manipulates IInventory contents by
+ *   modifying the ItemStack returned by getStackInSlot() in place (eg slot.getStack().grow(1); slot.onSlotChanged(); )
+ *   so we must return a "live" ItemStack that we keep.  Once nobody is looking at the inventory any more (eg the
+ *   last player closes the container), call compact() to convert the materialised stacks back into compact entries.
+ *
+ * The NBT format groups the compact entries by item, so each item id is written only once:
+ *   Size: number of slots
+ *   Compact: list of {id: item registry name, Slots: int[] , Counts: int[]}
+ *   Items: list of full ItemStacks {Slot: int, ...}, same as the vanilla ItemStackHandler, for items which can't be compacted
+ */
+public class ItemStackHandlerCompact extends ItemStackHandler {
+
+  public ItemStackHandlerCompact(int numberOfSlots) {
+    super(0);  // we don't use the base class storage at all
+    this.numberOfSlots = numberOfSlots;
+  }
+
+  @Override
+  public void setSize(int size) {
+    numberOfSlots = size;
+    compactStacks.clear();
+    compactTotals.clear();
+    materialisedStacks.clear();
+  }
+
+  @Override
+  public int getSlots() {
+    return numberOfSlots;
+  }
+
+  /**
+   * Returns the live ItemStack in this slot; the caller is allowed to modify it (see class comments)
+   * Reading a compact slot materialises it, and it stays materialised until the next compact(), even if the caller
+   *   only wanted to look at it.  Use getTotalCount(), getItemTotals() or addItemTypes() for read-only queries.
+   */
+  @Override
+  @Nonnull
+  public ItemStack getStackInSlot(int slot) {
+    validateSlotIndex(slot);
+    ItemStack materialised = materialisedStacks.get(slot);
+    if (materialised != null) return materialised;
+
+    CompactStack compactStack = compactStacks.remove(slot);
+    if (compactStack == null) return ItemStack.EMPTY;
+    adjustTotal(compactStack.item, -compactStack.count);
+    ItemStack itemStack = new ItemStack(compactStack.item, compactStack.count);
+    materialisedStacks.put(slot, itemStack);
+    return itemStack;
+  }
+
+  @Override
+  public void setStackInSlot(int slot, @Nonnull ItemStack stack) {
+    validateSlotIndex(slot);
+    storeStack(slot, stack);
+    onContentsChanged(slot);
+  }
+
+  @Override
+  @Nonnull
+  public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate) {
+    if (stack.isEmpty()) return ItemStack.EMPTY;
+    if (!isItemValid(slot, stack)) return stack;
+    validateSlotIndex(slot);
+
+    ItemStack materialised = materialisedStacks.get(slot);
+    CompactStack compactStack = compactStacks.get(slot);
+    int existingCount = 0;
+    if (materialised != null && !materialised.isEmpty()) {
+      if (!ItemHandlerHelper.canItemStacksStack(stack, materialised)) return stack;
+      existingCount = materialised.getCount();
+    } else if (compactStack != null) {
+      if (stack.getItem() != compactStack.item || !isPlainStack(stack)) return stack;
+      existingCount = compactStack.count;
+    }
+
+    int limit = getStackLimit(slot, stack) - existingCount;
+    if (limit <= 0) return stack;
+
+    boolean reachedLimit = stack.getCount() > limit;
+    int countToInsert = reachedLimit ? limit : stack.getCount();
+    if (!simulate) {
+      if (existingCount == 0) {
+        storeStack(slot, ItemHandlerHelper.copyStackWithSize(stack, countToInsert));
+      } else if (compactStack != null) {
+        compactStack.count += countToInsert;
+        adjustTotal(compactStack.item, countToInsert);
+      } else {
+        materialised.grow(countToInsert);
+      }
+      onContentsChanged(slot);
+    }
+    return reachedLimit ? ItemHandlerHelper.copyStackWithSize(stack, stack.getCount() - limit) : ItemStack.EMPTY;
+  }
+
+  @Override
+  @Nonnull
+  public ItemStack extractItem(int slot, int amount, boolean simulate) {
+    if (amount == 0) return ItemStack.EMPTY;
+    validateSlotIndex(slot);
+
+    ItemStack materialised = materialisedStacks.get(slot);
+    if (materialised != null) {
+      if (materialised.isEmpty()) return ItemStack.EMPTY;
+      int countToExtract = Math.min(amount, materialised.getMaxStackSize());
+      if (materialised.getCount() <= countToExtract) {
+        if (simulate) return materialised.copy();
+        materialisedStacks.remove(slot);
+        onContentsChanged(slot);
+        return materialised;
+      }
+      if (!simulate) {
+        materialised.shrink(countToExtract);
+        onContentsChanged(slot);
+      }
+      return ItemHandlerHelper.copyStackWithSize(materialised, countToExtract);
+    }
+
+    CompactStack compactStack = compactStacks.get(slot);
+    if (compactStack == null) return ItemStack.EMPTY;
+    ItemStack extracted = new ItemStack(compactStack.item, Math.min(amount, compactStack.count));
+    extracted.setCount(Math.min(extracted.getCount(), extracted.getMaxStackSize()));
+    if (!simulate) {
+      compactStack.count -= extracted.getCount();
+      adjustTotal(compactStack.item, -extracted.getCount());
+      if (compactStack.count <= 0) compactStacks.remove(slot);
+      onContentsChanged(slot);
+    }
+    return extracted;
+  }
+
+  /**
+   * Convert all the materialised ItemStacks back into compact entries where possible.
+   * Only call this when nobody else could be holding a reference to a materialised ItemStack, eg when no players have
+   *   the container open.
+   */
+  public void compact() {
+    Iterator<Map.Entry<Integer, ItemStack>> iterator = materialisedStacks.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Integer, ItemStack> entry = iterator.next();
+      ItemStack itemStack = entry.getValue();
+      if (itemStack.isEmpty()) {
+        iterator.remove();
+      } else if (isPlainStack(itemStack)) {
+        iterator.remove();
+        compactStacks.put(entry.getKey(), new CompactStack(itemStack.getItem(), itemStack.getCount()));
+        adjustTotal(itemStack.getItem(), itemStack.getCount());
+      }
+    }
+  }
+
+  /**
+   * How many of the given item are stored in total, across all slots?
+   */
+  public int getTotalCount(Item item) {
+    int total = compactTotals.getOrDefault(item, 0);
+    for (ItemStack itemStack : materialisedStacks.values()) {
+      if (itemStack.getItem() == item) total += itemStack.getCount();
+    }
+    return total;
+  }
+
+  /**
+   * Returns a copy of the totals for each item type, summed over all slots
+   */
+  public Map<Item, Integer> getItemTotals() {
+    Map<Item, Integer> totals = new HashMap<>(compactTotals);
+    for (ItemStack itemStack : materialisedStacks.values()) {
+      if (!itemStack.isEmpty()) totals.merge(itemStack.getItem(), itemStack.getCount(), Integer::sum);
+    }
+    return totals;
+  }
+
+  /**
+   * Adds all the different items stored in this handler to the given set, without materialising any ItemStacks
+   */
+  public void addItemTypes(Set<Item> itemTypes) {
+    itemTypes.addAll(compactTotals.keySet());
+    for (ItemStack itemStack : materialisedStacks.values()) {
+      ItemLocationIndex.addItemTypes(itemStack, itemTypes);
+    }
+  }
+
+  // ----Methods used to load / save the contents to NBT
+
+  @Override
+  public CompoundNBT serializeNBT() {
+    Map<Item, List<Integer>> slotsByItem = new LinkedHashMap<>();
+    Map<Item, List<Integer>> countsByItem = new LinkedHashMap<>();
+    ListNBT fullItemStacksNBT = new ListNBT();
+
+    for (Map.Entry<Integer, CompactStack> entry : compactStacks.entrySet()) {
+      Item item = entry.getValue().item;
+      slotsByItem.computeIfAbsent(item, k -> new ArrayList<>()).add(entry.getKey());
+      countsByItem.computeIfAbsent(item, k -> new ArrayList<>()).add(entry.getValue().count);
+    }
+    for (Map.Entry<Integer, ItemStack> entry : materialisedStacks.entrySet()) {
+      ItemStack itemStack = entry.getValue();
+      if (itemStack.isEmpty()) continue;
+      if (isPlainStack(itemStack)) {
+        slotsByItem.computeIfAbsent(itemStack.getItem(), k -> new ArrayList<>()).add(entry.getKey());
+        countsByItem.computeIfAbsent(itemStack.getItem(), k -> new ArrayList<>()).add(itemStack.getCount());
+      } else {
+        CompoundNBT itemTag = new CompoundNBT();
+        itemTag.putInt(SLOT_NBT, entry.getKey());
+        itemStack.write(itemTag);
+        fullItemStacksNBT.add(itemTag);
+      }
+    }
+
+    ListNBT compactNBT = new ListNBT();
+    for (Map.Entry<Item, List<Integer>> entry : slotsByItem.entrySet()) {
+      CompoundNBT itemTag = new CompoundNBT();
+      itemTag.putString(ID_NBT, entry.getKey().getRegistryName().toString());
+      itemTag.putIntArray(SLOTS_NBT, entry.getValue());
+      itemTag.putIntArray(COUNTS_NBT, countsByItem.get(entry.getKey()));
+      compactNBT.add(itemTag);
+    }
+
+    CompoundNBT nbt = new CompoundNBT();
+    nbt.putInt(SIZE_NBT, numberOfSlots);
+    nbt.put(COMPACT_NBT, compactNBT);
+    nbt.put(ITEMS_NBT, fullItemStacksNBT);
+    return nbt;
+  }
+
+  @Override
+  public void deserializeNBT(CompoundNBT nbt) {
+    setSize(nbt.contains(SIZE_NBT, Constants.NBT.TAG_INT) ? nbt.getInt(SIZE_NBT) : numberOfSlots);
+
+    ListNBT compactNBT = nbt.getList(COMPACT_NBT, Constants.NBT.TAG_COMPOUND);
+    for (int i = 0; i < compactNBT.size(); ++i) {
+      CompoundNBT itemTag = compactNBT.getCompound(i);
+      Item item = ForgeRegistries.ITEMS.getValue(new ResourceLocation(itemTag.getString(ID_NBT)));
+      if (item == null || item == Items.AIR) {
+        LOGGER.warn("Unknown item in ItemStackHandlerCompact:" + itemTag.getString(ID_NBT));
+        continue;
+      }
+      int [] slots = itemTag.getIntArray(SLOTS_NBT);
+      int [] counts = itemTag.getIntArray(COUNTS_NBT);
+      for (int j = 0; j < slots.length && j < counts.length; ++j) {
+        if (slots[j] >= 0 && slots[j] < numberOfSlots && counts[j] > 0) {
+          storeStack(slots[j], new ItemStack(item, counts[j]));
+        }
+      }
+    }
+
+    ListNBT fullItemStacksNBT = nbt.getList(ITEMS_NBT, Constants.NBT.TAG_COMPOUND);
+    for (int i = 0; i < fullItemStacksNBT.size(); ++i) {
+      CompoundNBT itemTag = fullItemStacksNBT.getCompound(i);
+      int slot = itemTag.getInt(SLOT_NBT);
+      if (slot >= 0 && slot < numberOfSlots) {
+        storeStack(slot, ItemStack.read(itemTag));
+      }
+    }
+    onLoad();
+  }
+
+  @Override
+  protected void validateSlotIndex(int slot) {
+    if (slot < 0 || slot >= numberOfSlots)
+      throw new RuntimeException("Slot " + slot + " not in valid range - [0," + numberOfSlots + ")");
+  }
+
+  // ---------
+
+  /**
+   * Stores the given stack into the slot, replacing whatever was there.  Plain stacks are stored in compact form.
+   */
+  private void storeStack(int slot, ItemStack stack) {
+    materialisedStacks.remove(slot);
+    CompactStack previous = compactStacks.remove(slot);
+    if (previous != null) adjustTotal(previous.item, -previous.count);
+    if (stack.isEmpty()) return;
+
+    if (isPlainStack(stack)) {
+      compactStacks.put(slot, new CompactStack(stack.getItem(), stack.getCount()));
+      adjustTotal(stack.getItem(), stack.getCount());
+    } else {
+      materialisedStacks.put(slot, stack);
+    }
+  }
+
+  private void adjustTotal(Item item, int countChange) {
+    int newTotal = compactTotals.getOrDefault(item, 0) + countChange;
+    if (newTotal <= 0) {
+      compactTotals.remove(item);
+    } else {
+      compactTotals.put(item, newTotal);
+    }
+  }
+
+  /**
+   * A "plain" stack is fully described by its item and its count, i.e. it has no NBT tag and no capability data
+   *   (capability data is checked by comparing against a freshly created stack of the same item, which is created
+   *   once per item and then reused, so that checking doesn't allocate a new ItemStack every time)
+   */
+  private static boolean isPlainStack(ItemStack stack) {
+    if (stack.hasTag()) return false;
+    ItemStack freshStack = freshStacks.computeIfAbsent(stack.getItem(), item -> new ItemStack(item));
+    return stack.areCapsCompatible(freshStack);
+  }
+
+  private static class CompactStack {
+    public CompactStack(Item item, int count) {
+      this.item = item;
+      this.count = count;
+    }
+    public final Item item;
+    public int count;
+  }
+
+  private static final String SIZE_NBT = "Size";
+  private static final String COMPACT_NBT = "Compact";
+  private static final String ITEMS_NBT = "Items";
+  private static final String ID_NBT = "id";
+  private static final String SLOT_NBT = "Slot";
+  private static final String SLOTS_NBT = "Slots";
+  private static final String COUNTS_NBT = "Counts";
+
+  private int numberOfSlots;
+  private final Map<Integer, CompactStack> compactStacks = new HashMap<>();  // only contains occupied slots
+  private final Map<Item, Integer> compactTotals = new HashMap<>();          // sum of compactStacks for each item
+  private final Map<Integer, ItemStack> materialisedStacks = new HashMap<>();
+
+  // one unmodified ItemStack per item, used by isPlainStack().  Never give these out to anyone else.
+  // Concurrent because the client and the integrated server threads can both use ItemStackHandlerCompact
+  private static final Map<Item, ItemStack> freshStacks = new ConcurrentHashMap<>();
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -0,0 +1,56 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.command.arguments.ItemArgument;
+import net.minecraft.item.Item;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.StringTextComponent;
+
+import java.util.Collection;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Adds a command "mbefind <item>"
+ * Lists all the containers (MBE30 chests, MBE30b large storage, MBE31 furnaces) in the current world which hold the
+ *   given item, using the ItemLocationIndex.  Only containers in loaded chunks are found.
+ * The index lookup costs are proportional to the number of results, not the number of containers in the world.
+ */
+public class MBEfindCommand {
+  public static void register(CommandDispatcher<CommandSource> dispatcher) {
+    LiteralArgumentBuilder<CommandSource> mbefindCommand
+            = Commands.literal("mbefind")
+                 .requires((commandSource) -> commandSource.hasPermissionLevel(2))
+                 .then(Commands.argument("item", ItemArgument.item())
+                         .executes(MBEfindCommand::findItem)
+                      );
+
+    dispatcher.register(mbefindCommand);
+  }
+
+  static int findItem(CommandContext<CommandSource> commandContext) throws CommandSyntaxException {
+    Item item = ItemArgument.getItem(commandContext, "item").getItem();
+    CommandSource source = commandContext.getSource();
+    Collection<BlockPos> positions = ItemLocationIndex.forWorld(source.getWorld()).findContainers(item);
+
+    source.sendFeedback(new StringTextComponent(item.getRegistryName() + " found in " + positions.size() + " container(s)"),
+                        false);
+    int linesPrinted = 0;
+    for (BlockPos pos : positions) {
+      if (linesPrinted >= MAXIMUM_LINES) {
+        source.sendFeedback(new StringTextComponent("  ... and " + (positions.size() - linesPrinted) + " more"), false);
+        break;
+      }
+      source.sendFeedback(new StringTextComponent("  [" + pos.getX() + ", " + pos.getY() + ", " + pos.getZ() + "]"), false);
+      ++linesPrinted;
+    }
+    return positions.size();
+  }
+
+  private static final int MAXIMUM_LINES = 20;
+}
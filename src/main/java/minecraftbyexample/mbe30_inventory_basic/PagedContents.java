@@ -0,0 +1,131 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.IntReferenceHolder;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A "window" onto a page of a much larger ChestContents.
+ * The ContainerLarge only has slots for one page of items at a time; the PagedContents translates the page slot number
+ *   (0 to pageSize - 1) into the slot number in the underlying ChestContents.
+ * Because the Container only contains the slots for the visible page, vanilla only synchronises the visible page to the
+ *   client.
+ *
+ * On the client side, the PagedContents wraps a ChestContents which only has one page of slots, and the page number is
+ *   only used for display.
+ */
+public class PagedContents implements IInventory {
+
+  /**
+   * @param chestContents the underlying contents (all pages)
+   * @param pageSize  the number of slots per page
+   * @param pageNumber holds the currently visible page number (0 = first page)
+   */
+  public PagedContents(ChestContents chestContents, int pageSize, IntReferenceHolder pageNumber) {
+    this.chestContents = chestContents;
+    this.pageSize = pageSize;
+    this.pageNumber = pageNumber;
+  }
+
+  public int getPageNumber() {
+    return pageNumber.get();
+  }
+
+  public int getNumberOfPages() {
+    return Math.max(1, (chestContents.getSizeInventory() + pageSize - 1) / pageSize);
+  }
+
+  public void setPageNumber(int newPageNumber) {
+    pageNumber.set(MathHelper.clamp(newPageNumber, 0, getNumberOfPages() - 1));
+  }
+
+  // ----- IInventory methods: delegate to the underlying ChestContents, offset by the current page
+
+  @Override
+  public int getSizeInventory() {
+    return pageSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (int i = 0; i < pageSize; ++i) {
+      if (!getStackInSlot(i).isEmpty()) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public ItemStack getStackInSlot(int index) {
+    int chestSlot = toChestSlot(index);
+    return isValidChestSlot(chestSlot) ? chestContents.getStackInSlot(chestSlot) : ItemStack.EMPTY;
+  }
+
+  @Override
+  public ItemStack decrStackSize(int index, int count) {
+    int chestSlot = toChestSlot(index);
+    return isValidChestSlot(chestSlot) ? chestContents.decrStackSize(chestSlot, count) : ItemStack.EMPTY;
+  }
+
+  @Override
+  public ItemStack removeStackFromSlot(int index) {
+    int chestSlot = toChestSlot(index);
+    return isValidChestSlot(chestSlot) ? chestContents.removeStackFromSlot(chestSlot) : ItemStack.EMPTY;
+  }
+
+  @Override
+  public void setInventorySlotContents(int index, ItemStack stack) {
+    int chestSlot = toChestSlot(index);
+    if (isValidChestSlot(chestSlot)) chestContents.setInventorySlotContents(chestSlot, stack);
+  }
+
+  @Override
+  public boolean isItemValidForSlot(int index, ItemStack stack) {
+    int chestSlot = toChestSlot(index);
+    return isValidChestSlot(chestSlot) && chestContents.isItemValidForSlot(chestSlot, stack);
+  }
+
+  @Override
+  public void markDirty() {
+    chestContents.markDirty();
+  }
+
+  @Override
+  public boolean isUsableByPlayer(PlayerEntity player) {
+    return chestContents.isUsableByPlayer(player);
+  }
+
+  @Override
+  public void openInventory(PlayerEntity player) {
+    chestContents.openInventory(player);
+  }
+
+  @Override
+  public void closeInventory(PlayerEntity player) {
+    chestContents.closeInventory(player);
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < pageSize; ++i) {
+      setInventorySlotContents(i, ItemStack.EMPTY);
+    }
+  }
+
+  // ---------
+
+  private int toChestSlot(int index) {
+    return pageNumber.get() * pageSize + index;
+  }
+
+  private boolean isValidChestSlot(int chestSlot) {
+    return chestSlot >= 0 && chestSlot < chestContents.getSizeInventory();
+  }
+
+  private final ChestContents chestContents;
+  private final int pageSize;
+  private final IntReferenceHolder pageNumber;
+}
@@ -21,5 +21,6 @@ public class StartupClientOnly
   @SubscribeEvent
   public static void onClientSetupEvent(FMLClientSetupEvent event) {
     ScreenManager.registerFactory(StartupCommon.containerTypeContainerBasic, ContainerScreenBasic::new);
+    ScreenManager.registerFactory(StartupCommon.containerTypeContainerLarge, ContainerScreenLarge::new);
   }
 }
@@ -6,9 +6,11 @@ import net.minecraft.item.BlockItem;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemGroup;
 import net.minecraft.tileentity.TileEntityType;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.extensions.IForgeContainerType;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 
 /**
  * User: brandon3055
@@ -19,20 +21,27 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
  *  * Register<Item>
  *  * Register<TileEntityType<?>>
  *  * Register<ContainerType<?>>
+ *  * FMLCommonSetupEvent
  *  See MinecraftByExample class for more information
  */
 public class StartupCommon
 {
 	public static Block blockInventoryBasic;  // this holds the unique instance of your block
 	public static BlockItem itemBlockInventoryBasic; // and the corresponding item form that block
+  public static Block blockInventoryLarge;  // the high-capacity storage block
+  public static BlockItem itemBlockInventoryLarge;
 
   public static TileEntityType<TileEntityInventoryBasic> tileEntityTypeMBE30;  // Holds the type of our tile entity; needed for the TileEntityData constructor
   public static ContainerType<ContainerBasic> containerTypeContainerBasic;
+  public static TileEntityType<TileEntityInventoryLarge> tileEntityTypeMBE30Large;
+  public static ContainerType<ContainerLarge> containerTypeContainerLarge;
 
   @SubscribeEvent
   public static void onBlocksRegistration(final RegistryEvent.Register<Block> blockRegisterEvent) {
     blockInventoryBasic = new BlockInventoryBasic().setRegistryName("mbe30_block_registry_name");
     blockRegisterEvent.getRegistry().register(blockInventoryBasic);
+    blockInventoryLarge = new BlockInventoryLarge().setRegistryName("mbe30b_block_registry_name");
+    blockRegisterEvent.getRegistry().register(blockInventoryLarge);
   }
 
   @SubscribeEvent
@@ -46,6 +55,10 @@ public class StartupCommon
     itemBlockInventoryBasic = new BlockItem(blockInventoryBasic, itemSimpleProperties);
     itemBlockInventoryBasic.setRegistryName(blockInventoryBasic.getRegistryName());
     itemRegisterEvent.getRegistry().register(itemBlockInventoryBasic);
+
+    itemBlockInventoryLarge = new BlockItem(blockInventoryLarge, itemSimpleProperties);
+    itemBlockInventoryLarge.setRegistryName(blockInventoryLarge.getRegistryName());
+    itemRegisterEvent.getRegistry().register(itemBlockInventoryLarge);
   }
 
   @SubscribeEvent
@@ -55,6 +68,11 @@ public class StartupCommon
                         // you probably don't need a datafixer --> null should be fine
     tileEntityTypeMBE30.setRegistryName("minecraftbyexample:mbe30_tile_entity_type_registry_name");
     event.getRegistry().register(tileEntityTypeMBE30);
+
+    tileEntityTypeMBE30Large = TileEntityType.Builder.create(TileEntityInventoryLarge::new, blockInventoryLarge)
+                                                     .build(null);
+    tileEntityTypeMBE30Large.setRegistryName("minecraftbyexample:mbe30b_tile_entity_type_registry_name");
+    event.getRegistry().register(tileEntityTypeMBE30Large);
   }
 
   @SubscribeEvent
@@ -63,5 +81,14 @@ public class StartupCommon
     containerTypeContainerBasic = IForgeContainerType.create(ContainerBasic::createContainerClientSide);
     containerTypeContainerBasic.setRegistryName("mbe30_container_registry_name");
     event.getRegistry().register(containerTypeContainerBasic);
+
+    containerTypeContainerLarge = IForgeContainerType.create(ContainerLarge::createContainerClientSide);
+    containerTypeContainerLarge.setRegistryName("mbe30b_container_registry_name");
+    event.getRegistry().register(containerTypeContainerLarge);
+  }
+
+  @SubscribeEvent
+  public static void onCommonSetupEvent(FMLCommonSetupEvent event) {
+    MinecraftForge.EVENT_BUS.register(RegisterCommandEvent.class);  // for the mbefind command
   }
 }
@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe30_inventory_basic;
 
+import minecraftbyexample.usefultools.SetBlockStateFlag;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
@@ -23,6 +24,9 @@ import javax.annotation.Nullable;
  * Date: 06/01/2015
  *
  * This is a simple tile entity that can store 9 ItemStacks
+ *
+ * To avoid wasted effort, the detailed contents are only sent to clients while at least one player has the container
+ *   open (see ContainerViewerTracker).  The rest of the time, clients only receive a summary (the comparator output level).
  */
 public class TileEntityInventoryBasic extends TileEntity implements INamedContainerProvider {
 	public static final int NUMBER_OF_SLOTS = 9;
@@ -31,9 +35,75 @@ public class TileEntityInventoryBasic extends TileEntity implements INamedContai
 	{
     super(StartupCommon.tileEntityTypeMBE30);
     chestContents = ChestContents.createForTileEntity(NUMBER_OF_SLOTS,
-            this::canPlayerAccessInventory, this::markDirty);
+            this::canPlayerAccessInventory, this::onContentsChanged);
+    chestContents.setLazyDeserialisation(true);  // don't decode the contents until somebody actually looks at them
+    chestContents.setOpenInventoryNotificationLambda(viewerTracker::onContainerOpened);
+    chestContents.setCloseInventoryNotificationLambda(viewerTracker::onContainerClosed);
+    viewerTracker.setLastViewerClosedLambda(this::sendUpdateToClients);  // replace the detailed contents with the summary
 	}
 
+  /**
+   * Called whenever the contents of the chest have changed:
+   * 1) mark the TileEntity as needing to be saved
+   * 2) update the comparator summary (markDirty() tells the neighbouring comparators to check it)
+   * 3) if the summary has changed: send an update to the clients.
+   * The players who have the container open don't need a TileEntity update: the container sends them the changed
+   *   slots itself (Container.detectAndSendChanges).
+   */
+  private void onContentsChanged() {
+    boolean summaryChanged = false;
+    if (world != null && !world.isRemote) {
+      int newComparatorLevel = Container.calcRedstoneFromInventory(chestContents);
+      summaryChanged = (newComparatorLevel != comparatorLevel);
+      comparatorLevel = newComparatorLevel;
+    }
+    markDirty();
+    if (summaryChanged) {
+      sendUpdateToClients();
+    }
+    updateItemLocationIndex();
+  }
+
+  // ------ Keep the ItemLocationIndex up to date (server side only)
+
+  @Override
+  public void onLoad() {
+    super.onLoad();
+    updateItemLocationIndex();
+  }
+
+  @Override
+  public void remove() {
+    super.remove();
+    if (world != null && !world.isRemote) ItemLocationIndex.forWorld(world).removeContainer(pos);
+  }
+
+  @Override
+  public void onChunkUnloaded() {
+    super.onChunkUnloaded();
+    if (world != null && !world.isRemote) ItemLocationIndex.forWorld(world).removeContainer(pos);
+  }
+
+  private void updateItemLocationIndex() {
+    if (world == null || world.isRemote) return;
+    ItemLocationIndex.forWorld(world).updateContainer(pos, chestContents.getItemTypes());
+  }
+
+  private void sendUpdateToClients() {
+    if (world == null || world.isRemote) return;
+    BlockState blockState = getBlockState();
+    final int FLAGS = SetBlockStateFlag.get(SetBlockStateFlag.SEND_TO_CLIENTS);
+    world.notifyBlockUpdate(pos, blockState, blockState, FLAGS);
+  }
+
+  /**
+   * The comparator output level for this chest, 0 - 15, calculated the same way as vanilla chests.
+   * Kept up to date whenever the contents change, and saved to NBT, so that comparators don't need to decode the contents.
+   */
+  public int getComparatorLevel() {
+    return comparatorLevel;
+  }
+
 	// Return true if the given player is able to use this block. In this case it checks that
 	// 1) the world tileentity hasn't been replaced in the meantime, and
 	// 2) the player isn't too far away from the centre of the block
@@ -47,6 +117,7 @@ public class TileEntityInventoryBasic extends TileEntity implements INamedContai
 	}
 
 	private static final String CHESTCONTENTS_INVENTORY_TAG = "contents";
+  private static final String COMPARATOR_LEVEL_TAG = "comparatorLevel";
 
 	// This is where you save any data that you don't want to lose when the tile entity unloads
 	// In this case, it saves the chestContents, which contains the ItemStacks stored in the chest
@@ -56,6 +127,7 @@ public class TileEntityInventoryBasic extends TileEntity implements INamedContai
 		super.write(parentNBTTagCompound); // The super call is required to save and load the tileEntity's location
     CompoundNBT inventoryNBT = chestContents.serializeNBT();
     parentNBTTagCompound.put(CHESTCONTENTS_INVENTORY_TAG, inventoryNBT);
+    parentNBTTagCompound.putInt(COMPARATOR_LEVEL_TAG, comparatorLevel);
 		return parentNBTTagCompound;
 	}
 
@@ -64,10 +136,18 @@ public class TileEntityInventoryBasic extends TileEntity implements INamedContai
 	public void read(BlockState blockState, CompoundNBT parentNBTTagCompound)
 	{
 		super.read(blockState, parentNBTTagCompound); // The super call is required to save and load the tiles location
+    comparatorLevel = parentNBTTagCompound.getInt(COMPARATOR_LEVEL_TAG);
+    if (!parentNBTTagCompound.contains(CHESTCONTENTS_INVENTORY_TAG)) {  // summary only (see getUpdateTag)
+      chestContents.clear();
+      return;
+    }
     CompoundNBT inventoryNBT = parentNBTTagCompound.getCompound(CHESTCONTENTS_INVENTORY_TAG);
     chestContents.deserializeNBT(inventoryNBT);
     if (chestContents.getSizeInventory() != NUMBER_OF_SLOTS)
       throw new IllegalArgumentException("Corrupted NBT: Number of inventory slots did not match expected.");
+    if (!parentNBTTagCompound.contains(COMPARATOR_LEVEL_TAG)) {  // saved by an older version
+      comparatorLevel = Container.calcRedstoneFromInventory(chestContents);
+    }
 	}
 
   // When the world loads from disk, the server needs to send the TileEntity information to the client
@@ -77,12 +157,12 @@ public class TileEntityInventoryBasic extends TileEntity implements INamedContai
   //  Your container may still appear to work even if you forget to implement these methods, because when you open the
   //    container using the GUI it takes the information from the server, but anything on the client
   //   side that looks inside the tileEntity (for example: to change the rendering) won't see anything.
+  // In this case, the client only sees the detailed contents while somebody has the container open.
   @Override
   @Nullable
   public SUpdateTileEntityPacket getUpdatePacket()
   {
-    CompoundNBT nbtTagCompound = new CompoundNBT();
-    write(nbtTagCompound);
+    CompoundNBT nbtTagCompound = getUpdateTag();
     int tileEntityType = 42;  // arbitrary number; only used for vanilla TileEntities.  You can use it, or not, as you want.
     return new SUpdateTileEntityPacket(this.pos, tileEntityType, nbtTagCompound);
   }
@@ -93,13 +173,19 @@ public class TileEntityInventoryBasic extends TileEntity implements INamedContai
     read(blockState, pkt.getNbtCompound());
   }
 
-  /* Creates a tag containing all of the TileEntity information, used by vanilla to transmit from server to client
+  /* Creates a tag containing the TileEntity information, used by vanilla to transmit from server to client
+   * If nobody has the container open, only the summary (the comparator level) is sent, not the detailed contents
    */
   @Override
   public CompoundNBT getUpdateTag()
   {
-    CompoundNBT nbtTagCompound = new CompoundNBT();
-    write(nbtTagCompound);
+    if (viewerTracker.hasViewers()) {
+      CompoundNBT nbtTagCompound = new CompoundNBT();
+      write(nbtTagCompound);
+      return nbtTagCompound;
+    }
+    CompoundNBT nbtTagCompound = super.write(new CompoundNBT());
+    nbtTagCompound.putInt(COMPARATOR_LEVEL_TAG, comparatorLevel);
     return nbtTagCompound;
   }
 
@@ -148,4 +234,6 @@ public class TileEntityInventoryBasic extends TileEntity implements INamedContai
   }
 
   private final ChestContents chestContents; // holds the ItemStacks in the Chest
+  private final ContainerViewerTracker viewerTracker = new ContainerViewerTracker();
+  private int comparatorLevel = 0;
 }
@@ -0,0 +1,152 @@
+package minecraftbyexample.mbe30_inventory_basic;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.InventoryHelper;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.inventory.container.INamedContainerProvider;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A high-capacity version of TileEntityInventoryBasic, which can store thousands of ItemStacks.
+ * It uses the same ChestContents as TileEntityInventoryBasic, but with an ItemStackHandlerCompact for storage instead
+ *   of the default ItemStackHandler, so that empty slots and plain items don't cost much memory or NBT.
+ * The contents are viewed one page at a time, using ContainerLarge.
+ *
+ * Unlike TileEntityInventoryBasic, the contents are not sent to the client in the update tag: nothing on the client
+ *   needs them (the block rendering doesn't depend on the contents), and the container sends the visible page anyway.
+ */
+public class TileEntityInventoryLarge extends TileEntity implements INamedContainerProvider {
+  public static final int NUMBER_OF_PAGES = 40;
+  public static final int NUMBER_OF_SLOTS = NUMBER_OF_PAGES * ContainerLarge.PAGE_SLOT_COUNT;
+
+  public TileEntityInventoryLarge()
+  {
+    super(StartupCommon.tileEntityTypeMBE30Large);
+    chestContents = ChestContents.createForTileEntity(itemStackHandlerCompact,
+            this::canPlayerAccessInventory, this::onContentsChanged);
+    chestContents.setLazyDeserialisation(true);  // don't decode the contents until somebody actually looks at them
+    chestContents.setOpenInventoryNotificationLambda(viewerTracker::onContainerOpened);
+    chestContents.setCloseInventoryNotificationLambda(viewerTracker::onContainerClosed);
+    // When the last player closes the container, nobody can be holding any of the ItemStacks any more, so we can
+    //   convert them back into compact form.
+    viewerTracker.setLastViewerClosedLambda(itemStackHandlerCompact::compact);
+  }
+
+  // Return true if the given player is able to use this block. In this case it checks that
+  // 1) the world tileentity hasn't been replaced in the meantime, and
+  // 2) the player isn't too far away from the centre of the block
+  public boolean canPlayerAccessInventory(PlayerEntity player) {
+    if (this.world.getTileEntity(this.pos) != this) return false;
+    final double X_CENTRE_OFFSET = 0.5;
+    final double Y_CENTRE_OFFSET = 0.5;
+    final double Z_CENTRE_OFFSET = 0.5;
+    final double MAXIMUM_DISTANCE_SQ = 8.0 * 8.0;
+    return player.getDistanceSq(pos.getX() + X_CENTRE_OFFSET, pos.getY() + Y_CENTRE_OFFSET, pos.getZ() + Z_CENTRE_OFFSET) < MAXIMUM_DISTANCE_SQ;
+  }
+
+  private void onContentsChanged() {
+    // If nobody has the container open, any ItemStacks which were materialised by reading a slot (eg by a hopper)
+    //   aren't being held by anyone, so convert them back into compact form
+    if (!viewerTracker.hasViewers()) itemStackHandlerCompact.compact();
+    markDirty();
+    updateItemLocationIndex();
+  }
+
+  // ------ Keep the ItemLocationIndex up to date (server side only)
+
+  @Override
+  public void onLoad() {
+    super.onLoad();
+    updateItemLocationIndex();
+  }
+
+  @Override
+  public void remove() {
+    super.remove();
+    if (world != null && !world.isRemote) ItemLocationIndex.forWorld(world).removeContainer(pos);
+  }
+
+  @Override
+  public void onChunkUnloaded() {
+    super.onChunkUnloaded();
+    if (world != null && !world.isRemote) ItemLocationIndex.forWorld(world).removeContainer(pos);
+  }
+
+  private void updateItemLocationIndex() {
+    if (world == null || world.isRemote) return;
+    ItemLocationIndex.forWorld(world).updateContainer(pos, chestContents.getItemTypes());
+  }
+
+  private static final String CHESTCONTENTS_INVENTORY_TAG = "contents";
+
+  // This is where you save any data that you don't want to lose when the tile entity unloads
+  @Override
+  public CompoundNBT write(CompoundNBT parentNBTTagCompound)
+  {
+    super.write(parentNBTTagCompound); // The super call is required to save and load the tileEntity's location
+    CompoundNBT inventoryNBT = chestContents.serializeNBT();
+    parentNBTTagCompound.put(CHESTCONTENTS_INVENTORY_TAG, inventoryNBT);
+    return parentNBTTagCompound;
+  }
+
+  // This is where you load the data that you saved in write
+  @Override
+  public void read(BlockState blockState, CompoundNBT parentNBTTagCompound)
+  {
+    super.read(blockState, parentNBTTagCompound); // The super call is required to save and load the tiles location
+    CompoundNBT inventoryNBT = parentNBTTagCompound.getCompound(CHESTCONTENTS_INVENTORY_TAG);
+    chestContents.deserializeNBT(inventoryNBT);
+    if (chestContents.getSizeInventory() != NUMBER_OF_SLOTS)
+      throw new IllegalArgumentException("Corrupted NBT: Number of inventory slots did not match expected.");
+  }
+
+  /* Creates a tag containing the TileEntity information, used by vanilla to transmit from server to client.
+     We deliberately leave out the contents (see class comments); only the location is sent.
+   */
+  @Override
+  public CompoundNBT getUpdateTag()
+  {
+    return super.write(new CompoundNBT());
+  }
+
+  @Override
+  public void handleUpdateTag(BlockState blockState, CompoundNBT tag)
+  {
+    super.read(blockState, tag);
+  }
+
+  /**
+   * When this tile entity is destroyed, drop all of its contents into the world
+   * @param world
+   * @param blockPos
+   */
+  public void dropAllContents(World world, BlockPos blockPos) {
+    InventoryHelper.dropInventoryItems(world, blockPos, chestContents);
+  }
+
+  @Override
+  public ITextComponent getDisplayName() {
+    return new TranslationTextComponent("container.minecraftbyexample.mbe30b_container_registry_name");
+  }
+
+  @Nullable
+  @Override
+  public Container createMenu(int windowID, PlayerInventory playerInventory, PlayerEntity playerEntity) {
+    return ContainerLarge.createContainerServerSide(windowID, playerInventory, chestContents);
+  }
+
+  private final ItemStackHandlerCompact itemStackHandlerCompact = new ItemStackHandlerCompact(NUMBER_OF_SLOTS);
+  private final ChestContents chestContents; // holds the ItemStacks in the Chest
+  private final ContainerViewerTracker viewerTracker = new ContainerViewerTracker();
+}
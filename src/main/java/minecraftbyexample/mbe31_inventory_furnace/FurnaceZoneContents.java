@@ -1,11 +1,14 @@
 package minecraftbyexample.mbe31_inventory_furnace;
 
+import minecraftbyexample.mbe30_inventory_basic.ItemLocationIndex;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.inventory.IInventory;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraftforge.items.ItemStackHandler;
 
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -229,6 +232,15 @@ public class FurnaceZoneContents implements IInventory {
     return leftoverItemStack.isEmpty();
   }
 
+  /**
+   * Adds all the different items stored in this zone to the given set (see ItemLocationIndex)
+   */
+  public void addItemTypes(Set<Item> itemTypes) {
+    for (int i = 0; i < furnaceComponentContents.getSlots(); ++i) {
+      ItemLocationIndex.addItemTypes(furnaceComponentContents.getStackInSlot(i), itemTypes);
+    }
+  }
+
   // ---------
 
   private FurnaceZoneContents(int size) {
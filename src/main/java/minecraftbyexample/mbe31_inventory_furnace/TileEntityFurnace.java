@@ -1,6 +1,7 @@
 package minecraftbyexample.mbe31_inventory_furnace;
 
 import minecraftbyexample.mbe30_inventory_basic.ContainerBasic;
+import minecraftbyexample.mbe30_inventory_basic.ItemLocationIndex;
 import minecraftbyexample.usefultools.SetBlockStateFlag;
 import net.minecraft.block.AbstractFurnaceBlock;
 import net.minecraft.block.BlockState;
@@ -36,7 +37,9 @@ import net.minecraftforge.items.ItemStackHandler;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * User: brandon3055
@@ -64,11 +67,11 @@ public class TileEntityFurnace extends TileEntity implements INamedContainerProv
 	public TileEntityFurnace(){
 	  super(StartupCommon.tileEntityTypeMBE31);
 	  fuelZoneContents = FurnaceZoneContents.createForTileEntity(FUEL_SLOTS_COUNT,
-            this::canPlayerAccessInventory, this::markDirty);
+            this::canPlayerAccessInventory, this::onZoneContentsChanged);
    inputZoneContents = FurnaceZoneContents.createForTileEntity(INPUT_SLOTS_COUNT,
-            this::canPlayerAccessInventory, this::markDirty);
+            this::canPlayerAccessInventory, this::onZoneContentsChanged);
     outputZoneContents = FurnaceZoneContents.createForTileEntity(OUTPUT_SLOTS_COUNT,
-            this::canPlayerAccessInventory, this::markDirty);
+            this::canPlayerAccessInventory, this::onZoneContentsChanged);
 	}
 
   // Return true if the given player is able to use this block. In this case it checks that
@@ -183,7 +186,7 @@ public class TileEntityFurnace extends TileEntity implements INamedContainerProv
 				}
 			}
 		}
-		if (inventoryChanged) markDirty();
+		if (inventoryChanged) onZoneContentsChanged();
 		return burningCount;
 	}
 
@@ -240,7 +243,7 @@ public class TileEntityFurnace extends TileEntity implements INamedContainerProv
     inputZoneContents.decrStackSize(firstSuitableInputSlot, 1);
     outputZoneContents.increaseStackSize(firstSuitableOutputSlot, result);
 
-		markDirty();
+		onZoneContentsChanged();
 		return returnvalue;
 	}
 
@@ -401,6 +404,43 @@ public class TileEntityFurnace extends TileEntity implements INamedContainerProv
   @Override
   public void handleUpdateTag(BlockState blockState, CompoundNBT tag) { read(blockState, tag); }
 
+  // ------ Keep the ItemLocationIndex up to date (server side only)
+  // All changes to the zone contents end up calling onZoneContentsChanged(), either from the FurnaceZoneContents
+  //   markDirty notification or from tick() when fuel is consumed or an item is smelted.
+  // Plain markDirty() calls (eg the burning block state changing) don't reindex.
+
+  private void onZoneContentsChanged() {
+    markDirty();
+    updateItemLocationIndex();
+  }
+
+  @Override
+  public void onLoad() {
+    super.onLoad();
+    updateItemLocationIndex();
+  }
+
+  @Override
+  public void remove() {
+    super.remove();
+    if (world != null && !world.isRemote) ItemLocationIndex.forWorld(world).removeContainer(pos);
+  }
+
+  @Override
+  public void onChunkUnloaded() {
+    super.onChunkUnloaded();
+    if (world != null && !world.isRemote) ItemLocationIndex.forWorld(world).removeContainer(pos);
+  }
+
+  private void updateItemLocationIndex() {
+    if (world == null || world.isRemote) return;
+    Set<Item> itemTypes = new HashSet<>();
+    fuelZoneContents.addItemTypes(itemTypes);
+    inputZoneContents.addItemTypes(itemTypes);
+    outputZoneContents.addItemTypes(itemTypes);
+    ItemLocationIndex.forWorld(world).updateContainer(pos, itemTypes);
+  }
+
   /**
    * When this tile entity is destroyed, drop all of its contents into the world
    * @param world
@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe32_inventory_item;
 
+import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.INBT;
 import net.minecraft.util.Direction;
 import net.minecraftforge.common.capabilities.Capability;
@@ -43,20 +44,27 @@ public class CapabilityProviderFlowerBag implements ICapabilitySerializable<INBT
 
   /**
    * Write all the capability state information to NBT - in this case the contents of the inventory
+   * We use the compact format from ItemStackHandlerFlowerBag rather than the default ITEM_HANDLER_CAPABILITY storage,
+   *   which writes a full ItemStack for every slot.
    * @return
    */
   @Override
   public INBT serializeNBT() {
-    return CapabilityItemHandler.ITEM_HANDLER_CAPABILITY.writeNBT(getCachedInventory(), NO_SPECIFIC_SIDE);
+    return getCachedInventory().serializeNBT();
   }
 
   /**
    * Read the capability state information out of NBT - in this case the contents of the inventory.
+   * Bags saved before we used the compact format contain a list written by the default ITEM_HANDLER_CAPABILITY storage.
    * @return
    */
   @Override
   public void deserializeNBT(INBT nbt) {
-    CapabilityItemHandler.ITEM_HANDLER_CAPABILITY.readNBT(getCachedInventory(), NO_SPECIFIC_SIDE, nbt);
+    if (nbt instanceof CompoundNBT) {
+      getCachedInventory().deserializeNBT((CompoundNBT)nbt);
+    } else {
+      CapabilityItemHandler.ITEM_HANDLER_CAPABILITY.readNBT(getCachedInventory(), NO_SPECIFIC_SIDE, nbt);
+    }
   }
 
   /**
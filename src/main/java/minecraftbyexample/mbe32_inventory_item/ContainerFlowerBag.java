@@ -222,6 +222,7 @@ public class ContainerFlowerBag extends Container {
    */
 	@Override
   public void detectAndSendChanges() {
+    itemStackHandlerFlowerBag.recountEmptySlots();  // the slots may have changed the ItemStacks directly
     if (itemStackHandlerFlowerBag.isDirty()) {
       CompoundNBT nbt = itemStackBeingHeld.getOrCreateTag();
       int dirtyCounter = nbt.getInt("dirtyCounter");
@@ -223,7 +223,7 @@ public class ItemFlowerBag extends Item {
   public CompoundNBT getShareTag(ItemStack stack) {
     CompoundNBT baseTag = stack.getTag();
     ItemStackHandlerFlowerBag itemStackHandlerFlowerBag = getItemStackHandlerFlowerBag(stack);
-    CompoundNBT capabilityTag = itemStackHandlerFlowerBag.serializeNBT();
+    CompoundNBT capabilityTag = itemStackHandlerFlowerBag.getCachedNBT();  // only re-encodes the slots which have changed
     CompoundNBT combinedTag = new CompoundNBT();
     if (baseTag != null) {
       combinedTag.put(BASE_NBT_TAG, baseTag);
@@ -3,11 +3,22 @@ package minecraftbyexample.mbe32_inventory_item;
 import net.minecraft.block.Block;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
 import net.minecraft.tags.ItemTags;
+import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.items.ItemStackHandler;
+import net.minecraftforge.registries.ForgeRegistries;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,6 +26,18 @@ import java.util.Optional;
  *
  * Used to store Flower ItemStacks.  Will only accept SMALL_FLOWERS and TALL_FLOWERS
  *
+ * The number of empty slots is cached, because it is queried every time the bag is rendered (see
+ *   ItemFlowerBag.getFullnessPropertyOverride).
+ * The NBT is written in a compact form: each flower type id is written only once, and each slot is just a flower type
+ *   index and a count:
+ *   Size: number of slots
+ *   FlowerIds: list of flower registry names
+ *   Flowers: byte[] for each slot: 0 = empty, otherwise 1 + index into FlowerIds
+ *   Counts: byte[] for each slot: number of flowers
+ *   Items: list of full ItemStacks {Slot: int, ...}, same as the vanilla ItemStackHandler, for flowers with NBT (eg renamed)
+ * Old bags (which only have Size and Items) are still read correctly.
+ * Because the bag is sent to the client every time it changes, the NBT is cached and only the changed slots are
+ *   re-encoded (see getCachedNBT).
  */
 public class ItemStackHandlerFlowerBag extends ItemStackHandler {
 
@@ -39,19 +62,143 @@ public class ItemStackHandlerFlowerBag extends ItemStackHandler {
     return false;
   }
 
-  /**Count how many empty slots are in the bag
+  /**How many empty slots are in the bag?  Uses the cached count, so it's cheap enough to call during rendering
    * @return the number of empty slots
    */
   public int getNumberOfEmptySlots() {
-    final int NUMBER_OF_SLOTS = getSlots();
+    return numberOfEmptySlots;
+  }
 
+  /**Recount the number of empty slots.
+   * Usually not necessary, because the count is updated whenever the contents change.  But vanilla Container code
+   *   sometimes changes the ItemStack in a slot directly (eg slot.getStack().grow(1)) without telling us, so
+   *   ContainerFlowerBag calls this to make sure the count is correct.
+   */
+  public void recountEmptySlots() {
     int emptySlotCount = 0;
-    for (int i = 0; i < NUMBER_OF_SLOTS; ++i) {
-      if (getStackInSlot(i) == ItemStack.EMPTY) {
-        ++emptySlotCount;
+    for (ItemStack itemStack : stacks) {
+      if (itemStack.isEmpty()) ++emptySlotCount;
+    }
+    numberOfEmptySlots = emptySlotCount;
+  }
+
+  @Override
+  public CompoundNBT serializeNBT() {
+    return getCachedNBT().copy();
+  }
+
+  /**
+   * Returns the NBT for the bag contents (same format as serializeNBT), reusing as much as possible from the previous call:
+   * 1) A copy of each slot's ItemStack is kept from the last time it was encoded.  If no slot is dirty and every slot
+   *    is still equal to its copy (item, count and tag), the previous NBT is returned without any serialisation at all.
+   * 2) Otherwise, only the slots which are dirty or have changed are re-encoded, and the NBT is reassembled.
+   * The comparison is needed as well as the dirty slots because vanilla Container code sometimes changes the ItemStack
+   *   in a slot directly (eg slot.getStack().grow(1)) without telling us.
+   * Used by ItemFlowerBag.getShareTag, which is called every time the bag is sent to the client.
+   * @return the NBT; don't modify it!
+   */
+  public CompoundNBT getCachedNBT() {
+    if (encodedStacks.length != stacks.size()) {
+      encodedStacks = new ItemStack[stacks.size()];
+      encodedItems = new Item[stacks.size()];
+      encodedCounts = new byte[stacks.size()];
+      encodedItemTags = new CompoundNBT[stacks.size()];
+      dirtySlots = new boolean[stacks.size()];
+      cachedNBT = null;
+    }
+
+    boolean contentsChanged = (cachedNBT == null);
+    for (int i = 0; i < stacks.size(); ++i) {
+      ItemStack itemStack = stacks.get(i);
+      if (!dirtySlots[i] && cachedNBT != null && ItemStack.areItemStacksEqual(itemStack, encodedStacks[i])) continue;
+      dirtySlots[i] = false;
+      encodedStacks[i] = itemStack.copy();  // a copy, because the stack in the slot may be changed directly
+      encodeSlot(i, itemStack);
+      contentsChanged = true;
+    }
+    if (contentsChanged) {
+      cachedNBT = assembleNBT();
+    }
+    return cachedNBT;
+  }
+
+  private void encodeSlot(int slot, ItemStack itemStack) {
+    encodedItems[slot] = null;
+    encodedCounts[slot] = 0;
+    encodedItemTags[slot] = null;
+    if (itemStack.isEmpty()) return;
+    if (itemStack.hasTag()) {
+      CompoundNBT itemTag = new CompoundNBT();
+      itemTag.putInt(SLOT_NBT, slot);
+      itemStack.write(itemTag);
+      encodedItemTags[slot] = itemTag;
+    } else {
+      encodedItems[slot] = itemStack.getItem();
+      encodedCounts[slot] = (byte)itemStack.getCount();
+    }
+  }
+
+  private CompoundNBT assembleNBT() {
+    ListNBT flowerIds = new ListNBT();
+    Map<Item, Integer> flowerIndices = new HashMap<>();
+    byte [] flowers = new byte[encodedItems.length];
+    byte [] counts = new byte[encodedItems.length];
+    ListNBT itemsWithNBT = new ListNBT();
+
+    for (int i = 0; i < encodedItems.length; ++i) {
+      if (encodedItemTags[i] != null) {
+        itemsWithNBT.add(encodedItemTags[i].copy());
+        continue;
+      }
+      Item item = encodedItems[i];
+      if (item == null) continue;
+      Integer flowerIndex = flowerIndices.get(item);
+      if (flowerIndex == null) {
+        flowerIndex = flowerIds.size();
+        flowerIndices.put(item, flowerIndex);
+        flowerIds.add(StringNBT.valueOf(item.getRegistryName().toString()));
       }
+      flowers[i] = (byte)(flowerIndex + 1);
+      counts[i] = encodedCounts[i];
+    }
+
+    CompoundNBT nbt = new CompoundNBT();
+    nbt.putInt(SIZE_NBT, encodedItems.length);
+    if (!flowerIds.isEmpty()) {
+      nbt.put(FLOWER_IDS_NBT, flowerIds);
+      nbt.putByteArray(FLOWERS_NBT, flowers);
+      nbt.putByteArray(COUNTS_NBT, counts);
     }
-    return emptySlotCount;
+    if (!itemsWithNBT.isEmpty()) {
+      nbt.put(ITEMS_NBT, itemsWithNBT);
+    }
+    return nbt;
+  }
+
+  @Override
+  public void deserializeNBT(CompoundNBT nbt) {
+    super.deserializeNBT(nbt);  // reads Size and Items
+
+    ListNBT flowerIds = nbt.getList(FLOWER_IDS_NBT, Constants.NBT.TAG_STRING);
+    List<Item> flowerTypes = new ArrayList<>(flowerIds.size());
+    for (int i = 0; i < flowerIds.size(); ++i) {
+      Item item = ForgeRegistries.ITEMS.getValue(new ResourceLocation(flowerIds.getString(i)));
+      flowerTypes.add(item == null ? Items.AIR : item);
+    }
+    byte [] flowers = nbt.getByteArray(FLOWERS_NBT);
+    byte [] counts = nbt.getByteArray(COUNTS_NBT);
+    int slotsToRead = Math.min(stacks.size(), Math.min(flowers.length, counts.length));
+    for (int i = 0; i < slotsToRead; ++i) {
+      int flowerIndex = flowers[i] - 1;
+      if (flowerIndex < 0 || flowerIndex >= flowerTypes.size()) continue;
+      stacks.set(i, new ItemStack(flowerTypes.get(flowerIndex), counts[i]));
+    }
+    recountEmptySlots();
+  }
+
+  @Override
+  protected void onLoad() {
+    recountEmptySlots();
   }
 
   /** returns true if the contents have changed since the last call.
@@ -82,8 +229,26 @@ public class ItemStackHandlerFlowerBag extends ItemStackHandler {
     // Fortunately, we only need to manually force an update when the player has the container open.  If changes could occur while the
     //   item was discarded (inside an ItemEntity) it would be much trickier.
     isDirty = true;
+    if (slot >= 0 && slot < dirtySlots.length) dirtySlots[slot] = true;
+    recountEmptySlots();  // only 16 slots, and much less frequent than the rendering queries
   }
 
   private boolean isDirty = true;
+  private int numberOfEmptySlots = getSlots();
+
+  // cache used by getCachedNBT(); all arrays have one entry per slot
+  private CompoundNBT cachedNBT = null;
+  private boolean [] dirtySlots = new boolean[0];
+  private ItemStack [] encodedStacks = new ItemStack[0];  // copy of each slot's contents when it was last encoded
+  private Item [] encodedItems = new Item[0];            // null = empty, or an item with a tag
+  private byte [] encodedCounts = new byte[0];
+  private CompoundNBT [] encodedItemTags = new CompoundNBT[0];  // full ItemStack NBT for items with a tag
+
+  private static final String SIZE_NBT = "Size";
+  private static final String SLOT_NBT = "Slot";
+  private static final String ITEMS_NBT = "Items";
+  private static final String FLOWER_IDS_NBT = "FlowerIds";
+  private static final String FLOWERS_NBT = "Flowers";
+  private static final String COUNTS_NBT = "Counts";
 
 }
@@ -1,11 +1,13 @@
 package minecraftbyexample.mbe50_particle;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.material.Material;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.world.ClientWorld;
 import net.minecraft.entity.monster.MonsterEntity;
 import net.minecraft.particles.ParticleTypes;
-import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.util.math.shapes.ISelectionContext;
@@ -16,8 +18,6 @@ import net.minecraft.world.World;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 
-import java.awt.*;
-import java.util.List;
 import java.util.Random;
 
 /**
@@ -114,10 +114,22 @@ public class BlockFlameEmitter extends Block
       xpos += POSITION_WOBBLE_AMOUNT * (rand.nextDouble() - 0.5);
       zpos += POSITION_WOBBLE_AMOUNT * (rand.nextDouble() - 0.5);
 
+      // Level of detail: emitters which are far from the camera spawn fewer (but bigger) flames, and so do all the
+      //   emitters if there are already a lot of flames.  If the budget is full, don't spawn any.  See FlameParticleBudget
+      double distanceSqToCamera = Minecraft.getInstance().gameRenderer.getActiveRenderInfo().getProjectedView()
+                                           .squareDistanceTo(xpos, ypos, zpos);
+      int lodLevel = FlameParticleBudget.getLodLevel(distanceSqToCamera);
+      if (lodLevel == FlameParticleBudget.DO_NOT_SPAWN
+          || rand.nextDouble() >= FlameParticleBudget.getEmissionProbability(lodLevel)) {
+        FlameParticleBudget.recordSkip();
+        return;
+      }
+      FlameParticleBudget.recordSpawn(lodLevel);
+
       MonsterEntity mobTarget = getNearestTargetableMob(worldIn, xpos, ypos, zpos);
       Vector3d fireballDirection;
       if (mobTarget == null) { // no target: fire straight upwards
-        fireballDirection = new Vector3d(0.0, 1.0, 0.0);
+        fireballDirection = STRAIGHT_UP;
       } else {  // otherwise: aim at the mob
         // the direction that the fireball needs to travel is calculated from the starting point (the pole) and the
         //   end point (the mob's eyes).  A bit of googling on vector maths will show you that you calculate this by
@@ -139,34 +151,56 @@ public class BlockFlameEmitter extends Block
       velocityY = SPEED_IN_BLOCKS_PER_TICK * fireballDirection.y; // how much to increase the y position every tick
       velocityZ = SPEED_IN_BLOCKS_PER_TICK * fireballDirection.z; // how much to increase the z position every tick
 
-      Color tint = getTint(pos);
-      double diameter = getDiameter(pos);
-
-      FlameParticleData flameParticleData = new FlameParticleData(tint, diameter);
+      // the tint and diameter only depend on the block position (and the LOD level), so the FlameParticleData is cached
+      FlameParticleData flameParticleData = getFlameParticleData(pos, lodLevel);
       worldIn.addParticle(flameParticleData, IGNORE_RANGE_CHECK,
               xpos, ypos, zpos, velocityX, velocityY, velocityZ);
     }
   }
 
+  /**
+   * Get the FlameParticleData for the emitter at the given position, at the given level of detail.
+   * The tint and diameter are calculated the first time, then cached; FlameParticleData is immutable so the same
+   *   instance can be used for every particle from this emitter.
+   * The cache is cleared if it gets too big, eg if the player has been visiting a lot of emitters.
+   * Client thread only.
+   * @param lodLevel the level of detail from FlameParticleBudget: the diameter and lifetime are scaled to suit
+   */
+  public static FlameParticleData getFlameParticleData(BlockPos blockPos, int lodLevel) {
+    long key = blockPos.toLong();  // the blockPos from animateTick may be mutable, so don't use it as a key
+    FlameParticleData [] flameParticleDataForEachLod = flameParticleDataCache.get(key);
+    if (flameParticleDataForEachLod == null) {
+      if (flameParticleDataCache.size() >= MAXIMUM_CACHE_SIZE) flameParticleDataCache.clear();
+      flameParticleDataForEachLod = new FlameParticleData[FlameParticleBudget.NUMBER_OF_LOD_LEVELS];
+      flameParticleDataCache.put(key, flameParticleDataForEachLod);
+    }
+    if (flameParticleDataForEachLod[lodLevel] == null) {
+      double diameter = getDiameter(blockPos) * FlameParticleBudget.getDiameterScale(lodLevel);
+      int lifetimeTicks = (int)Math.round(FlameParticleData.DEFAULT_LIFETIME_TICKS * FlameParticleBudget.getLifetimeScale(lodLevel));
+      flameParticleDataForEachLod[lodLevel] = new FlameParticleData(getTint(blockPos), diameter, lifetimeTicks);
+    }
+    return flameParticleDataForEachLod[lodLevel];
+  }
+
   // choose a semi-random colour based on the block's position
   //  the texture has basically no blue in it so we don't bother varying that
-  private Color getTint(BlockPos blockPos) {
-    Color [] tints = {
-            new Color(1.00f, 1.00f, 1.0f),  // no tint (full white)
-            new Color(1.00f, 0.75f, 1.0f),  // redder
-            new Color(1.00f, 0.50f, 1.0f),  // much redder
-            new Color(0.75f, 1.00f, 1.0f),  // greener
-            new Color(0.50f, 1.00f, 1.0f),  // much greener
-    };
-
+  private static int getTint(BlockPos blockPos) {
     Random random = new Random(blockPos.hashCode());
     random.nextInt(); random.nextInt();  // iterate a couple of times (the first nextInt() isn't very random)
-    int idx = random.nextInt(tints.length);
-    return tints[idx];
+    int idx = random.nextInt(TINTS.length);
+    return TINTS[idx];
   }
 
+  private static final int [] TINTS = {   // packed as 0xRRGGBB
+          FlameParticleData.packTintRGB(255, 255, 255),  // no tint (full white)
+          FlameParticleData.packTintRGB(255, 191, 255),  // redder
+          FlameParticleData.packTintRGB(255, 128, 255),  // much redder
+          FlameParticleData.packTintRGB(191, 255, 255),  // greener
+          FlameParticleData.packTintRGB(128, 255, 255),  // much greener
+  };
+
   // choose a semi-random size based on the block's position
-  private double getDiameter(BlockPos blockPos) {
+  private static double getDiameter(BlockPos blockPos) {
     Random random = new Random(blockPos.hashCode());
     random.nextDouble(); random.nextDouble();    // iterate a couple of times (the first nextDouble() isn't very random)
 
@@ -175,34 +209,23 @@ public class BlockFlameEmitter extends Block
     return MIN_DIAMETER + (MAX_DIAMETER - MIN_DIAMETER) * random.nextDouble();
   }
 
+  private static final Vector3d STRAIGHT_UP = new Vector3d(0.0, 1.0, 0.0);
+
+  private static final int MAXIMUM_CACHE_SIZE = 1024;
+  private static final Long2ObjectOpenHashMap<FlameParticleData []> flameParticleDataCache = new Long2ObjectOpenHashMap<>();
+
   /**
    * Returns the nearest targetable mob to the indicated [xpos, ypos, zpos].
+   * Uses the MonsterTargetGrid, which is shared by all the emitters and only searches the world once per tick.
    * @param world
    * @param xpos [x,y,z] position to s
    * @param ypos
    * @param zpos
    * @return the nearest mob, or null if none within range.
    */
+  @OnlyIn(Dist.CLIENT)
   private MonsterEntity getNearestTargetableMob(World world, double xpos, double ypos, double zpos) {
-    final double TARGETING_DISTANCE = 16;
-    AxisAlignedBB targetRange = new AxisAlignedBB(xpos - TARGETING_DISTANCE,
-                                                  ypos,
-                                                  zpos - TARGETING_DISTANCE,
-                                                  xpos + TARGETING_DISTANCE,
-                                                  ypos + TARGETING_DISTANCE,
-                                                  zpos + TARGETING_DISTANCE);
-
-    List<MonsterEntity> allNearbyMobs = world.getEntitiesWithinAABB(MonsterEntity.class, targetRange);
-    MonsterEntity nearestMob = null;
-    double closestDistance = Double.MAX_VALUE;
-    for (MonsterEntity nextMob : allNearbyMobs) {
-      double nextClosestDistance = nextMob.getDistanceSq(xpos, ypos, zpos);
-      if (nextClosestDistance < closestDistance) {
-        closestDistance = nextClosestDistance;
-        nearestMob = nextMob;
-      }
-    }
-    return nearestMob;
+    return MonsterTargetGrid.getNearestTargetableMob((ClientWorld)world, xpos, ypos, zpos);
   }
 
 }
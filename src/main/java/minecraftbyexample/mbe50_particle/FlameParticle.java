@@ -1,11 +1,20 @@
 package minecraftbyexample.mbe50_particle;
 
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+import minecraftbyexample.usefultools.debugging.DebugSettings;
 import net.minecraft.client.particle.*;
 import net.minecraft.client.renderer.*;
 import net.minecraft.client.world.ClientWorld;
-import net.minecraft.world.World;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.ReuseableStream;
+import net.minecraft.util.math.BlockRayTraceResult;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.RayTraceContext;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.shapes.ISelectionContext;
+import net.minecraft.util.math.vector.Vector3d;
 
-import java.awt.*;
+import java.util.stream.Stream;
 
 /**
  * User: The Grey Ghost
@@ -14,6 +23,19 @@ import java.awt.*;
  *
  * A good vanilla example is PoofParticle
  *
+ * FlameParticles are recycled by the FlameParticlePool: when a particle expires, it is returned to the pool, and the
+ *   next new particle reuses it instead of allocating a new one.  So all of the particle's state must be set in
+ *   reinitialise(), not just in the constructor.
+ *
+ * Physics: by default, the particle checks for collisions with blocks every tick (in move()), and expires when it hits
+ *   the ground or can't move upwards any further.
+ * Optionally (/mbedebug param mbe50_flame_raycast 1) it uses cheaper "raycast" physics instead: when the particle is
+ *   spawned, a single raycast along its straight-line path finds the first block it will hit, and the particle's
+ *   lifetime is shortened so that it expires when it reaches that block.  After that, it never checks for collisions.
+ *   The differences are:
+ *   1) a flame which hits a wall disappears, instead of sliding along the wall
+ *   2) blocks which are placed or removed after the flame was spawned are ignored
+ *   3) the raycast is from the centre of the flame, so it may miss blocks which only touch the edge of the flame
  */
 public class FlameParticle extends SpriteTexturedParticle
 {
@@ -21,22 +43,45 @@ public class FlameParticle extends SpriteTexturedParticle
    * Construct a new FlameParticle at the given [x,y,z] position, with the given initial velocity, the given color, and the
    *   given diameter.
    *   We also supply sprites so that you can change the sprite texture in the tick() method (although not needed for this example)
+   * Use FlameParticlePool.acquire() instead of calling this directly, so that particles are recycled.
+   * @param tintRGB the tint packed as 0xRRGGBB
+   * @param lifetimeTicks the maximum lifetime in ticks
    */
   public FlameParticle(ClientWorld world, double x, double y, double z,
                        double velocityX, double velocityY, double velocityZ,
-                       Color tint, double diameter,
+                       int tintRGB, double diameter, int lifetimeTicks,
                        IAnimatedSprite sprites)
   {
     super(world, x, y, z, velocityX, velocityY, velocityZ);
-    this.sprites = sprites;
+    reinitialise(x, y, z, velocityX, velocityY, velocityZ, tintRGB, diameter, lifetimeTicks, sprites);
+  }
 
-    setColor(tint.getRed()/255.0F, tint.getGreen()/255.0F, tint.getBlue()/255.0F);
+  /**
+   * Set up all the particle's state, as if it had just been constructed.  Used by FlameParticlePool to recycle particles.
+   * @param tintRGB the tint packed as 0xRRGGBB
+   * @param lifetimeTicks the maximum lifetime in ticks
+   */
+  public void reinitialise(double x, double y, double z,
+                           double velocityX, double velocityY, double velocityZ,
+                           int tintRGB, double diameter, int lifetimeTicks,
+                           IAnimatedSprite sprites)
+  {
+    this.sprites = sprites;
+    setColor(((tintRGB >> 16) & 0xff)/255.0F, ((tintRGB >> 8) & 0xff)/255.0F, (tintRGB & 0xff)/255.0F);
     setSize((float)diameter, (float)diameter);    // the size (width, height) of the collision box.
+    setPosition(x, y, z);
+    prevPosX = x;
+    prevPosY = y;
+    prevPosZ = z;
 
     final float PARTICLE_SCALE_FOR_ONE_METRE = 0.5F; //  if the particleScale is 0.5, the texture will be rendered as 1 metre high
     particleScale = PARTICLE_SCALE_FOR_ONE_METRE * (float)diameter; // sets the rendering size of the particle for a TexturedParticle.
 
-    maxAge = 100;  // lifetime in ticks: 100 ticks = 5 seconds
+    age = 0;
+    maxAge = lifetimeTicks;  // lifetime in ticks: 100 ticks = 5 seconds
+    isExpired = false;
+    onGround = false;
+    returnedToPool = false;
 
     final float ALPHA_VALUE = 1.0F;
     this.particleAlpha = ALPHA_VALUE;
@@ -46,7 +91,40 @@ public class FlameParticle extends SpriteTexturedParticle
     motionY = velocityY;
     motionZ = velocityZ;
 
-    this.canCollide = true;  // the move() method will check for collisions with scenery
+    boolean raycastPhysics = isRaycastPhysicsEnabled();
+    this.canCollide = !raycastPhysics;  // if true, the move() method will check for collisions with scenery every tick
+    if (raycastPhysics) {
+      maxAge = Math.min(maxAge, getTicksUntilFirstCollision(velocityX, velocityY, velocityZ, maxAge));
+    }
+  }
+
+  /**
+   * @return true if new particles should use raycast physics instead of checking for collisions every tick
+   */
+  public static boolean isRaycastPhysicsEnabled() {
+    return DebugSettings.getDebugParameter(RAYCAST_PHYSICS_PARAMETER_NAME).orElse(0.0) > 0;
+  }
+
+  /**
+   * Find how many ticks it will take the particle to hit a block, if it moves in a straight line at the given velocity
+   * @param maxTicks the furthest to look
+   * @return the number of ticks, or maxTicks if it doesn't hit anything before then
+   */
+  private int getTicksUntilFirstCollision(double velocityX, double velocityY, double velocityZ, int maxTicks) {
+    Vector3d velocity = new Vector3d(velocityX, velocityY, velocityZ);
+    double speed = velocity.length();
+    if (speed == 0) return maxTicks;
+
+    Vector3d start = getBoundingBox().getCenter();
+    Vector3d end = start.add(velocity.scale(maxTicks));
+    Entity NO_ENTITY = null;
+    BlockRayTraceResult hit = world.rayTraceBlocks(new RayTraceContext(start, end, RayTraceContext.BlockMode.COLLIDER,
+                                                                       RayTraceContext.FluidMode.NONE, NO_ENTITY));
+    if (hit.getType() == RayTraceResult.Type.MISS) return maxTicks;
+
+    // the edge of the particle touches the block about half a diameter before its centre does
+    double distanceUntilTouching = Math.max(0, start.distanceTo(hit.getHitVec()) - width / 2.0);
+    return (int)Math.ceil(distanceUntilTouching / speed);
   }
 
   // ---- methods used by TexturedParticle.renderParticle() method to find out how to render your particle
@@ -74,8 +152,44 @@ public class FlameParticle extends SpriteTexturedParticle
   // TERRAIN_SHEET            particles drawn from block or item textures
   // PARTICLE_SHEET_LIT       appears to be the same as OPAQUE.  Not sure of the difference.  In previous versions of minecraft,
   //                          "lit" particles changed brightness depending on world lighting i.e. block light + sky light
+  // Or you can create your own.  FlameParticleRenderType is the same as PARTICLE_SHEET_TRANSLUCENT, but it puts all the
+  //   flames into their own batch, so that renderParticle can share the quad corners between all of them.
   public IParticleRenderType getRenderType() {
-    return IParticleRenderType.PARTICLE_SHEET_TRANSLUCENT;
+    return FlameParticleRenderType.FLAME_PARTICLE_SHEET;
+  }
+
+  /**
+   * Add the particle's quad to the vertex buffer.  This is the same as TexturedParticle.renderParticle, except that
+   *   the quad corners are calculated once per frame by FlameParticleRenderType, instead of for every particle.
+   *   (FlameParticles never rotate, so the corners only depend on the camera).
+   */
+  @Override
+  public void renderParticle(IVertexBuilder buffer, ActiveRenderInfo renderInfo, float partialTicks) {
+    Vector3d cameraPosition = renderInfo.getProjectedView();
+    float x = (float)(MathHelper.lerp(partialTicks, this.prevPosX, this.posX) - cameraPosition.getX());
+    float y = (float)(MathHelper.lerp(partialTicks, this.prevPosY, this.posY) - cameraPosition.getY());
+    float z = (float)(MathHelper.lerp(partialTicks, this.prevPosZ, this.posZ) - cameraPosition.getZ());
+    float scale = this.getScale(partialTicks);
+    float [] corners = FlameParticleRenderType.FLAME_PARTICLE_SHEET.getQuadCorners(renderInfo);
+
+    float minU = this.getMinU();
+    float maxU = this.getMaxU();
+    float minV = this.getMinV();
+    float maxV = this.getMaxV();
+    int lightmap = this.getBrightnessForRender(partialTicks);
+    addVertex(buffer, corners, 0, x, y, z, scale, maxU, maxV, lightmap);
+    addVertex(buffer, corners, 1, x, y, z, scale, maxU, minV, lightmap);
+    addVertex(buffer, corners, 2, x, y, z, scale, minU, minV, lightmap);
+    addVertex(buffer, corners, 3, x, y, z, scale, minU, maxV, lightmap);
+  }
+
+  private void addVertex(IVertexBuilder buffer, float [] corners, int cornerIdx, float x, float y, float z, float scale,
+                         float u, float v, int lightmap) {
+    buffer.pos(x + corners[3 * cornerIdx] * scale, y + corners[3 * cornerIdx + 1] * scale, z + corners[3 * cornerIdx + 2] * scale)
+          .tex(u, v)
+          .color(this.particleRed, this.particleGreen, this.particleBlue, this.particleAlpha)
+          .lightmap(lightmap)
+          .endVertex();
   }
 
   /**
@@ -87,6 +201,8 @@ public class FlameParticle extends SpriteTexturedParticle
     // if you want to change the texture as the particle gets older, you can use
     // selectSpriteWithAge(sprites);
 
+    FlameParticleBudget.countLiveParticle();  // every live particle is ticked once per tick
+
     prevPosX = posX;
     prevPosY = posY;
     prevPosZ = posZ;
@@ -95,7 +211,7 @@ public class FlameParticle extends SpriteTexturedParticle
       // motionZ every tick.  For example - you can make the particle accelerate downwards due to gravity by
       // final double GRAVITY_ACCELERATION_PER_TICK = -0.02;
       // motionY += GRAVITY_ACCELERATION_PER_TICK;
-      // calling move() also calculates collisions with other objects
+      // calling move() also calculates collisions with other objects (unless canCollide is false: raycast physics)
 
     // collision with a block makes the ball disappear.  But does not collide with entities
     if (onGround) {  // onGround is only true if the particle collides while it is moving downwards...
@@ -109,8 +225,51 @@ public class FlameParticle extends SpriteTexturedParticle
     if (this.age++ >= this.maxAge) {
       this.setExpired();
     }
+
+    // The ParticleManager removes expired particles straight after calling tick(), so we can recycle it now.
+    if (!isAlive() && !returnedToPool) {
+      returnedToPool = true;
+      FlameParticlePool.release(this);
+    }
   }
 
-  private final IAnimatedSprite sprites;  // contains a list of textures; choose one using either
+  /**
+   * The same as Particle.move(), except that it doesn't use the private "collidedY" flag, which stops the particle
+   *   moving after it hits something and which can't be reset when the particle is recycled.
+   * FlameParticle expires as soon as it is blocked vertically, so it doesn't need the flag anyway.
+   */
+  @Override
+  public void move(double x, double y, double z)
+  {
+    double originalX = x;
+    double originalY = y;
+    double originalZ = z;
+    if (this.canCollide && (x != 0.0 || y != 0.0 || z != 0.0)) {
+      Vector3d allowedMotion = Entity.collideBoundingBoxHeuristically(null, new Vector3d(x, y, z), this.getBoundingBox(),
+              this.world, ISelectionContext.dummy(), new ReuseableStream<>(Stream.empty()));
+      x = allowedMotion.x;
+      y = allowedMotion.y;
+      z = allowedMotion.z;
+    }
+
+    if (x != 0.0 || y != 0.0 || z != 0.0) {
+      this.setBoundingBox(this.getBoundingBox().offset(x, y, z));
+      this.resetPositionToBB();
+    }
+
+    this.onGround = originalY != y && originalY < 0.0;
+    if (originalX != x) this.motionX = 0.0;
+    if (originalZ != z) this.motionZ = 0.0;
+  }
+
+  ClientWorld getWorld() {
+    return world;
+  }
+
+  private IAnimatedSprite sprites;  // contains a list of textures; choose one using either
   // newParticle.selectSpriteRandomly(sprites); or newParticle.selectSpriteWithAge(sprites);
+
+  private boolean returnedToPool = false;  // stops the particle being added to the pool twice
+
+  public static final String RAYCAST_PHYSICS_PARAMETER_NAME = "mbe50_flame_raycast";
 }
@@ -0,0 +1,124 @@
+package minecraftbyexample.mbe50_particle;
+
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Limits the number of FlameParticles, by choosing a "level of detail" (LOD) for each flame that an emitter wants to
+ *   spawn.  At each level, the emitter spawns fewer flames, but makes them bigger to fill in the gaps, and makes them
+ *   live for a shorter time:
+ *   level 0 = every flame, normal size, normal lifetime
+ *   level 1 = 1/2 of the flames, 1.4x diameter, 3/4 lifetime
+ *   level 2 = 1/4 of the flames, 2x diameter, 1/2 lifetime
+ *   level 3 = 1/8 of the flames, 2.8x diameter, 3/8 lifetime
+ * The level is the higher of:
+ * 1) the distance level: one level for every LOD_DISTANCE_STEP blocks between the camera and the emitter.  (Vanilla
+ *    doesn't render particles more than 32 blocks away, so there is no point going any further.)
+ * 2) the budget level: depends on how many flames are alive compared to the budget (50%, 75%, 90%).  If the budget is
+ *    full, no more flames are spawned at all.
+ *
+ * The number of live flames is counted by FlameParticle.tick() (each live particle is ticked once per tick), so
+ *   particles which the ParticleManager throws away without expiring them are never counted by mistake.
+ *
+ * The budget can be shown and changed with the mbeparticlebudget command (single player only).
+ * Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class FlameParticleBudget {
+
+  public static final int FULL_DETAIL = 0;
+  public static final int NUMBER_OF_LOD_LEVELS = 4;
+  public static final int DO_NOT_SPAWN = -1;
+
+  /**
+   * Choose the level of detail for a flame
+   * @param distanceSqToCamera the square of the distance from the camera to the emitter
+   * @return the LOD level (FULL_DETAIL to NUMBER_OF_LOD_LEVELS - 1), or DO_NOT_SPAWN if the budget is full
+   */
+  public static int getLodLevel(double distanceSqToCamera) {
+    if (liveParticles >= budget) return DO_NOT_SPAWN;
+    double load = liveParticles / (double)budget;
+    int budgetLevel = (load < 0.5) ? 0 : (load < 0.75) ? 1 : (load < 0.9) ? 2 : 3;
+    int distanceLevel = (int)(Math.sqrt(distanceSqToCamera) / LOD_DISTANCE_STEP);
+    return Math.min(NUMBER_OF_LOD_LEVELS - 1, Math.max(budgetLevel, distanceLevel));
+  }
+
+  /**
+   * @return the probability that a flame at this level should be spawned
+   */
+  public static double getEmissionProbability(int lodLevel) {
+    return EMISSION_PROBABILITY[lodLevel];
+  }
+
+  public static double getDiameterScale(int lodLevel) {
+    return DIAMETER_SCALE[lodLevel];
+  }
+
+  public static double getLifetimeScale(int lodLevel) {
+    return LIFETIME_SCALE[lodLevel];
+  }
+
+  public static void recordSpawn(int lodLevel) {
+    ++spawnsAtLevel[lodLevel];
+  }
+
+  public static void recordSkip() {
+    ++skips;
+  }
+
+  // called by FlameParticle.tick()
+  static void countLiveParticle() {
+    ++liveParticlesCountedThisTick;
+  }
+
+  @SubscribeEvent
+  public static void onClientTick(TickEvent.ClientTickEvent event) {
+    if (event.phase != TickEvent.Phase.START) return;
+    liveParticles = liveParticlesCountedThisTick;  // the particles are ticked after this event
+    liveParticlesCountedThisTick = 0;
+  }
+
+  public static int getBudget() {
+    return budget;
+  }
+
+  public static void setBudget(int newBudget) {
+    budget = Math.max(1, newBudget);
+  }
+
+  public static int getLiveParticles() {
+    return liveParticles;
+  }
+
+  public static String getStatistics() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("Flame particles: %d live, budget %d (%.0f%%); spawned at each LOD level:",
+                            liveParticles, budget, 100.0 * liveParticles / budget));
+    for (int i = 0; i < NUMBER_OF_LOD_LEVELS; ++i) {
+      sb.append(' ').append(spawnsAtLevel[i]);
+    }
+    sb.append("; skipped: ").append(skips);
+    return sb.toString();
+  }
+
+  public static void resetStatistics() {
+    for (int i = 0; i < NUMBER_OF_LOD_LEVELS; ++i) {
+      spawnsAtLevel[i] = 0;
+    }
+    skips = 0;
+  }
+
+  public static final int DEFAULT_BUDGET = 4000;
+  private static final double LOD_DISTANCE_STEP = 8.0;  // blocks
+
+  private static final double [] EMISSION_PROBABILITY = {1.0, 0.5, 0.25, 0.125};
+  private static final double [] DIAMETER_SCALE = {1.0, Math.sqrt(2), 2.0, 2.0 * Math.sqrt(2)};  // keeps the area covered
+  private static final double [] LIFETIME_SCALE = {1.0, 0.75, 0.5, 0.375};
+
+  private static volatile int budget = DEFAULT_BUDGET;  // may be changed by the command on the server thread
+  private static volatile int liveParticles = 0;
+  private static int liveParticlesCountedThisTick = 0;
+  private static final long [] spawnsAtLevel = new long[NUMBER_OF_LOD_LEVELS];
+  private static long skips = 0;
+}
@@ -10,7 +10,6 @@ import net.minecraft.particles.ParticleType;
 import net.minecraft.util.math.MathHelper;
 
 import javax.annotation.Nonnull;
-import java.awt.*;
 import java.util.Locale;
 
 /**
@@ -20,21 +19,51 @@ import java.util.Locale;
  *
  * 1) The colour (tint) which is used to change the hue of the particle
  * 2) The diameter of the particle
+ * 3) The lifetime of the particle in ticks (optional; used by the FlameParticleBudget to shorten the lifetime of the
+ *    particles when there are too many)
+ *
+ * The tint is stored as a packed int 0xRRGGBB, rather than a java.awt.Color, so that creating a FlameParticleData only
+ *   allocates the one object.  FlameParticleData is immutable, so the same instance can be used for as many particles
+ *   as you like (see BlockFlameEmitter).
  *
  * This class is used to
  * 1) store this information, and
  * 2) transmit it between server and client (write and read methods), and
- * 3) parse it from a command string i.e. the /particle params
+ * 3) parse it from a command string i.e. the /particle params:
+ *    diameter red green blue [lifetime]   eg  /particle minecraftbyexample:mbe50_flame_particle_type_registry_name 0.5 255 128 0 40t ~ ~1 ~
+ *    The lifetime is optional, in ticks with a "t" suffix (like the vanilla time argument), so that it can't be
+ *    mistaken for the x coordinate which follows it.
  */
 public class FlameParticleData implements IParticleData {
 
-  public FlameParticleData(Color tint, double diameter) {
-    this.tint = tint;
+  /**
+   * @param tintRGB the tint packed as 0xRRGGBB (the top 8 bits are ignored)
+   * @param diameter diameter of the particle in metres
+   */
+  public FlameParticleData(int tintRGB, double diameter) {
+    this(tintRGB, diameter, DEFAULT_LIFETIME_TICKS);
+  }
+
+  /**
+   * @param tintRGB the tint packed as 0xRRGGBB (the top 8 bits are ignored)
+   * @param diameter diameter of the particle in metres
+   * @param lifetimeTicks the maximum lifetime of the particle in ticks
+   */
+  public FlameParticleData(int tintRGB, double diameter, int lifetimeTicks) {
+    this.tintRGB = tintRGB & RGB_MASK;
     this.diameter = constrainDiameterToValidRange(diameter);
+    this.lifetimeTicks = constrainLifetimeToValidRange(lifetimeTicks);
   }
 
-  public Color getTint() {
-    return tint;
+  /**
+   * @return the tint packed as 0xRRGGBB
+   */
+  public int getTintRGB() {
+    return tintRGB;
+  }
+
+  public static int packTintRGB(int red, int green, int blue) {
+    return (red << 16) | (green << 8) | blue;
   }
 
   /**
@@ -44,6 +73,10 @@ public class FlameParticleData implements IParticleData {
     return diameter;
   }
 
+  public int getLifetimeTicks() {
+    return lifetimeTicks;
+  }
+
   @Nonnull
   @Override
   public ParticleType<FlameParticleData> getType() {
@@ -53,18 +86,18 @@ public class FlameParticleData implements IParticleData {
   // write the particle information to a PacketBuffer, ready for transmission to a client
   @Override
   public void write(PacketBuffer buf) {
-    buf.writeInt(tint.getRed());
-    buf.writeInt(tint.getGreen());
-    buf.writeInt(tint.getBlue());
+    buf.writeInt(tintRGB);
     buf.writeDouble(diameter);
+    buf.writeVarInt(lifetimeTicks);
   }
 
-  // used for debugging I think; prints the data in human-readable format
+  // used for debugging I think; prints the data in human-readable format, the same as the /particle params
   @Nonnull
   @Override
   public String getParameters() {
-    return String.format(Locale.ROOT, "%s %.2f %i %i %i",
-            this.getType().getRegistryName(), diameter, tint.getRed(), tint.getGreen(), tint.getBlue());
+    return String.format(Locale.ROOT, "%s %.2f %d %d %d %d%c",
+            this.getType().getRegistryName(), diameter, (tintRGB >> 16) & 0xff, (tintRGB >> 8) & 0xff, tintRGB & 0xff,
+            lifetimeTicks, LIFETIME_SUFFIX);
   }
 
   private static double constrainDiameterToValidRange(double diameter) {
@@ -73,8 +106,20 @@ public class FlameParticleData implements IParticleData {
     return MathHelper.clamp(diameter, MIN_DIAMETER, MAX_DIAMETER);
   }
 
-  private Color tint;
-  private double diameter;
+  private static int constrainLifetimeToValidRange(int lifetimeTicks) {
+    final int MIN_LIFETIME = 1;
+    final int MAX_LIFETIME = 20 * 60;
+    return MathHelper.clamp(lifetimeTicks, MIN_LIFETIME, MAX_LIFETIME);
+  }
+
+  public static final int DEFAULT_LIFETIME_TICKS = 100;  // 100 ticks = 5 seconds
+  private static final char LIFETIME_SUFFIX = 't';
+
+  private final int tintRGB;
+  private final double diameter;
+  private final int lifetimeTicks;
+
+  private static final int RGB_MASK = 0xffffff;
 
   // --------- these remaining methods are used to serialize the Particle Data.
   //  I'm not yet sure what the Codec is used for, given that the DESERIALIZER already deserialises using read.
@@ -84,20 +129,17 @@ public class FlameParticleData implements IParticleData {
   //  Using the builder below, you construct a serialiser and deserialiser in one go, using lambda functions.
   //  eg for the FlameParticleData CODEC:
   //  a) In order to serialise it, it reads the 'tint' member variable (type: INT) and the 'diameter' member variable (type: DOUBLE)
-  //  b) In order to deserialise it, call the matching constructor FlameParticleData(INT, DOUBLE)
+  //       and the 'lifetime' (type: INT; optional, DEFAULT_LIFETIME_TICKS if missing)
+  //  b) In order to deserialise it, call the matching constructor FlameParticleData(INT, DOUBLE, INT)
 
   public static final Codec<FlameParticleData> CODEC = RecordCodecBuilder.create(
             instance -> instance.group(
-              Codec.INT.fieldOf("tint").forGetter(d -> d.tint.getRGB()),
-              Codec.DOUBLE.fieldOf("diameter").forGetter(d -> d.diameter)
+              Codec.INT.fieldOf("tint").forGetter(d -> d.tintRGB),
+              Codec.DOUBLE.fieldOf("diameter").forGetter(d -> d.diameter),
+              Codec.INT.optionalFieldOf("lifetime", DEFAULT_LIFETIME_TICKS).forGetter(d -> d.lifetimeTicks)
             ).apply(instance, FlameParticleData::new)
           );
 
-  private FlameParticleData(int tintRGB, double diameter) {
-    this.tint = new Color(tintRGB);
-    this.diameter = constrainDiameterToValidRange(diameter);
-  }
-
   // The DESERIALIZER is used to construct FlameParticleData from either command line parameters or from a network packet
 
   public static final IDeserializer<FlameParticleData> DESERIALIZER = new IDeserializer<FlameParticleData>() {
@@ -117,9 +159,26 @@ public class FlameParticleData implements IParticleData {
       int green = MathHelper.clamp(reader.readInt(), MIN_COLOUR, MAX_COLOUR);
       reader.expect(' ');
       int blue = MathHelper.clamp(reader.readInt(), MIN_COLOUR, MAX_COLOUR);
-      Color color = new Color(red, green, blue);
 
-      return new FlameParticleData(color, diameter);
+      int lifetimeTicks = readOptionalLifetime(reader);  // the constructor constrains it to a valid range
+      return new FlameParticleData(packTintRGB(red, green, blue), diameter, lifetimeTicks);
+    }
+
+    // read the lifetime (eg " 40t") if it's there; otherwise leave the reader where it was.
+    // Only digits followed by the suffix are a lifetime; anything else (eg "10" or "10.5") is the x coordinate.
+    private int readOptionalLifetime(StringReader reader) throws CommandSyntaxException {
+      if (!reader.canRead() || reader.peek() != ' ') return DEFAULT_LIFETIME_TICKS;
+      String input = reader.getString();
+      int digitsStart = reader.getCursor() + 1;
+      int digitsEnd = digitsStart;
+      while (digitsEnd < input.length() && Character.isDigit(input.charAt(digitsEnd))) ++digitsEnd;
+      if (digitsEnd == digitsStart || digitsEnd >= input.length() || input.charAt(digitsEnd) != LIFETIME_SUFFIX) {
+        return DEFAULT_LIFETIME_TICKS;
+      }
+      reader.skip();
+      int lifetimeTicks = reader.readInt();
+      reader.expect(LIFETIME_SUFFIX);
+      return lifetimeTicks;
     }
 
     // read the particle information from a PacketBuffer after the client has received it from the server
@@ -127,16 +186,12 @@ public class FlameParticleData implements IParticleData {
     public FlameParticleData read(@Nonnull ParticleType<FlameParticleData> type, PacketBuffer buf) {
       // warning! never trust the data read in from a packet buffer.
 
-      final int MIN_COLOUR = 0;
-      final int MAX_COLOUR = 255;
-      int red = MathHelper.clamp(buf.readInt(), MIN_COLOUR, MAX_COLOUR);
-      int green = MathHelper.clamp(buf.readInt(), MIN_COLOUR, MAX_COLOUR);
-      int blue = MathHelper.clamp(buf.readInt(), MIN_COLOUR, MAX_COLOUR);
-      Color color = new Color(red, green, blue);
-
+      //  the constructor masks off any bits outside 0xRRGGBB
+      int tintRGB = buf.readInt();
       double diameter = constrainDiameterToValidRange(buf.readDouble());
+      int lifetimeTicks = buf.readVarInt();   // the constructor constrains it to a valid range
 
-      return new FlameParticleData(color, diameter);
+      return new FlameParticleData(tintRGB, diameter, lifetimeTicks);
     }
   };
 }
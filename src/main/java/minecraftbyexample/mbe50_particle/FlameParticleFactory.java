@@ -4,7 +4,6 @@ import net.minecraft.client.particle.IAnimatedSprite;
 import net.minecraft.client.particle.IParticleFactory;
 import net.minecraft.client.particle.Particle;
 import net.minecraft.client.world.ClientWorld;
-import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
 
@@ -13,7 +12,7 @@ import javax.annotation.Nullable;
  *
  * On the client side:
  * When the client wants to spawn a Particle, it gives the FlameParticleData to this factory method
- * The factory selects an appropriate Particle class and instantiates it
+ * The factory selects an appropriate Particle class and instantiates it (or recycles an old one from the FlameParticlePool)
  *
  */
 public class FlameParticleFactory implements IParticleFactory<FlameParticleData> {  //IParticleFactory
@@ -21,8 +20,8 @@ public class FlameParticleFactory implements IParticleFactory<FlameParticleData>
   @Nullable
   @Override
   public Particle makeParticle(FlameParticleData flameParticleData, ClientWorld world, double xPos, double yPos, double zPos, double xVelocity, double yVelocity, double zVelocity) {
-    FlameParticle newParticle = new FlameParticle(world, xPos, yPos, zPos, xVelocity, yVelocity, zVelocity,
-            flameParticleData.getTint(), flameParticleData.getDiameter(),
+    FlameParticle newParticle = FlameParticlePool.acquire(world, xPos, yPos, zPos, xVelocity, yVelocity, zVelocity,
+            flameParticleData.getTintRGB(), flameParticleData.getDiameter(), flameParticleData.getLifetimeTicks(),
             sprites);
     newParticle.selectSpriteRandomly(sprites);  // choose a random sprite from the available list (in this case there is only one)
     return newParticle;
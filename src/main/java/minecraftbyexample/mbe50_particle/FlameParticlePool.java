@@ -0,0 +1,90 @@
+package minecraftbyexample.mbe50_particle;
+
+import net.minecraft.client.particle.IAnimatedSprite;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A pool of expired FlameParticles which can be recycled, so that an emitter which spits out a steady stream of
+ *   flames doesn't allocate a new particle for every one.
+ * FlameParticle.tick() returns the particle to the pool as soon as it expires; the FlameParticleFactory takes a
+ *   particle from the pool (if there is one) whenever it needs a new one.
+ * Particles which are discarded without expiring (eg when the ParticleManager is full, or the player changes
+ *   dimension) are not returned, they are just garbage collected as usual.
+ *
+ * The pool is capped at MAXIMUM_POOL_SIZE; it is emptied when the client world is unloaded, because each particle
+ *   belongs to one world.
+ * Client thread only.  Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class FlameParticlePool {
+
+  /**
+   * Get a particle, either recycled from the pool or newly created
+   * @param tintRGB the tint packed as 0xRRGGBB
+   */
+  public static FlameParticle acquire(ClientWorld world, double x, double y, double z,
+                                      double velocityX, double velocityY, double velocityZ,
+                                      int tintRGB, double diameter, int lifetimeTicks,
+                                      IAnimatedSprite sprites) {
+    FlameParticle flameParticle = freeParticles.pollFirst();
+    while (flameParticle != null && flameParticle.getWorld() != world) {  // shouldn't happen, but just in case
+      flameParticle = freeParticles.pollFirst();
+    }
+    if (flameParticle == null) {
+      ++numberOfCreations;
+      return new FlameParticle(world, x, y, z, velocityX, velocityY, velocityZ, tintRGB, diameter, lifetimeTicks, sprites);
+    }
+    ++numberOfReuses;
+    flameParticle.reinitialise(x, y, z, velocityX, velocityY, velocityZ, tintRGB, diameter, lifetimeTicks, sprites);
+    return flameParticle;
+  }
+
+  /**
+   * Return an expired particle to the pool.  The caller mustn't use it again.
+   */
+  public static void release(FlameParticle flameParticle) {
+    if (freeParticles.size() < MAXIMUM_POOL_SIZE) {
+      freeParticles.addFirst(flameParticle);
+    }
+  }
+
+  /**
+   * Throw away all the particles in the pool (eg after a benchmark which has filled it with particles that the
+   *   game shouldn't reuse)
+   */
+  public static void clear() {
+    freeParticles.clear();
+  }
+
+  /**
+   * @return the fraction of acquire() calls which reused a particle from the pool
+   */
+  public static double getHitRate() {
+    long total = numberOfCreations + numberOfReuses;
+    return (total == 0) ? 0.0 : numberOfReuses / (double)total;
+  }
+
+  public static String getStatistics() {
+    return String.format("FlameParticlePool: %d free, %d created, %d reused (hit rate %.1f%%)",
+                         freeParticles.size(), numberOfCreations, numberOfReuses, 100.0 * getHitRate());
+  }
+
+  @SubscribeEvent
+  public static void onWorldUnload(WorldEvent.Unload event) {
+    if (event.getWorld().isRemote()) {
+      clear();
+    }
+  }
+
+  private static final int MAXIMUM_POOL_SIZE = 4096;
+
+  private static final Deque<FlameParticle> freeParticles = new ArrayDeque<>();
+  private static long numberOfCreations = 0;
+  private static long numberOfReuses = 0;
+}
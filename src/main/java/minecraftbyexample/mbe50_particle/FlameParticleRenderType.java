@@ -0,0 +1,104 @@
+package minecraftbyexample.mbe50_particle;
+
+import net.minecraft.client.particle.IParticleRenderType;
+import net.minecraft.client.renderer.ActiveRenderInfo;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.util.math.vector.Quaternion;
+import net.minecraft.util.math.vector.Vector3f;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * The render type used for all FlameParticles.
+ * The ParticleManager draws each render type as a single batch: it calls beginRender(), then renderParticle() for
+ *   every particle of that type (which adds the particle's quad to the vertex buffer), then finishRender() which draws
+ *   the whole buffer at once.  Giving the flames their own render type means that all of them go into one vertex
+ *   buffer per frame, separate from the vanilla translucent particles.
+ *
+ * The GL state is exactly the same as PARTICLE_SHEET_TRANSLUCENT (in fact we just call its beginRender and
+ *   finishRender), so it works with any renderer that can draw vanilla particles, including software/Mesa renderers.
+ *   No shaders or instancing are used.
+ *
+ * All flames are billboards facing the camera and never rotate, so the corners of the quad (relative to the particle's
+ *   centre) are the same for every particle in the frame, apart from the scale.  They are calculated once per frame
+ *   from the camera rotation (see getQuadCorners) instead of once per particle.
+ *
+ * It also records how many flames were drawn each frame, and how long it took to fill and draw the buffer (see
+ *   FlameParticleStressMode).
+ */
+public class FlameParticleRenderType implements IParticleRenderType {
+
+  // same corners, in the same order, as TexturedParticle.renderParticle.  Must be initialised before FLAME_PARTICLE_SHEET
+  private static final Vector3f [] UNIT_QUAD_CORNERS = {
+          new Vector3f(-1.0F, -1.0F, 0.0F), new Vector3f(-1.0F, 1.0F, 0.0F),
+          new Vector3f(1.0F, 1.0F, 0.0F), new Vector3f(1.0F, -1.0F, 0.0F)};
+
+  public static final FlameParticleRenderType FLAME_PARTICLE_SHEET = new FlameParticleRenderType();
+
+  @Override
+  public void beginRender(BufferBuilder bufferBuilder, TextureManager textureManager) {
+    frameStartNanos = System.nanoTime();
+    particlesThisFrame = 0;
+    quadCornersAreValid = false;
+    IParticleRenderType.PARTICLE_SHEET_TRANSLUCENT.beginRender(bufferBuilder, textureManager);
+  }
+
+  @Override
+  public void finishRender(Tessellator tessellator) {
+    IParticleRenderType.PARTICLE_SHEET_TRANSLUCENT.finishRender(tessellator);
+    lastFrameParticleCount = particlesThisFrame;
+    lastFrameRenderNanos = System.nanoTime() - frameStartNanos;
+    ++framesRendered;
+  }
+
+  /**
+   * Get the corners of a unit quad facing the camera, in the order used by the vertex buffer: x0,y0,z0, x1,y1,z1, ...
+   * Calculated on the first call in each frame; the same array is returned every time, so don't modify it.
+   * Each FlameParticle calls this once per frame, so it is also used to count the particles drawn in each frame.
+   */
+  float [] getQuadCorners(ActiveRenderInfo activeRenderInfo) {
+    ++particlesThisFrame;
+    if (!quadCornersAreValid) {
+      Quaternion cameraRotation = activeRenderInfo.getRotation();
+      for (int i = 0; i < UNIT_QUAD_CORNERS.length; ++i) {
+        Vector3f corner = UNIT_QUAD_CORNERS[i].copy();
+        corner.transform(cameraRotation);
+        quadCorners[3 * i] = corner.getX();
+        quadCorners[3 * i + 1] = corner.getY();
+        quadCorners[3 * i + 2] = corner.getZ();
+      }
+      quadCornersAreValid = true;
+    }
+    return quadCorners;
+  }
+
+  public int getLastFrameParticleCount() {
+    return lastFrameParticleCount;
+  }
+
+  public long getLastFrameRenderNanos() {
+    return lastFrameRenderNanos;
+  }
+
+  public long getFramesRendered() {
+    return framesRendered;
+  }
+
+  @Override
+  public String toString() {
+    return "MBE50_FLAME_PARTICLE_SHEET";
+  }
+
+  private FlameParticleRenderType() {}
+
+  private final float [] quadCorners = new float[3 * UNIT_QUAD_CORNERS.length];
+  private boolean quadCornersAreValid = false;
+
+  private long frameStartNanos;
+  private int particlesThisFrame;
+  private int lastFrameParticleCount;
+  private long lastFrameRenderNanos;
+  private long framesRendered;
+}
@@ -0,0 +1,130 @@
+package minecraftbyexample.mbe50_particle;
+
+import minecraftbyexample.usefultools.debugging.DebugSettings;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.entity.player.ClientPlayerEntity;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Tools for measuring how fast the FlameParticles are rendered:
+ * 1) Stress mode: /mbedebug param mbe50_flame_stress 20000
+ *    keeps (approximately) that many flames floating around the player.  /mbedebug param mbe50_flame_stress clear
+ *    to stop.
+ * 2) Frame time instrumentation: while stress mode is on, or after /mbedebug param mbe50_flame_stats 1, every
+ *    REPORT_INTERVAL_FRAMES frames it logs the average number of flames drawn per frame, the average and maximum time
+ *    taken to fill and draw the flame vertex buffer (see FlameParticleRenderType), and the average time per frame.
+ * Note that the ParticleManager has a limit of 16384 particles per render type, so stress counts above that are capped.
+ *
+ * Client side only.  Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class FlameParticleStressMode {
+
+  @SubscribeEvent
+  public static void onClientTick(TickEvent.ClientTickEvent event) {
+    if (event.phase != TickEvent.Phase.END) return;
+    Minecraft minecraft = Minecraft.getInstance();
+    ClientWorld world = minecraft.world;
+    ClientPlayerEntity player = minecraft.player;
+    if (world == null || player == null || minecraft.isGamePaused()) return;
+
+    int stressParticleCount = getStressParticleCount();
+    if (stressParticleCount <= 0) return;
+
+    // each flame lives for DEFAULT_LIFETIME_TICKS, so spawning this many per tick keeps the total steady
+    int particlesPerTick = Math.max(1, stressParticleCount / FlameParticleData.DEFAULT_LIFETIME_TICKS);
+    final double SPAWN_RADIUS = 8.0;
+    final double SPEED = 0.02;
+    final boolean ALWAYS_RENDER = true;
+    for (int i = 0; i < particlesPerTick; ++i) {
+      double x = player.getPosX() + (random.nextDouble() * 2 - 1) * SPAWN_RADIUS;
+      double y = player.getPosYEye() + (random.nextDouble() * 2 - 1) * SPAWN_RADIUS / 2;
+      double z = player.getPosZ() + (random.nextDouble() * 2 - 1) * SPAWN_RADIUS;
+      FlameParticleData flameParticleData = STRESS_PARTICLE_DATA[random.nextInt(STRESS_PARTICLE_DATA.length)];
+      world.addParticle(flameParticleData, ALWAYS_RENDER, x, y, z,
+              (random.nextDouble() * 2 - 1) * SPEED, (random.nextDouble() * 2 - 1) * SPEED, (random.nextDouble() * 2 - 1) * SPEED);
+    }
+  }
+
+  @SubscribeEvent
+  public static void onRenderTick(TickEvent.RenderTickEvent event) {
+    if (event.phase != TickEvent.Phase.END) return;
+    long nowNanos = System.nanoTime();
+    long frameNanos = nowNanos - lastFrameEndNanos;
+    lastFrameEndNanos = nowNanos;
+
+    boolean statisticsEnabled = getStressParticleCount() > 0
+                                || DebugSettings.getDebugParameter(STATS_PARAMETER_NAME).orElse(0.0) > 0;
+    if (!statisticsEnabled) {
+      framesInInterval = 0;
+      return;
+    }
+    if (framesInInterval == 0) {   // discard the first frame; its frame time is meaningless
+      resetInterval();
+      framesInInterval = 1;
+      return;
+    }
+
+    FlameParticleRenderType renderType = FlameParticleRenderType.FLAME_PARTICLE_SHEET;
+    if (renderType.getFramesRendered() != lastFramesRendered) {  // the flame batch was drawn during this frame
+      lastFramesRendered = renderType.getFramesRendered();
+      totalParticles += renderType.getLastFrameParticleCount();
+      totalBatchNanos += renderType.getLastFrameRenderNanos();
+      maxBatchNanos = Math.max(maxBatchNanos, renderType.getLastFrameRenderNanos());
+    }
+    totalFrameNanos += frameNanos;
+    if (++framesInInterval <= REPORT_INTERVAL_FRAMES) return;
+
+    final double NANOS_PER_MS = 1.0E6;
+    int frames = framesInInterval - 1;
+    LOGGER.info(String.format("Flame particles: %.0f per frame, batch %.3f ms average / %.3f ms max, frame %.2f ms average (%.1f fps)",
+            totalParticles / (double)frames, totalBatchNanos / NANOS_PER_MS / frames, maxBatchNanos / NANOS_PER_MS,
+            totalFrameNanos / NANOS_PER_MS / frames, frames / (totalFrameNanos / 1.0E9)));
+    LOGGER.info(FlameParticlePool.getStatistics());
+    resetInterval();
+    framesInInterval = 1;
+  }
+
+  private static int getStressParticleCount() {
+    Optional<Double> stressParticleCount = DebugSettings.getDebugParameter(STRESS_PARAMETER_NAME);
+    return stressParticleCount.map(Double::intValue).orElse(0);
+  }
+
+  private static void resetInterval() {
+    totalParticles = 0;
+    totalBatchNanos = 0;
+    maxBatchNanos = 0;
+    totalFrameNanos = 0;
+  }
+
+  public static final String STRESS_PARAMETER_NAME = "mbe50_flame_stress";
+  public static final String STATS_PARAMETER_NAME = "mbe50_flame_stats";
+
+  private static final int REPORT_INTERVAL_FRAMES = 200;
+
+  private static final FlameParticleData [] STRESS_PARTICLE_DATA = {
+          new FlameParticleData(FlameParticleData.packTintRGB(255, 255, 255), 0.2),
+          new FlameParticleData(FlameParticleData.packTintRGB(255, 128, 255), 0.1),
+          new FlameParticleData(FlameParticleData.packTintRGB(128, 255, 255), 0.3),
+  };
+
+  private static final Random random = new Random();
+
+  private static long lastFrameEndNanos = 0;
+  private static int framesInInterval = 0;
+  private static long lastFramesRendered = 0;
+  private static long totalParticles;
+  private static long totalBatchNanos;
+  private static long maxBatchNanos;
+  private static long totalFrameNanos;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -0,0 +1,54 @@
+package minecraftbyexample.mbe50_particle;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.StringTextComponent;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Adds a command "mbeparticlebudget" for debugging the FlameParticleBudget:
+ * mbeparticlebudget -- show the number of live flames, the budget, and how many flames were spawned at each level of detail
+ * mbeparticlebudget <budget> -- change the maximum number of flames
+ * mbeparticlebudget reset -- reset the spawn statistics
+ * The particles only exist on the client, so this command only works in single player (the same as mbedebug): it
+ *   changes the budget of the client which is running the integrated server.  It is only registered by the client
+ *   (see StartupClientOnly), so it doesn't exist on a dedicated server.
+ */
+public class MBEparticlebudgetCommand {
+  public static void register(CommandDispatcher<CommandSource> dispatcher) {
+    final int MAX_BUDGET = 16384;  // the ParticleManager won't hold more than this many of each render type anyway
+    LiteralArgumentBuilder<CommandSource> mbeparticlebudgetCommand
+            = Commands.literal("mbeparticlebudget")
+                 .requires((commandSource) -> commandSource.hasPermissionLevel(2))
+                 .executes(MBEparticlebudgetCommand::showBudget)
+                 .then(Commands.literal("reset")
+                         .executes(MBEparticlebudgetCommand::resetStatistics))
+                 .then(Commands.argument("budget", IntegerArgumentType.integer(1, MAX_BUDGET))
+                         .executes(MBEparticlebudgetCommand::setBudget));
+
+    dispatcher.register(mbeparticlebudgetCommand);
+  }
+
+  static int showBudget(CommandContext<CommandSource> commandContext) {
+    commandContext.getSource().sendFeedback(new StringTextComponent(FlameParticleBudget.getStatistics()), false);
+    return FlameParticleBudget.getLiveParticles();
+  }
+
+  static int setBudget(CommandContext<CommandSource> commandContext) {
+    int budget = IntegerArgumentType.getInteger(commandContext, "budget");
+    FlameParticleBudget.setBudget(budget);
+    commandContext.getSource().sendFeedback(new StringTextComponent("Flame particle budget set to " + budget), false);
+    return budget;
+  }
+
+  static int resetStatistics(CommandContext<CommandSource> commandContext) {
+    FlameParticleBudget.resetStatistics();
+    commandContext.getSource().sendFeedback(new StringTextComponent("Flame particle statistics reset"), false);
+    return 1;
+  }
+}
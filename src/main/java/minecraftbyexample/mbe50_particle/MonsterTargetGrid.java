@@ -0,0 +1,128 @@
+package minecraftbyexample.mbe50_particle;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.monster.MonsterEntity;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.SectionPos;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Finds the nearest monster for BlockFlameEmitter to shoot at, without searching the world's entities every time
+ *   a flame is spawned.
+ * Once per tick (the first time it is queried), all the monsters in the client world are sorted into a grid of
+ *   16x16x16 cells.  The targeting range of an emitter (TARGETING_DISTANCE either side horizontally, and up to
+ *   TARGETING_DISTANCE above) never covers more than 3x2x3 cells, so the candidates for every emitter in the same cell
+ *   are the same.  The list of candidates is built once per cell per tick and shared by all the emitters in that cell;
+ *   each emitter then only has to check the candidates for the exact range and distance.
+ * The result is the same as searching the world with getEntitiesWithinAABB.
+ *
+ * Client thread only.  Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class MonsterTargetGrid {
+
+  public static final double TARGETING_DISTANCE = 16;
+
+  /**
+   * Returns the nearest targetable mob to the indicated [xpos, ypos, zpos]: within TARGETING_DISTANCE horizontally, and
+   *   between ypos and ypos + TARGETING_DISTANCE vertically
+   * @return the nearest mob, or null if none within range.
+   */
+  public static MonsterEntity getNearestTargetableMob(ClientWorld world, double xpos, double ypos, double zpos) {
+    List<MonsterEntity> candidates = getCandidates(world, xpos, ypos, zpos);
+
+    MonsterEntity nearestMob = null;
+    double closestDistance = Double.MAX_VALUE;
+    for (MonsterEntity nextMob : candidates) {
+      AxisAlignedBB mobBB = nextMob.getBoundingBox();   // same test as getEntitiesWithinAABB
+      if (mobBB.maxX <= xpos - TARGETING_DISTANCE || mobBB.minX >= xpos + TARGETING_DISTANCE
+          || mobBB.maxY <= ypos || mobBB.minY >= ypos + TARGETING_DISTANCE
+          || mobBB.maxZ <= zpos - TARGETING_DISTANCE || mobBB.minZ >= zpos + TARGETING_DISTANCE) {
+        continue;
+      }
+      double nextClosestDistance = nextMob.getDistanceSq(xpos, ypos, zpos);
+      if (nextClosestDistance < closestDistance) {
+        closestDistance = nextClosestDistance;
+        nearestMob = nextMob;
+      }
+    }
+    return nearestMob;
+  }
+
+  @SubscribeEvent
+  public static void onWorldUnload(WorldEvent.Unload event) {
+    if (event.getWorld().isRemote()) {
+      currentGrid = null;
+    }
+  }
+
+  // get the monsters which might be in range of a query from any point in the cell containing [xpos, ypos, zpos]
+  private static List<MonsterEntity> getCandidates(ClientWorld world, double xpos, double ypos, double zpos) {
+    long gameTime = world.getGameTime();
+    if (currentGrid == null || currentGrid.world != world || currentGrid.gameTimeWhenBuilt != gameTime) {
+      currentGrid = new MonsterGrid(world, gameTime);
+    }
+    int cellX = MathHelper.floor(xpos) >> CELL_SIZE_BITS;
+    int cellY = MathHelper.floor(ypos) >> CELL_SIZE_BITS;
+    int cellZ = MathHelper.floor(zpos) >> CELL_SIZE_BITS;
+    long queryCellKey = SectionPos.asLong(cellX, cellY, cellZ);
+    List<MonsterEntity> candidates = currentGrid.candidatesByQueryCell.get(queryCellKey);
+    if (candidates == null) {
+      candidates = currentGrid.collectCandidates(cellX, cellY, cellZ);
+      currentGrid.candidatesByQueryCell.put(queryCellKey, candidates);
+    }
+    return candidates;
+  }
+
+  private static class MonsterGrid {
+    MonsterGrid(ClientWorld world, long gameTimeWhenBuilt) {
+      this.world = world;
+      this.gameTimeWhenBuilt = gameTimeWhenBuilt;
+      for (Entity entity : world.getAllEntities()) {
+        if (!(entity instanceof MonsterEntity)) continue;
+        // sort by the centre of the mob's bounding box; allow for the size of the mob when collecting candidates
+        AxisAlignedBB entityBB = entity.getBoundingBox();
+        long cellKey = SectionPos.asLong(MathHelper.floor((entityBB.minX + entityBB.maxX) / 2) >> CELL_SIZE_BITS,
+                                         MathHelper.floor((entityBB.minY + entityBB.maxY) / 2) >> CELL_SIZE_BITS,
+                                         MathHelper.floor((entityBB.minZ + entityBB.maxZ) / 2) >> CELL_SIZE_BITS);
+        monstersByCell.computeIfAbsent(cellKey, k -> new ArrayList<>()).add((MonsterEntity)entity);
+      }
+    }
+
+    // the query range from anywhere in this cell is at most [cell-1, cell+1] horizontally and [cell, cell+1]
+    //  vertically.  Add a margin of one cell in every direction for mobs whose bounding box pokes into the range
+    //  from a neighbouring cell (mobs are much smaller than one cell).
+    List<MonsterEntity> collectCandidates(int cellX, int cellY, int cellZ) {
+      List<MonsterEntity> candidates = null;
+      for (int x = cellX - 2; x <= cellX + 2; ++x) {
+        for (int y = cellY - 1; y <= cellY + 2; ++y) {
+          for (int z = cellZ - 2; z <= cellZ + 2; ++z) {
+            List<MonsterEntity> monstersInCell = monstersByCell.get(SectionPos.asLong(x, y, z));
+            if (monstersInCell == null) continue;
+            if (candidates == null) candidates = new ArrayList<>();
+            candidates.addAll(monstersInCell);
+          }
+        }
+      }
+      return (candidates == null) ? Collections.emptyList() : candidates;
+    }
+
+    final ClientWorld world;
+    final long gameTimeWhenBuilt;
+    final Long2ObjectOpenHashMap<List<MonsterEntity>> monstersByCell = new Long2ObjectOpenHashMap<>();
+    final Long2ObjectOpenHashMap<List<MonsterEntity>> candidatesByQueryCell = new Long2ObjectOpenHashMap<>();
+  }
+
+  private static final int CELL_SIZE_BITS = 4;  // each cell is 16 x 16 x 16
+
+  private static MonsterGrid currentGrid = null;
+}
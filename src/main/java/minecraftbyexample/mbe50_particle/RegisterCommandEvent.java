@@ -0,0 +1,23 @@
+package minecraftbyexample.mbe50_particle;
+
+import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.command.CommandSource;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Register the mbeparticlebudget command when the (integrated) server starts up.
+ *
+ * Don't forget to register this class on the MinecraftForge.EVENT_BUS - on the client only, because the command changes
+ *   the client's FlameParticleBudget and is useless on a dedicated server.
+ */
+public class RegisterCommandEvent
+{
+  @SubscribeEvent
+  public static void onRegisterCommandEvent(RegisterCommandsEvent event) {
+    CommandDispatcher<CommandSource> commandDispatcher = event.getDispatcher();
+    MBEparticlebudgetCommand.register(commandDispatcher);
+  }
+}
@@ -1,9 +1,11 @@
 package minecraftbyexample.mbe50_particle;
 
+import minecraftbyexample.mbe50_particle.testharness.DebugTestWatcherMBE50;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.RenderTypeLookup;
 import net.minecraftforge.client.event.ParticleFactoryRegisterEvent;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 
@@ -23,6 +25,13 @@ public class StartupClientOnly
   @SubscribeEvent
   public static void onClientSetupEvent(FMLClientSetupEvent event) {
     RenderTypeLookup.setRenderLayer(StartupCommon.blockFlameEmitter, RenderType.getSolid());
+
+    MinecraftForge.EVENT_BUS.register(FlameParticlePool.class);  // to empty the pool when the world is unloaded
+    MinecraftForge.EVENT_BUS.register(MonsterTargetGrid.class);  // to discard the grid when the world is unloaded
+    MinecraftForge.EVENT_BUS.register(FlameParticleStressMode.class);  // for measuring the flame rendering speed
+    MinecraftForge.EVENT_BUS.register(FlameParticleBudget.class);  // to count the live flames every tick
+    MinecraftForge.EVENT_BUS.register(RegisterCommandEvent.class);  // for the mbeparticlebudget command (single player only)
+    MinecraftForge.EVENT_BUS.register(DebugTestWatcherMBE50.class);  // used for our test harness code only; delete if you don't want that
   }
 
   // Register the factory that will spawn our Particle from ParticleData
@@ -0,0 +1,27 @@
+package minecraftbyexample.mbe50_particle.testharness;
+
+import minecraftbyexample.usefultools.debugging.DebugSettings;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+
+/**
+ * Created by TGG on 18/10/2020.
+ * Used in conjunction with the MBEdebugCommand to trigger execution of an in-game test
+ * Particles only exist on the client, so the tests are run on the client side (only works in single player)
+ *
+ * /mbedebug test testnumber   (5000 - 5099)
+ *
+ * Don't forget to register this class on the MinecraftForge.EVENT_BUS (client only).
+ */
+public class DebugTestWatcherMBE50 {
+  @SubscribeEvent
+  public static void onClientTick(TickEvent.PlayerTickEvent event) {
+    if (event.side != LogicalSide.CLIENT) return;
+
+    int testNumber = DebugSettings.getDebugTest(5000, 5100);
+    if (testNumber == DebugSettings.NO_TEST_TRIGGERED) return;
+    testRunner.runClientSideTest(event.player.world, event.player, testNumber);
+  }
+  public static TestRunnerMBE50 testRunner = new TestRunnerMBE50();
+}
@@ -0,0 +1,65 @@
+package minecraftbyexample.mbe50_particle.testharness;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.world.World;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Test Runner for MBE50
+ * 5001 = benchmark of FlameParticle creation: particles per millisecond and bytes allocated per particle, with and
+ *        without the FlameParticlePool and the FlameParticleData cache
+ * 5002 = benchmark of FlameParticle physics: collision check every tick, compared to a single raycast at spawn
+ */
+public class TestRunnerMBE50
+{
+  public boolean runClientSideTest(World worldIn, PlayerEntity playerIn, int testNumber)
+  {
+    boolean success = false;
+    switch (testNumber) {
+      case 5001: {
+        TestRunnerMBE50_A testRunner = new TestRunnerMBE50_A();
+        success = testRunner.runTest(worldIn, playerIn);
+        break;
+      }
+      case 5002: {
+        TestRunnerMBE50_B testRunner = new TestRunnerMBE50_B();
+        success = testRunner.runTest(worldIn, playerIn);
+        break;
+      }
+      default: {  // not intended for this TestRunner
+        return false;
+      }
+    }
+
+    LOGGER.error("Test Number " + testNumber + " called on client side:" + (success ? "success" : "failure"));
+    return success;
+  }
+
+  /**
+   * Prints success or failure of test
+   * @param resultChainIn
+   * @param failmessage
+   * @param result
+   * @return resultChainIn && result
+   */
+  public static boolean test(boolean resultChainIn, String failmessage, boolean result) {
+    LOGGER.error("Test #" + failmessage + (result ? " passed." : " failed."));
+    return resultChainIn && result;
+  }
+
+  /**
+   * How many bytes have been allocated by the current thread so far?
+   * @return the number of bytes, or -1 if the JVM doesn't support allocation measurement
+   */
+  public static long getAllocatedBytesForCurrentThread() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) return -1;
+    return ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -0,0 +1,119 @@
+package minecraftbyexample.mbe50_particle.testharness;
+
+import minecraftbyexample.mbe50_particle.BlockFlameEmitter;
+import minecraftbyexample.mbe50_particle.FlameParticle;
+import minecraftbyexample.mbe50_particle.FlameParticleBudget;
+import minecraftbyexample.mbe50_particle.FlameParticleData;
+import minecraftbyexample.mbe50_particle.FlameParticlePool;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Created by TGG on 18/10/2020.
+ * Benchmark: the cost of creating FlameParticles in a steady stream (LIVE_PARTICLES alive at once; every time a new one
+ *   is created, the oldest one expires), comparing
+ * 1) the old method: a new Random, Color[], FlameParticleData and FlameParticle for every particle
+ * 2) the FlameParticleData cached by BlockFlameEmitter, and the FlameParticle recycled by the FlameParticlePool
+ * Prints the number of particles created per millisecond and the bytes allocated per particle.
+ * The particles aren't added to the ParticleManager, so they aren't rendered.
+ */
+public class TestRunnerMBE50_A {
+  public boolean runTest(World worldIn, PlayerEntity playerIn) {
+    if (TestRunnerMBE50.getAllocatedBytesForCurrentThread() < 0) {
+      LOGGER.error("This JVM doesn't support measurement of allocated memory");
+      return false;
+    }
+    if (!(worldIn instanceof ClientWorld)) {
+      LOGGER.error("Test 5001 must be run on the client side");
+      return false;
+    }
+    ClientWorld clientWorld = (ClientWorld)worldIn;
+    BlockPos emitterPos = playerIn.getPosition();
+    LOGGER.error(FlameParticlePool.getStatistics());
+
+    final int WARMUP_PARTICLES = 100_000;
+    final int PARTICLES = 1_000_000;
+
+    runUnpooled(clientWorld, emitterPos, WARMUP_PARTICLES);
+    long startBytes = TestRunnerMBE50.getAllocatedBytesForCurrentThread();
+    long startNanos = System.nanoTime();
+    runUnpooled(clientWorld, emitterPos, PARTICLES);
+    long unpooledNanos = System.nanoTime() - startNanos;
+    long unpooledBytes = TestRunnerMBE50.getAllocatedBytesForCurrentThread() - startBytes;
+
+    runPooled(clientWorld, emitterPos, WARMUP_PARTICLES);
+    startBytes = TestRunnerMBE50.getAllocatedBytesForCurrentThread();
+    startNanos = System.nanoTime();
+    runPooled(clientWorld, emitterPos, PARTICLES);
+    long pooledNanos = System.nanoTime() - startNanos;
+    long pooledBytes = TestRunnerMBE50.getAllocatedBytesForCurrentThread() - startBytes;
+    FlameParticlePool.clear();  // the benchmark particles have no sprites, so the game mustn't reuse them
+
+    final double NANOS_PER_MS = 1.0E6;
+    LOGGER.error(String.format("Unpooled: %.0f particles per ms, %.1f bytes per particle",
+                               PARTICLES / (unpooledNanos / NANOS_PER_MS), unpooledBytes / (double)PARTICLES));
+    LOGGER.error(String.format("Pooled: %.0f particles per ms, %.1f bytes per particle",
+                               PARTICLES / (pooledNanos / NANOS_PER_MS), pooledBytes / (double)PARTICLES));
+
+    boolean result = true;
+    result = TestRunnerMBE50.test(result, "5001a", pooledBytes < unpooledBytes);
+    return result;
+  }
+
+  // the way that BlockFlameEmitter and FlameParticleFactory used to do it
+  private static void runUnpooled(ClientWorld world, BlockPos emitterPos, int numberOfParticles) {
+    Deque<FlameParticle> liveParticles = new ArrayDeque<>();
+    for (int i = 0; i < numberOfParticles; ++i) {
+      Color [] tints = {
+              new Color(1.00f, 1.00f, 1.0f),
+              new Color(1.00f, 0.75f, 1.0f),
+              new Color(1.00f, 0.50f, 1.0f),
+              new Color(0.75f, 1.00f, 1.0f),
+              new Color(0.50f, 1.00f, 1.0f),
+      };
+      Random random = new Random(emitterPos.hashCode());
+      random.nextInt(); random.nextInt();
+      Color tint = tints[random.nextInt(tints.length)];
+      random = new Random(emitterPos.hashCode());
+      random.nextDouble(); random.nextDouble();
+      double diameter = 0.05 + 0.30 * random.nextDouble();
+
+      FlameParticleData flameParticleData = new FlameParticleData(tint.getRGB(), diameter);
+      FlameParticle flameParticle = new FlameParticle(world, emitterPos.getX() + 0.5, emitterPos.getY() + 1.0, emitterPos.getZ() + 0.5,
+              0, 0.1, 0, flameParticleData.getTintRGB(), flameParticleData.getDiameter(), flameParticleData.getLifetimeTicks(), null);
+      liveParticles.addLast(flameParticle);
+      if (liveParticles.size() > LIVE_PARTICLES) {
+        liveParticles.pollFirst();
+      }
+    }
+  }
+
+  private static void runPooled(ClientWorld world, BlockPos emitterPos, int numberOfParticles) {
+    Deque<FlameParticle> liveParticles = new ArrayDeque<>();
+    for (int i = 0; i < numberOfParticles; ++i) {
+      FlameParticleData flameParticleData = BlockFlameEmitter.getFlameParticleData(emitterPos, FlameParticleBudget.FULL_DETAIL);
+      FlameParticle flameParticle = FlameParticlePool.acquire(world, emitterPos.getX() + 0.5, emitterPos.getY() + 1.0, emitterPos.getZ() + 0.5,
+              0, 0.1, 0, flameParticleData.getTintRGB(), flameParticleData.getDiameter(), flameParticleData.getLifetimeTicks(), null);
+      liveParticles.addLast(flameParticle);
+      if (liveParticles.size() > LIVE_PARTICLES) {
+        FlameParticlePool.release(liveParticles.pollFirst());
+      }
+    }
+    while (!liveParticles.isEmpty()) {
+      FlameParticlePool.release(liveParticles.pollFirst());
+    }
+  }
+
+  private static final int LIVE_PARTICLES = 1000;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -0,0 +1,117 @@
+package minecraftbyexample.mbe50_particle.testharness;
+
+import minecraftbyexample.mbe50_particle.FlameParticle;
+import minecraftbyexample.mbe50_particle.FlameParticleData;
+import minecraftbyexample.mbe50_particle.FlameParticlePool;
+import minecraftbyexample.usefultools.debugging.DebugSettings;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.world.World;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Created by TGG on 18/10/2020.
+ * Benchmark: the cost of ticking FlameParticles with the normal physics (collision check every tick) compared to the
+ *   raycast physics (one raycast when the particle is spawned, no collision checks after that).
+ * The particles are spawned around the player, flying in random directions, and ticked until they have all expired.
+ * Prints the time per particle (including the time to spawn it), and how many particles had the same lifetime (+/- 2
+ *   ticks) in both modes.  Flames which slide along a wall with the normal physics will have a different lifetime.
+ * The particles aren't added to the ParticleManager, so they aren't rendered.
+ */
+public class TestRunnerMBE50_B {
+  public boolean runTest(World worldIn, PlayerEntity playerIn) {
+    if (!(worldIn instanceof ClientWorld)) {
+      LOGGER.error("Test 5002 must be run on the client side");
+      return false;
+    }
+    ClientWorld clientWorld = (ClientWorld)worldIn;
+    Double originalSetting = DebugSettings.getDebugParameter(FlameParticle.RAYCAST_PHYSICS_PARAMETER_NAME).orElse(null);
+
+    final int WARMUP_REPEATS = 2;
+    final int REPEATS = 10;
+    int [] collideLifetimes = new int[PARTICLES];
+    int [] raycastLifetimes = new int[PARTICLES];
+    long collideNanos = 0;
+    long raycastNanos = 0;
+    try {
+      for (int i = 0; i < WARMUP_REPEATS + REPEATS; ++i) {
+        DebugSettings.clearDebugParameter(FlameParticle.RAYCAST_PHYSICS_PARAMETER_NAME);
+        long nanos = runParticles(clientWorld, playerIn, collideLifetimes);
+        if (i >= WARMUP_REPEATS) collideNanos += nanos;
+
+        DebugSettings.setDebugParameter(FlameParticle.RAYCAST_PHYSICS_PARAMETER_NAME, 1.0);
+        nanos = runParticles(clientWorld, playerIn, raycastLifetimes);
+        if (i >= WARMUP_REPEATS) raycastNanos += nanos;
+      }
+    } finally {
+      FlameParticlePool.clear();  // the benchmark particles have no sprites, so the game mustn't reuse them
+      if (originalSetting == null) {
+        DebugSettings.clearDebugParameter(FlameParticle.RAYCAST_PHYSICS_PARAMETER_NAME);
+      } else {
+        DebugSettings.setDebugParameter(FlameParticle.RAYCAST_PHYSICS_PARAMETER_NAME, originalSetting);
+      }
+    }
+
+    final int LIFETIME_TOLERANCE = 2;
+    int sameLifetime = 0;
+    for (int i = 0; i < PARTICLES; ++i) {
+      if (Math.abs(collideLifetimes[i] - raycastLifetimes[i]) <= LIFETIME_TOLERANCE) ++sameLifetime;
+    }
+
+    final double TOTAL_PARTICLES = PARTICLES * (double)REPEATS;
+    LOGGER.error(String.format("Collide every tick: %.0f ns per particle", collideNanos / TOTAL_PARTICLES));
+    LOGGER.error(String.format("Raycast at spawn: %.0f ns per particle", raycastNanos / TOTAL_PARTICLES));
+    LOGGER.error(String.format("Same lifetime in both modes: %d of %d particles", sameLifetime, PARTICLES));
+
+    boolean result = true;
+    result = TestRunnerMBE50.test(result, "5002a", raycastNanos < collideNanos);
+    return result;
+  }
+
+  // spawn the particles (the same ones every time), then tick them all until they expire.
+  // returns the time taken in ns; fills lifetimes with the number of ticks that each particle lived
+  private static long runParticles(ClientWorld world, PlayerEntity player, int [] lifetimes) {
+    Random random = new Random(RANDOM_SEED);
+    final double SPEED = 0.1;  // blocks per tick
+    final double DIAMETER = 0.2;
+    final int TINT = 0xffffff;
+
+    long startNanos = System.nanoTime();
+    List<FlameParticle> liveParticles = new ArrayList<>(PARTICLES);
+    for (int i = 0; i < PARTICLES; ++i) {
+      double dx = random.nextGaussian();
+      double dy = random.nextGaussian();
+      double dz = random.nextGaussian();
+      double length = Math.max(1.0E-6, Math.sqrt(dx * dx + dy * dy + dz * dz));
+      liveParticles.add(FlameParticlePool.acquire(world, player.getPosX(), player.getPosYEye(), player.getPosZ(),
+              SPEED * dx / length, SPEED * dy / length, SPEED * dz / length,
+              TINT, DIAMETER, FlameParticleData.DEFAULT_LIFETIME_TICKS, null));
+      lifetimes[i] = 0;
+    }
+
+    int particlesAlive = PARTICLES;
+    while (particlesAlive > 0) {
+      for (int i = 0; i < PARTICLES; ++i) {
+        FlameParticle flameParticle = liveParticles.get(i);
+        if (flameParticle == null) continue;
+        flameParticle.tick();  // releases the particle to the pool when it expires
+        ++lifetimes[i];
+        if (!flameParticle.isAlive()) {
+          liveParticles.set(i, null);
+          --particlesAlive;
+        }
+      }
+    }
+    return System.nanoTime() - startNanos;
+  }
+
+  private static final int PARTICLES = 1000;
+  private static final long RANDOM_SEED = 5002;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -0,0 +1,173 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.SpawnReason;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.projectile.FireballEntity;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.SoundCategory;
+import net.minecraft.util.SoundEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Collects the airstrike requests received during a tick, and at the end of the tick merges requests for the same
+ *   projectile which are close together into a single batch.  Each batch:
+ * 1) sends one TargetEffectMessageToClient to the players who can see the target,
+ * 2) spawns the projectiles for all its requests (up to MAX_NUMBER_OF_PROJECTILES_PER_BATCH), at the release points
+ *    which were chosen on the network thread (see AirstrikeRequest), and
+ * 3) plays one thunder sound.
+ * So if a lot of players (or one very fast clicker) call airstrikes on the same spot, the server does the work of one
+ *   large airstrike instead of many small ones.
+ *
+ * Server thread only.  Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class AirstrikeCoalescer {
+
+  /**
+   * Queue an airstrike to be launched at the end of this tick
+   */
+  public static void addRequest(ServerWorld world, AirstrikeRequest request) {
+    pendingRequests.computeIfAbsent(world, k -> new ArrayList<>()).add(request);
+  }
+
+  @SubscribeEvent
+  public static void onWorldTick(TickEvent.WorldTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+    List<AirstrikeRequest> requests = pendingRequests.remove(event.world);
+    if (requests == null) return;
+    if (!(event.world instanceof ServerWorld)) return;
+    ServerWorld serverWorld = (ServerWorld)event.world;
+
+    for (AirstrikeBatch batch : mergeNearbyRequests(requests)) {
+      launchBatch(serverWorld, batch);
+    }
+  }
+
+  // put each request into the first batch with the same projectile and a nearby target, or start a new batch
+  private static List<AirstrikeBatch> mergeNearbyRequests(List<AirstrikeRequest> requests) {
+    List<AirstrikeBatch> batches = new ArrayList<>();
+    for (AirstrikeRequest request : requests) {
+      AirstrikeBatch batchToJoin = null;
+      for (AirstrikeBatch batch : batches) {
+        if (batch.projectile == request.getProjectile()
+            && batch.firstTarget.squareDistanceTo(request.getTargetCoordinates()) <= MERGE_DISTANCE * MERGE_DISTANCE) {
+          batchToJoin = batch;
+          break;
+        }
+      }
+      if (batchToJoin == null) {
+        batchToJoin = new AirstrikeBatch(request.getProjectile(), request.getTargetCoordinates());
+        batches.add(batchToJoin);
+      }
+      batchToJoin.requests.add(request);
+    }
+    return batches;
+  }
+
+  private static void launchBatch(ServerWorld world, AirstrikeBatch batch) {
+    Vector3d centre = batch.getCentre();
+
+    // 1) First send a message to all clients who are close enough to see the target, to tell them to render a
+    //      "target" effect on the ground
+    TargetEffectMessageToClient msg = new TargetEffectMessageToClient(centre);
+    PlayerInterestIndex.sendToPlayersInViewDistance(StartupCommon.simpleChannel, world, centre, msg);
+
+    // 2) Next: spawn the projectiles on the server, at the release points chosen when each request arrived.
+    //    Take one from each request in turn, so that if there are too many, all the targets still get some.
+    int numberOfProjectiles = 0;
+    for (int i = 0; numberOfProjectiles < MAX_NUMBER_OF_PROJECTILES_PER_BATCH; ++i) {
+      boolean anyLeft = false;
+      for (AirstrikeRequest request : batch.requests) {
+        List<Vector3d> releasePoints = request.getReleasePoints();
+        if (i >= releasePoints.size()) continue;
+        anyLeft = true;
+        spawnProjectile(world, batch.projectile, releasePoints.get(i));
+        if (++numberOfProjectiles >= MAX_NUMBER_OF_PROJECTILES_PER_BATCH) break;
+      }
+      if (!anyLeft) break;
+    }
+
+    // 3: Play a thunder sound using the server method (sends to all clients, so all clients hear it)
+    //    Just one for the whole batch; they're all at the same place anyway
+    final float VOLUME = 10000.0F;
+    final float PITCH = 0.8F + random.nextFloat() * 0.2F;
+    PlayerEntity playerCausingSound = null;
+    world.playSound(playerCausingSound, centre.x, centre.y + AirstrikeRequest.RELEASE_HEIGHT_ABOVE_TARGET, centre.z,
+                    SoundEvents.ENTITY_LIGHTNING_BOLT_THUNDER, SoundCategory.WEATHER, VOLUME, PITCH);
+  }
+
+  private static void spawnProjectile(ServerWorld world, AirstrikeMessageToServer.Projectile projectile, Vector3d releasePoint) {
+    EntityType entityType = projectile.getEntityType();
+
+    CompoundNBT spawnNBT = null;
+    ITextComponent customName = null;
+    PlayerEntity spawningPlayer = null;
+    BlockPos spawnLocation = new BlockPos(releasePoint);
+    boolean SPAWN_ON_TOP_OF_GIVEN_BLOCK_LOCATION = false;  // not 100% sure of what this does...
+    boolean SEARCH_DOWN_WHEN_PLACED_ON_TOP_OF_GIVEN_BLOCK_LOCATION = false; // not 100% sure of what this does...
+    Entity spawnedEntity = entityType.spawn(world, spawnNBT, customName, spawningPlayer, spawnLocation,
+            SpawnReason.SPAWN_EGG,
+            SPAWN_ON_TOP_OF_GIVEN_BLOCK_LOCATION, SEARCH_DOWN_WHEN_PLACED_ON_TOP_OF_GIVEN_BLOCK_LOCATION);
+
+    // special cases handled by switch() - clumsy method for purposes of simplicity only...
+    switch (projectile) {
+      case FIREBALL: {
+        FireballEntity fireballEntity = (FireballEntity)spawnedEntity;
+        final double Y_ACCELERATION = -0.5;
+        fireballEntity.accelerationX = 0.0;
+        fireballEntity.accelerationY = Y_ACCELERATION;
+        fireballEntity.accelerationZ = 0.0;
+        break;
+      }
+      default: {
+        break;
+      }
+    }
+  }
+
+  private static class AirstrikeBatch {
+    AirstrikeBatch(AirstrikeMessageToServer.Projectile projectile, Vector3d firstTarget) {
+      this.projectile = projectile;
+      this.firstTarget = firstTarget;
+    }
+
+    Vector3d getCentre() {
+      double x = 0, y = 0, z = 0;
+      for (AirstrikeRequest request : requests) {
+        Vector3d target = request.getTargetCoordinates();
+        x += target.x;
+        y += target.y;
+        z += target.z;
+      }
+      return new Vector3d(x / requests.size(), y / requests.size(), z / requests.size());
+    }
+
+    final AirstrikeMessageToServer.Projectile projectile;
+    final Vector3d firstTarget;
+    final List<AirstrikeRequest> requests = new ArrayList<>();
+  }
+
+  private static final double MERGE_DISTANCE = 8.0;  // requests with targets closer than this to the first target are merged
+  private static final int MAX_NUMBER_OF_PROJECTILES_PER_BATCH = 40;
+
+  private static final Random random = new Random();
+
+  // the requests waiting to be launched, for each world.  Weak keys so that nothing is kept if the world is unloaded.
+  private static final Map<World, List<AirstrikeRequest>> pendingRequests = new WeakHashMap<>();
+}
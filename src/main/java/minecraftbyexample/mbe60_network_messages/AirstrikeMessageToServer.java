@@ -100,6 +100,38 @@ public class AirstrikeMessageToServer
     // NB that PacketBuffer is a derived class of ByteBuf
   }
 
+  /**
+   * The compact version of decode(), used by protocol version 2.0 (see StartupCommon): a varint for the projectile
+   *   and block-relative fixed-point coordinates (see CompactCoordinates), instead of a byte and three doubles.
+   * @param buf
+   */
+  public static AirstrikeMessageToServer decodeCompact(PacketBuffer buf)
+  {
+    AirstrikeMessageToServer retval = new AirstrikeMessageToServer();
+    try {
+      retval.projectile = Projectile.fromProjectileID(buf.readVarInt());
+      retval.targetCoordinates = CompactCoordinates.read(buf);
+    } catch (RuntimeException e) {
+      // not just IllegalArgumentException and IndexOutOfBoundsException: readVarInt() throws a plain RuntimeException
+      //   if the varint is too long
+      LOGGER.warn("Exception while reading AirStrikeMessageToServer: " + e);
+      return retval;
+    }
+    retval.messageIsValid = true;
+    return retval;
+  }
+
+  /**
+   * The compact version of encode(); see decodeCompact()
+   * @param buf
+   */
+  public void encodeCompact(PacketBuffer buf)
+  {
+    if (!messageIsValid) return;
+    buf.writeVarInt(projectile.getProjectileID());
+    CompactCoordinates.write(buf, targetCoordinates);
+  }
+
   public enum Projectile {
     PIG(1, "PIG", EntityType.PIG),
     SNOWBALL(2, "SNOWBALL", EntityType.SNOWBALL),
@@ -114,8 +146,14 @@ public class AirstrikeMessageToServer
 
     public EntityType getEntityType() {return entityType;}
 
+    public int getProjectileID() {return projectileID;}
+
     public static Projectile fromPacketBuffer(PacketBuffer buffer) throws IllegalArgumentException {
       byte ID = buffer.readByte();
+      return fromProjectileID(ID);
+    }
+
+    public static Projectile fromProjectileID(int ID) throws IllegalArgumentException {
       for (Projectile projectile : Projectile.values()) {
         if (ID == projectile.projectileID) return projectile;
       }
@@ -0,0 +1,64 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Limits how often each player can call an airstrike, using a "token bucket":
+ * Each player has a bucket which holds up to BUCKET_CAPACITY tokens, and is refilled at TOKENS_PER_SECOND.
+ * Each airstrike uses one token; if the bucket is empty, the airstrike is ignored.
+ * This lets a player call a few airstrikes in quick succession, but stops a client from flooding the server by
+ *   spamming AirstrikeMessageToServer.
+ *
+ * tryAcquire is called from the network thread (so that spam is dropped before it reaches the server thread), hence
+ *   the buckets need to be thread-safe.
+ * Don't forget to register this class on the MinecraftForge.EVENT_BUS, so that buckets are discarded when the player
+ *   logs out.
+ */
+public class AirstrikeRateLimiter {
+
+  /**
+   * Try to take a token from the player's bucket
+   * @param playerID
+   * @return true if the player is allowed to call an airstrike now
+   */
+  public static boolean tryAcquire(UUID playerID) {
+    TokenBucket tokenBucket = tokenBuckets.computeIfAbsent(playerID, k -> new TokenBucket(System.nanoTime()));
+    return tokenBucket.tryAcquire(System.nanoTime());
+  }
+
+  @SubscribeEvent
+  public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+    tokenBuckets.remove(event.getPlayer().getUniqueID());
+  }
+
+  private static class TokenBucket {
+    TokenBucket(long nowNanos) {
+      tokens = BUCKET_CAPACITY;
+      lastRefillNanos = nowNanos;
+    }
+
+    synchronized boolean tryAcquire(long nowNanos) {
+      final double NANOS_PER_SECOND = 1.0E9;
+      tokens = Math.min(BUCKET_CAPACITY, tokens + (nowNanos - lastRefillNanos) / NANOS_PER_SECOND * TOKENS_PER_SECOND);
+      lastRefillNanos = nowNanos;
+      if (tokens < 1.0) return false;
+      tokens -= 1.0;
+      return true;
+    }
+
+    private double tokens;
+    private long lastRefillNanos;
+  }
+
+  private static final double BUCKET_CAPACITY = 5;
+  private static final double TOKENS_PER_SECOND = 1.0;
+
+  private static final Map<UUID, TokenBucket> tokenBuckets = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,66 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.util.math.vector.Vector3d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A single airstrike, ready to be launched by AirstrikeCoalescer: the projectile, the target, and the points above the
+ *   target where the projectiles will be released.
+ * The release points are chosen when the request is created, so that this can be done on the network thread instead
+ *   of the server thread (see MessagePipeline).
+ */
+public class AirstrikeRequest {
+
+  /**
+   * Create a request with a random number of projectiles scattered above the target.
+   * @param random the random number generator to use; must be safe to use from the current thread
+   */
+  public static AirstrikeRequest create(AirstrikeMessageToServer.Projectile projectile, Vector3d targetCoordinates,
+                                        Random random) {
+    final int MAX_NUMBER_OF_PROJECTILES = 20;
+    final int MIN_NUMBER_OF_PROJECTILES = 2;
+    int numberOfProjectiles = MIN_NUMBER_OF_PROJECTILES + random.nextInt(MAX_NUMBER_OF_PROJECTILES - MIN_NUMBER_OF_PROJECTILES + 1);
+
+    List<Vector3d> releasePoints = new ArrayList<>(numberOfProjectiles);
+    for (int i = 0; i < numberOfProjectiles; ++i) {
+      final double MAX_HORIZONTAL_SPREAD = 4.0;
+      final double MAX_VERTICAL_SPREAD = 20.0;
+      double xOffset = (random.nextDouble() * 2 - 1) * MAX_HORIZONTAL_SPREAD;
+      double zOffset = (random.nextDouble() * 2 - 1) * MAX_HORIZONTAL_SPREAD;
+      double yOffset = RELEASE_HEIGHT_ABOVE_TARGET + (random.nextDouble() * 2 - 1) * MAX_VERTICAL_SPREAD;
+      releasePoints.add(targetCoordinates.add(xOffset, yOffset, zOffset));
+    }
+    return new AirstrikeRequest(projectile, targetCoordinates, releasePoints);
+  }
+
+  private AirstrikeRequest(AirstrikeMessageToServer.Projectile projectile, Vector3d targetCoordinates,
+                           List<Vector3d> releasePoints) {
+    this.projectile = projectile;
+    this.targetCoordinates = targetCoordinates;
+    this.releasePoints = Collections.unmodifiableList(releasePoints);
+  }
+
+  public AirstrikeMessageToServer.Projectile getProjectile() {
+    return projectile;
+  }
+
+  public Vector3d getTargetCoordinates() {
+    return targetCoordinates;
+  }
+
+  public List<Vector3d> getReleasePoints() {
+    return releasePoints;
+  }
+
+  public static final double RELEASE_HEIGHT_ABOVE_TARGET = 40;
+
+  private final AirstrikeMessageToServer.Projectile projectile;
+  private final Vector3d targetCoordinates;
+  private final List<Vector3d> releasePoints;
+}
@@ -0,0 +1,58 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Vector3d;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Writes a position to a PacketBuffer in a compact form: for each of x, y, z
+ * 1) the block coordinate, as a "zigzag" varint (small numbers, positive or negative, take fewer bytes), then
+ * 2) the position within the block, as a fixed-point fraction with FRACTION_BITS bits (i.e. to the nearest 1/256 of a block)
+ * A typical position takes 9 - 12 bytes instead of 24 bytes for three doubles.
+ */
+public class CompactCoordinates {
+
+  public static void write(PacketBuffer buf, Vector3d position) {
+    writeCoordinate(buf, position.x);
+    writeCoordinate(buf, position.y);
+    writeCoordinate(buf, position.z);
+  }
+
+  public static Vector3d read(PacketBuffer buf) {
+    double x = readCoordinate(buf);
+    double y = readCoordinate(buf);
+    double z = readCoordinate(buf);
+    return new Vector3d(x, y, z);
+  }
+
+  private static void writeCoordinate(PacketBuffer buf, double coordinate) {
+    int block = MathHelper.floor(coordinate);
+    int fraction = (int)Math.round((coordinate - block) * FRACTION_SCALE);
+    if (fraction == FRACTION_SCALE) {   // rounded up to the next block
+      ++block;
+      fraction = 0;
+    }
+    buf.writeVarInt(zigzagEncode(block));
+    buf.writeByte(fraction);
+  }
+
+  private static double readCoordinate(PacketBuffer buf) {
+    int block = zigzagDecode(buf.readVarInt());
+    int fraction = buf.readUnsignedByte();
+    return block + fraction / (double)FRACTION_SCALE;
+  }
+
+  // zigzag encoding maps 0, -1, 1, -2, 2 ... to 0, 1, 2, 3, 4 ...
+  private static int zigzagEncode(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int zigzagDecode(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static final int FRACTION_BITS = 8;
+  private static final int FRACTION_SCALE = 1 << FRACTION_BITS;
+}
@@ -0,0 +1,70 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.StringTextComponent;
+
+import java.util.List;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Adds a command "mbenetstats" to show the MessageStatistics for each type of message on the mbe60 channel:
+ * mbenetstats -- show the statistics
+ * mbenetstats reset -- set all the statistics back to zero
+ * mbenetstats csv true/false -- turn the periodic CSV dump (via DataLogger) on or off
+ * On a dedicated server, only the server's statistics are shown (i.e. messages received from the clients, and sent to
+ *   the clients).
+ */
+public class MBEnetstatsCommand {
+  public static void register(CommandDispatcher<CommandSource> dispatcher) {
+    LiteralArgumentBuilder<CommandSource> mbenetstatsCommand
+            = Commands.literal("mbenetstats")
+                 .requires((commandSource) -> commandSource.hasPermissionLevel(2))
+                 .executes(MBEnetstatsCommand::showStatistics)
+                 .then(Commands.literal("reset")
+                         .executes(MBEnetstatsCommand::resetStatistics))
+                 .then(Commands.literal("csv")
+                         .then(Commands.argument("enabled", BoolArgumentType.bool())
+                                 .executes(MBEnetstatsCommand::setCsvDump)));
+
+    dispatcher.register(mbenetstatsCommand);
+  }
+
+  static int showStatistics(CommandContext<CommandSource> commandContext) {
+    CommandSource source = commandContext.getSource();
+    List<MessageStatistics.MessageTypeStatistics> allStatistics = MessageStatistics.getAllStatistics();
+    for (MessageStatistics.MessageTypeStatistics stats : allStatistics) {
+      long applied = stats.getMessagesApplied();
+      double meanApplyMicros = (applied == 0) ? 0 : stats.getTotalApplyNanos() / 1000.0 / applied;
+      source.sendFeedback(new StringTextComponent(stats.getMessageTypeName() + ":"), false);
+      source.sendFeedback(new StringTextComponent(String.format("  sent %d (%d bytes), received %d (%d bytes)",
+              stats.getMessagesSent(), stats.getBytesSent(), stats.getMessagesReceived(), stats.getBytesReceived())),
+              false);
+      source.sendFeedback(new StringTextComponent(String.format("  applied %d, mean %.1f us, 50%% < %d us, 99%% < %d us",
+              applied, meanApplyMicros,
+              stats.getApplyTimePercentileMicros(0.50), stats.getApplyTimePercentileMicros(0.99))),
+              false);
+    }
+    source.sendFeedback(new StringTextComponent("CSV dump is " + (MessageStatistics.isCsvDumpEnabled() ? "on" : "off")),
+                        false);
+    return allStatistics.size();
+  }
+
+  static int resetStatistics(CommandContext<CommandSource> commandContext) {
+    MessageStatistics.resetAll();
+    commandContext.getSource().sendFeedback(new StringTextComponent("Message statistics reset"), false);
+    return 1;
+  }
+
+  static int setCsvDump(CommandContext<CommandSource> commandContext) {
+    boolean enabled = BoolArgumentType.getBool(commandContext, "enabled");
+    MessageStatistics.setCsvDumpEnabled(enabled);
+    commandContext.getSource().sendFeedback(new StringTextComponent("CSV dump is " + (enabled ? "on" : "off")), false);
+    return 1;
+  }
+}
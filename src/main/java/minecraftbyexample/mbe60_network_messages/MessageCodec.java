@@ -0,0 +1,33 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.network.PacketBuffer;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * The encoder and decoder used to convert a message to / from bytes, in the form expected by
+ *   SimpleChannel.registerMessage.
+ * A message class can have several codecs, eg one for each protocol version (see MessageCodecs).
+ * @param <MSG> the message class
+ */
+public class MessageCodec<MSG> {
+
+  public MessageCodec(BiConsumer<MSG, PacketBuffer> encoder, Function<PacketBuffer, MSG> decoder) {
+    this.encoder = encoder;
+    this.decoder = decoder;
+  }
+
+  public BiConsumer<MSG, PacketBuffer> getEncoder() {
+    return encoder;
+  }
+
+  public Function<PacketBuffer, MSG> getDecoder() {
+    return decoder;
+  }
+
+  private final BiConsumer<MSG, PacketBuffer> encoder;
+  private final Function<PacketBuffer, MSG> decoder;
+}
@@ -0,0 +1,42 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Holds the codec for each message class, for each protocol version.
+ * This lets the message format change without changing the message classes or handlers: register a new codec under a
+ *   new protocol version, then change StartupCommon.MESSAGE_PROTOCOL_VERSION.  The old codecs can stay registered,
+ *   for example to build a version of the mod which can still talk to older clients and servers.
+ *
+ * The client and server must both use the same protocol version: the SimpleChannel checks this when the client
+ *   connects (see isThisProtocolAcceptedByClient / isThisProtocolAcceptedByServer).
+ */
+public class MessageCodecs {
+
+  public static <MSG> void register(String protocolVersion, Class<MSG> messageClass, MessageCodec<MSG> codec) {
+    Map<Class<?>, MessageCodec<?>> codecsForThisVersion = codecs.computeIfAbsent(protocolVersion, k -> new HashMap<>());
+    if (codecsForThisVersion.containsKey(messageClass)) {
+      throw new IllegalArgumentException("Duplicate codec for " + messageClass.getName() + " protocol version " + protocolVersion);
+    }
+    codecsForThisVersion.put(messageClass, codec);
+  }
+
+  /**
+   * Get the codec for the given message class and protocol version
+   * @throws IllegalArgumentException if no codec has been registered
+   */
+  @SuppressWarnings("unchecked")  // register() ensures that the codec matches the class
+  public static <MSG> MessageCodec<MSG> get(String protocolVersion, Class<MSG> messageClass) {
+    Map<Class<?>, MessageCodec<?>> codecsForThisVersion = codecs.get(protocolVersion);
+    MessageCodec<?> codec = (codecsForThisVersion == null) ? null : codecsForThisVersion.get(messageClass);
+    if (codec == null) {
+      throw new IllegalArgumentException("No codec for " + messageClass.getName() + " protocol version " + protocolVersion);
+    }
+    return (MessageCodec<MSG>)codec;
+  }
+
+  private static final Map<String, Map<Class<?>, MessageCodec<?>>> codecs = new HashMap<>();
+}
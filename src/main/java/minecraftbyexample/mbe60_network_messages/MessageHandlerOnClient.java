@@ -11,6 +11,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 
 /**
@@ -27,50 +28,59 @@ public class MessageHandlerOnClient {
   /**
    * Called when a message is received of the appropriate type.
    * CALLED BY THE NETWORK THREAD, NOT THE CLIENT THREAD
+   * The work is split into two stages by the MessagePipeline: prepareMessage (network thread) and processMessage
+   *   (client thread)
    */
   public static void onMessageReceived(final TargetEffectMessageToClient message, Supplier<NetworkEvent.Context> ctxSupplier) {
-    NetworkEvent.Context ctx = ctxSupplier.get();
-    LogicalSide sideReceived = ctx.getDirection().getReceptionSide();
-    ctx.setPacketHandled(true);
+    pipeline.onMessageReceived(message, ctxSupplier);
+  }
 
-    if (sideReceived != LogicalSide.CLIENT) {
-      LOGGER.warn("TargetEffectMessageToClient received on wrong side:" + ctx.getDirection().getReceptionSide());
-      return;
-    }
-    if (!message.isMessageValid()) {
-      LOGGER.warn("TargetEffectMessageToClient was invalid" + message.toString());
-      return;
-    }
+  // This method is called from the network thread, after the pipeline has checked the side and that the message
+  //   is valid.
+  // It chooses the positions of the particles, so that the client thread only needs to spawn them.
+  private static PreparedTargetEffect prepareMessage(TargetEffectMessageToClient message, NetworkEvent.Context ctx) {
     // we know for sure that this handler is only used on the client side, so it is ok to assume
     //  that the ctx handler is a client, and that Minecraft exists.
     // Packets received on the server side must be handled differently!  See MessageHandlerOnServer
 
-    Optional<ClientWorld> clientWorld = LogicalSidedProvider.CLIENTWORLD.get(sideReceived);
+    Optional<ClientWorld> clientWorld = LogicalSidedProvider.CLIENTWORLD.get(LogicalSide.CLIENT);
     if (!clientWorld.isPresent()) {
       LOGGER.warn("TargetEffectMessageToClient context could not provide a ClientWorld.");
-      return;
+      return null;
     }
 
-    // This code creates a new task which will be executed by the client during the next tick
-    //  In this case, the task is to call messageHandlerOnClient.processMessage(worldclient, message)
-    ctx.enqueueWork(() -> processMessage(clientWorld.get(), message));
+    // There may be several network threads, so use ThreadLocalRandom.
+    Random random = ThreadLocalRandom.current();
+    final int NUMBER_OF_PARTICLES = 100;
+    final double HORIZONTAL_SPREAD = 1.5;
+    Vector3d targetCoordinates = message.getTargetCoordinates();
+    double [] particlePositions = new double[NUMBER_OF_PARTICLES * 3];  // x, y, z for each particle
+    for (int i = 0; i < NUMBER_OF_PARTICLES; ++i) {
+      particlePositions[3 * i] = targetCoordinates.x + (2*random.nextDouble() - 1) * HORIZONTAL_SPREAD;
+      particlePositions[3 * i + 1] = targetCoordinates.y;
+      particlePositions[3 * i + 2] = targetCoordinates.z + (2*random.nextDouble() - 1) * HORIZONTAL_SPREAD;
+    }
+    return new PreparedTargetEffect(clientWorld.get(), particlePositions);
   }
 
   // This message is called from the Client thread.
-  //   It spawns a number of Particle particles at the target location within a short range around the target location
-  private static void processMessage(ClientWorld worldClient, TargetEffectMessageToClient message)
+  //   It spawns the Particles at the positions chosen by prepareMessage
+  private static void processMessage(PreparedTargetEffect preparedTargetEffect)
   {
-    Random random = new Random();
-    final int NUMBER_OF_PARTICLES = 100;
-    final double HORIZONTAL_SPREAD = 1.5;
-    for (int i = 0; i < NUMBER_OF_PARTICLES; ++i) {
-      Vector3d targetCoordinates = message.getTargetCoordinates();
-      double spawnXpos = targetCoordinates.x + (2*random.nextDouble() - 1) * HORIZONTAL_SPREAD;
-      double spawnYpos = targetCoordinates.y;
-      double spawnZpos = targetCoordinates.z + (2*random.nextDouble() - 1) * HORIZONTAL_SPREAD;
-      worldClient.addParticle(ParticleTypes.INSTANT_EFFECT, spawnXpos, spawnYpos, spawnZpos, 0, 0, 0);
+    double [] particlePositions = preparedTargetEffect.particlePositions;
+    for (int i = 0; i < particlePositions.length; i += 3) {
+      preparedTargetEffect.clientWorld.addParticle(ParticleTypes.INSTANT_EFFECT,
+              particlePositions[i], particlePositions[i + 1], particlePositions[i + 2], 0, 0, 0);
     }
-    return;
+  }
+
+  private static class PreparedTargetEffect {
+    PreparedTargetEffect(ClientWorld clientWorld, double [] particlePositions) {
+      this.clientWorld = clientWorld;
+      this.particlePositions = particlePositions;
+    }
+    final ClientWorld clientWorld;
+    final double [] particlePositions;
   }
 
   public static boolean isThisProtocolAcceptedByClient(String protocolVersion) {
@@ -78,4 +88,8 @@ public class MessageHandlerOnClient {
   }
 
   private static final Logger LOGGER = LogManager.getLogger();
+
+  private static final MessagePipeline<TargetEffectMessageToClient, PreparedTargetEffect> pipeline =
+          new MessagePipeline<>(TargetEffectMessageToClient.class, LogicalSide.CLIENT, TargetEffectMessageToClient::isMessageValid,
+                                MessageHandlerOnClient::prepareMessage, MessageHandlerOnClient::processMessage);
 }
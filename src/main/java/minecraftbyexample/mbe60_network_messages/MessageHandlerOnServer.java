@@ -1,28 +1,12 @@
 package minecraftbyexample.mbe60_network_messages;
 
-import net.minecraft.entity.Entity;
-import net.minecraft.entity.EntityType;
-import net.minecraft.entity.SpawnReason;
-import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
-import net.minecraft.entity.projectile.FireballEntity;
-import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.util.RegistryKey;
-import net.minecraft.util.SoundEvents;
-import net.minecraft.util.SoundCategory;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.vector.Vector3d;
-import net.minecraft.util.text.ITextComponent;
-import net.minecraft.world.DimensionType;
-import net.minecraft.world.World;
-import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.network.NetworkEvent;
-import net.minecraftforge.fml.network.PacketDistributor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 
 /**
@@ -31,6 +15,8 @@ import java.util.function.Supplier;
  * calls any vanilla objects, it may cause crashes or subtle problems that are hard to reproduce.
  * Your onMessage handler should create a task which is later executed by the client or server thread as
  * appropriate - see below.
+ * The MessagePipeline does as much of the work as possible on the network thread, and only the final step on the
+ * server thread.
  * User: The Grey Ghost
  * Date: 15/01/2015
  */
@@ -39,22 +25,18 @@ public class MessageHandlerOnServer {
   /**
    * Called when a message is received of the appropriate type.
    * CALLED BY THE NETWORK THREAD, NOT THE SERVER THREAD
+   * The work is split into two stages by the MessagePipeline: prepareMessage (network thread) and processMessage
+   *   (server thread)
    * @param message The message
    */
   public static void onMessageReceived(final AirstrikeMessageToServer message, Supplier<NetworkEvent.Context> ctxSupplier) {
-    NetworkEvent.Context ctx = ctxSupplier.get();
-    LogicalSide sideReceived = ctx.getDirection().getReceptionSide();
-    ctx.setPacketHandled(true);
-
-    if (sideReceived != LogicalSide.SERVER) {
-      LOGGER.warn("AirstrikeMessageToServer received on wrong side:" + ctx.getDirection().getReceptionSide());
-      return;
-    }
-    if (!message.isMessageValid()) {
-      LOGGER.warn("AirstrikeMessageToServer was invalid" + message.toString());
-      return;
-    }
+    pipeline.onMessageReceived(message, ctxSupplier);
+  }
 
+  // This method is called from the network thread, after the pipeline has checked the side and that the message
+  //   is valid.
+  // It does everything that doesn't need to touch the world, and returns null if the message should be dropped.
+  private static PreparedAirstrike prepareMessage(AirstrikeMessageToServer message, NetworkEvent.Context ctx) {
     // we know for sure that this handler is only used on the server side, so it is ok to assume
     //  that the ctx handler is a serverhandler, and that ServerPlayerEntity exists
     // Packets received on the client side must be handled differently!  See MessageHandlerOnClient
@@ -62,20 +44,28 @@ public class MessageHandlerOnServer {
     final ServerPlayerEntity sendingPlayer = ctx.getSender();
     if (sendingPlayer == null) {
       LOGGER.warn("EntityPlayerMP was null when AirstrikeMessageToServer was received");
+      return null;
     }
 
-    // This code creates a new task which will be executed by the server during the next tick,
-    //  In this case, the task is to call messageHandlerOnServer.processMessage(message, sendingPlayer)
-    ctx.enqueueWork(() -> processMessage(message, sendingPlayer));
+    // Drop the message here, on the network thread, if the player is calling airstrikes too quickly.  That way
+    //   a client spamming airstrikes can't flood the server thread with tasks.
+    if (!AirstrikeRateLimiter.tryAcquire(sendingPlayer.getUniqueID())) {
+      return null;
+    }
+
+    // Choose where to release the projectiles.  There may be several network threads, so use ThreadLocalRandom.
+    AirstrikeRequest request = AirstrikeRequest.create(message.getProjectile(), message.getTargetCoordinates(),
+                                                       ThreadLocalRandom.current());
+    return new PreparedAirstrike(sendingPlayer, request);
   }
 
   // This message is called from the Server thread.
-  //   It spawns a random number of the given projectile at a position above the target location
-  static void processMessage(AirstrikeMessageToServer message, ServerPlayerEntity sendingPlayer)
+  //   It queues the airstrike; at the end of the tick, AirstrikeCoalescer merges it with any other airstrikes nearby,
+  //   then spawns the projectiles above the target location and tells the clients to draw the target effect
+  private static void processMessage(PreparedAirstrike preparedAirstrike)
   {
-    // 1) First send a message to all other clients who are in the same dimension, to tell them to render a "target"
-    //      effect on the ground
-    // There are a number of other PacketDistributor types defined for other cases, for example
+    // Sending a message to the clients:
+    // There are a number of PacketDistributor types defined for different cases, for example
     // Sending to one player
     //    simpleChannel.send(PacketDistributor.PLAYER.with(playerMP), new MyMessage());
     //
@@ -84,63 +74,23 @@ public class MessageHandlerOnServer {
     //
     // Sending to all connected players
     //    simpleChannel.send(PacketDistributor.ALL.noArg(), new MyMessage());
+    //
+    // Sending to all players in a dimension
+    //    simpleChannel.send(PacketDistributor.DIMENSION.with(() -> dimension), new MyMessage());
+    //
+    // Sending to all players close enough to see a position (see AirstrikeCoalescer)
+    //    PlayerInterestIndex.sendToPlayersInViewDistance(simpleChannel, serverWorld, position, new MyMessage());
 
-    TargetEffectMessageToClient msg = new TargetEffectMessageToClient(message.getTargetCoordinates());
-    RegistryKey<World> playerDimension = sendingPlayer.func_241141_L_();  // func_241141_L_ is getPlayerDimension
-    StartupCommon.simpleChannel.send(PacketDistributor.DIMENSION.with(() -> playerDimension), msg);
-
-    // 2) Next: spawn the projectiles on the server
-    Random random = new Random();
-    final int MAX_NUMBER_OF_PROJECTILES = 20;
-    final int MIN_NUMBER_OF_PROJECTILES = 2;
-    int numberOfProjectiles = MIN_NUMBER_OF_PROJECTILES + random.nextInt(MAX_NUMBER_OF_PROJECTILES - MIN_NUMBER_OF_PROJECTILES + 1);
-    for (int i = 0; i < numberOfProjectiles; ++i) {
-      ServerWorld world = sendingPlayer.getServerWorld();
-
-      final double MAX_HORIZONTAL_SPREAD = 4.0;
-      final double MAX_VERTICAL_SPREAD = 20.0;
-      final double RELEASE_HEIGHT_ABOVE_TARGET = 40;
-      double xOffset = (random.nextDouble() * 2 - 1) * MAX_HORIZONTAL_SPREAD;
-      double zOffset = (random.nextDouble() * 2 - 1) * MAX_HORIZONTAL_SPREAD;
-      double yOffset = RELEASE_HEIGHT_ABOVE_TARGET + (random.nextDouble() * 2 - 1) * MAX_VERTICAL_SPREAD;
-      Vector3d releasePoint = message.getTargetCoordinates().add(xOffset, yOffset, zOffset);
-
-      EntityType entityType = message.getProjectile().getEntityType();
-
-      CompoundNBT spawnNBT = null;
-      ITextComponent customName = null;
-      PlayerEntity spawningPlayer = null;
-      BlockPos spawnLocation = new BlockPos(releasePoint);
-      boolean SPAWN_ON_TOP_OF_GIVEN_BLOCK_LOCATION = false;  // not 100% sure of what this does...
-      boolean SEARCH_DOWN_WHEN_PLACED_ON_TOP_OF_GIVEN_BLOCK_LOCATION = false; // not 100% sure of what this does...
-      Entity spawnedEntity = entityType.spawn(world, spawnNBT, customName, spawningPlayer, spawnLocation,
-              SpawnReason.SPAWN_EGG,
-              SPAWN_ON_TOP_OF_GIVEN_BLOCK_LOCATION, SEARCH_DOWN_WHEN_PLACED_ON_TOP_OF_GIVEN_BLOCK_LOCATION);
-
-      // special cases handled by switch() - clumsy method for purposes of simplicity only...
-      switch (message.getProjectile()) {
-        case FIREBALL: {
-          FireballEntity fireballEntity = (FireballEntity)spawnedEntity;
-          final double Y_ACCELERATION = -0.5;
-          fireballEntity.accelerationX = 0.0;
-          fireballEntity.accelerationY = Y_ACCELERATION;
-          fireballEntity.accelerationZ = 0.0;
-          break;
-        }
-        default: {
-          break;
-        }
-      }
-
+    AirstrikeCoalescer.addRequest(preparedAirstrike.sendingPlayer.getServerWorld(), preparedAirstrike.request);
+  }
 
-      // 3: Play a thunder sound using the server method (sends to all clients, so all clients hear it)
-      final float VOLUME = 10000.0F;
-      final float PITCH = 0.8F + random.nextFloat() * 0.2F;
-      PlayerEntity playerCausingSound = null;
-      world.playSound(playerCausingSound, releasePoint.x, releasePoint.y, releasePoint.z,
-                      SoundEvents.ENTITY_LIGHTNING_BOLT_THUNDER, SoundCategory.WEATHER, VOLUME, PITCH);
+  private static class PreparedAirstrike {
+    PreparedAirstrike(ServerPlayerEntity sendingPlayer, AirstrikeRequest request) {
+      this.sendingPlayer = sendingPlayer;
+      this.request = request;
     }
-    return;
+    final ServerPlayerEntity sendingPlayer;
+    final AirstrikeRequest request;
   }
 
   public static boolean isThisProtocolAcceptedByServer(String protocolVersion) {
@@ -148,4 +98,8 @@ public class MessageHandlerOnServer {
   }
 
   private static final Logger LOGGER = LogManager.getLogger();
+
+  private static final MessagePipeline<AirstrikeMessageToServer, PreparedAirstrike> pipeline =
+          new MessagePipeline<>(AirstrikeMessageToServer.class, LogicalSide.SERVER, AirstrikeMessageToServer::isMessageValid,
+                                MessageHandlerOnServer::prepareMessage, MessageHandlerOnServer::processMessage);
 }
@@ -0,0 +1,99 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.network.NetworkEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A message handler which splits the processing of each message into two stages:
+ * 1) prepare: runs on the network thread as soon as the message arrives.  This is for work which doesn't touch the
+ *    world - checking the message, rate limiting, and precalculating anything expensive (eg random spawn positions).
+ *    It returns the "work" to be applied, or null to drop the message.
+ * 2) apply: runs on the client or server thread during the next tick.  This is only the work which changes the
+ *    world, using the results from the prepare stage.
+ * That way, a burst of messages costs the client/server thread as little as possible.
+ *
+ * The pipeline also does the checks which every handler needs: that the message arrived on the correct side, and that
+ *   it was decoded correctly.  It records how long the apply stage took in the MessageStatistics.
+ *
+ * Usage: create one MessagePipeline for each message type, and register pipeline::onMessageReceived as the handler.
+ * The prepare stage may be called by several network threads at once, so it mustn't change any shared state unless
+ *   that state is thread-safe (for example - use ThreadLocalRandom instead of a shared Random)
+ */
+public class MessagePipeline<MSG, WORK> {
+
+  /**
+   * @param messageClass the class of the message, for logging and statistics
+   * @param receptionSide the side that the message should be received on
+   * @param messageValidator returns false if the message wasn't decoded correctly
+   * @param preparer called on the network thread
+   * @param applier called on the client or server thread
+   */
+  public MessagePipeline(Class<MSG> messageClass, LogicalSide receptionSide, Predicate<MSG> messageValidator,
+                         Preparer<MSG, WORK> preparer, Applier<WORK> applier) {
+    this.messageClass = messageClass;
+    this.receptionSide = receptionSide;
+    this.messageValidator = messageValidator;
+    this.preparer = preparer;
+    this.applier = applier;
+  }
+
+  /**
+   * Called when a message is received of the appropriate type.
+   * CALLED BY THE NETWORK THREAD, NOT THE CLIENT OR SERVER THREAD
+   */
+  public void onMessageReceived(MSG message, Supplier<NetworkEvent.Context> ctxSupplier) {
+    NetworkEvent.Context ctx = ctxSupplier.get();
+    LogicalSide sideReceived = ctx.getDirection().getReceptionSide();
+    ctx.setPacketHandled(true);
+
+    if (sideReceived != receptionSide) {
+      LOGGER.warn(messageClass.getSimpleName() + " received on wrong side:" + sideReceived);
+      return;
+    }
+    if (!messageValidator.test(message)) {
+      LOGGER.warn(messageClass.getSimpleName() + " was invalid" + message.toString());
+      return;
+    }
+
+    WORK work = preparer.prepare(message, ctx);
+    if (work == null) return;
+
+    ctx.enqueueWork(() -> {
+      long startNanos = System.nanoTime();
+      applier.apply(work);
+      MessageStatistics.recordApplyTime(messageClass, System.nanoTime() - startNanos);
+    });
+  }
+
+  @FunctionalInterface
+  public interface Preparer<MSG, WORK> {
+    /**
+     * Called on the network thread
+     * @return the work to apply on the client or server thread, or null to drop the message
+     */
+    WORK prepare(MSG message, NetworkEvent.Context ctx);
+  }
+
+  @FunctionalInterface
+  public interface Applier<WORK> {
+    /**
+     * Called on the client or server thread
+     */
+    void apply(WORK work);
+  }
+
+  private final Class<MSG> messageClass;
+  private final LogicalSide receptionSide;
+  private final Predicate<MSG> messageValidator;
+  private final Preparer<MSG, WORK> preparer;
+  private final Applier<WORK> applier;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
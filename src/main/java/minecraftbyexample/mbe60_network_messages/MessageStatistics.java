@@ -0,0 +1,182 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import minecraftbyexample.usefultools.debugging.DataLogger;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Statistics for each type of message on the simpleChannel:
+ * 1) the number of messages sent (encoded) and received (decoded), and their size in bytes
+ * 2) how long the apply step of each message took on the client/server thread, as a histogram
+ *
+ * The sizes are measured by wrapping the encoder and decoder when the message is registered (see countEncoded and
+ *   countDecoded); the apply time is recorded by MessagePipeline.
+ * The statistics can be shown with the mbenetstats command, and written periodically to a CSV file using DataLogger
+ *   (mbenetstats csv true).  Each line of the file is:
+ *   time (ms), message type, sent, bytes sent, received, bytes received, applied, total apply time (ns), histogram buckets...
+ *
+ * In single player, the client and the server share these statistics.
+ * Encoding and decoding happen on the network threads, so the counters are all thread-safe.
+ * Don't forget to register this class on the MinecraftForge.EVENT_BUS (for the CSV dump)
+ */
+public class MessageStatistics {
+
+  /**
+   * Wrap the given encoder so that it counts the messages and bytes sent
+   */
+  public static <MSG> BiConsumer<MSG, PacketBuffer> countEncoded(Class<MSG> messageClass, BiConsumer<MSG, PacketBuffer> encoder) {
+    MessageTypeStatistics messageTypeStatistics = forMessageType(messageClass);
+    return (message, buf) -> {
+      int startIndex = buf.writerIndex();
+      encoder.accept(message, buf);
+      messageTypeStatistics.messagesSent.incrementAndGet();
+      messageTypeStatistics.bytesSent.addAndGet(buf.writerIndex() - startIndex);
+    };
+  }
+
+  /**
+   * Wrap the given decoder so that it counts the messages and bytes received
+   */
+  public static <MSG> Function<PacketBuffer, MSG> countDecoded(Class<MSG> messageClass, Function<PacketBuffer, MSG> decoder) {
+    MessageTypeStatistics messageTypeStatistics = forMessageType(messageClass);
+    return buf -> {
+      int startIndex = buf.readerIndex();
+      MSG message = decoder.apply(buf);
+      messageTypeStatistics.messagesReceived.incrementAndGet();
+      messageTypeStatistics.bytesReceived.addAndGet(buf.readerIndex() - startIndex);
+      return message;
+    };
+  }
+
+  /**
+   * Record how long the apply step of a message took on the client/server thread
+   */
+  public static void recordApplyTime(Class<?> messageClass, long nanoseconds) {
+    forMessageType(messageClass).recordApplyTime(nanoseconds);
+  }
+
+  public static MessageTypeStatistics forMessageType(Class<?> messageClass) {
+    return allStatistics.computeIfAbsent(messageClass, k -> new MessageTypeStatistics(messageClass.getSimpleName()));
+  }
+
+  public static List<MessageTypeStatistics> getAllStatistics() {
+    return new ArrayList<>(allStatistics.values());
+  }
+
+  public static void resetAll() {
+    for (MessageTypeStatistics messageTypeStatistics : allStatistics.values()) {
+      messageTypeStatistics.reset();
+    }
+  }
+
+  public static void setCsvDumpEnabled(boolean enabled) {
+    csvDumpEnabled = enabled;
+  }
+
+  public static boolean isCsvDumpEnabled() {
+    return csvDumpEnabled;
+  }
+
+  @SubscribeEvent
+  public static void onServerTick(TickEvent.ServerTickEvent event) {
+    if (event.phase != TickEvent.Phase.END || !csvDumpEnabled) return;
+    if (++ticksSinceLastDump < CSV_DUMP_INTERVAL_TICKS) return;
+    ticksSinceLastDump = 0;
+    for (MessageTypeStatistics messageTypeStatistics : allStatistics.values()) {
+      DataLogger.logData(CSV_DATALOG_NAME, messageTypeStatistics.toCsv());
+    }
+  }
+
+  public static class MessageTypeStatistics {
+    MessageTypeStatistics(String messageTypeName) {
+      this.messageTypeName = messageTypeName;
+    }
+
+    public String getMessageTypeName() {return messageTypeName;}
+    public long getMessagesSent() {return messagesSent.get();}
+    public long getBytesSent() {return bytesSent.get();}
+    public long getMessagesReceived() {return messagesReceived.get();}
+    public long getBytesReceived() {return bytesReceived.get();}
+    public long getMessagesApplied() {return messagesApplied.get();}
+    public long getTotalApplyNanos() {return totalApplyNanos.get();}
+
+    /**
+     * Estimate a percentile of the apply time, from the histogram
+     * @param percentile eg 0.99 for the 99th percentile
+     * @return the upper limit of the histogram bucket which contains the percentile, in microseconds, or 0 if none
+     */
+    public long getApplyTimePercentileMicros(double percentile) {
+      long total = messagesApplied.get();
+      if (total == 0) return 0;
+      long countSoFar = 0;
+      for (int i = 0; i < NUMBER_OF_HISTOGRAM_BUCKETS; ++i) {
+        countSoFar += applyTimeHistogram.get(i);
+        if (countSoFar >= percentile * total) return 1L << i;
+      }
+      return 1L << (NUMBER_OF_HISTOGRAM_BUCKETS - 1);
+    }
+
+    // bucket 0 = less than 1 us; bucket i = from 2^(i-1) to 2^i us; the last bucket holds everything bigger
+    void recordApplyTime(long nanoseconds) {
+      long microseconds = nanoseconds / 1000;
+      int bucket = 64 - Long.numberOfLeadingZeros(microseconds);
+      applyTimeHistogram.incrementAndGet(Math.min(bucket, NUMBER_OF_HISTOGRAM_BUCKETS - 1));
+      messagesApplied.incrementAndGet();
+      totalApplyNanos.addAndGet(nanoseconds);
+    }
+
+    void reset() {
+      messagesSent.set(0);
+      bytesSent.set(0);
+      messagesReceived.set(0);
+      bytesReceived.set(0);
+      messagesApplied.set(0);
+      totalApplyNanos.set(0);
+      for (int i = 0; i < NUMBER_OF_HISTOGRAM_BUCKETS; ++i) {
+        applyTimeHistogram.set(i, 0);
+      }
+    }
+
+    String toCsv() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(messageTypeName).append(", ").append(messagesSent.get()).append(", ").append(bytesSent.get())
+        .append(", ").append(messagesReceived.get()).append(", ").append(bytesReceived.get())
+        .append(", ").append(messagesApplied.get()).append(", ").append(totalApplyNanos.get());
+      for (int i = 0; i < NUMBER_OF_HISTOGRAM_BUCKETS; ++i) {
+        sb.append(", ").append(applyTimeHistogram.get(i));
+      }
+      return sb.toString();
+    }
+
+    private final String messageTypeName;
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong messagesApplied = new AtomicLong();
+    private final AtomicLong totalApplyNanos = new AtomicLong();
+    private final AtomicLongArray applyTimeHistogram = new AtomicLongArray(NUMBER_OF_HISTOGRAM_BUCKETS);
+  }
+
+  public static final int NUMBER_OF_HISTOGRAM_BUCKETS = 24;  // the last bucket starts at about 4 seconds
+
+  private static final String CSV_DATALOG_NAME = "mbe60_message_statistics";
+  private static final int CSV_DUMP_INTERVAL_TICKS = 20 * 60;  // once per minute
+
+  private static volatile boolean csvDumpEnabled = false;
+  private static int ticksSinceLastDump = 0;
+
+  private static final Map<Class<?>, MessageTypeStatistics> allStatistics = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,27 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+
+import java.util.Random;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A "recipe" which expands one particle effect (eg an explosion of smoke) into the individual particles, on the client.
+ * See ParticleRecipes.
+ */
+@FunctionalInterface
+public interface ParticleRecipe {
+  /**
+   * Spawn the particles for one effect.  Called on the client thread.
+   * Anything random must be chosen using the given random, which is seeded by the server, so that every client spawns
+   *   exactly the same particles.
+   * @param world the client world
+   * @param position the position of the effect
+   * @param random seeded by the server
+   * @param parameters the meaning depends on the recipe; the recipe should check that they are sensible, because they
+   *                   come from the network
+   */
+  void spawnParticles(World world, Vector3d position, Random random, float [] parameters);
+}
@@ -0,0 +1,78 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.client.world.ClientWorld;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.LogicalSidedProvider;
+import net.minecraftforge.fml.network.NetworkEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Processes the ParticleRecipeMessageToClient once it has arrived on the client: looks up the ParticleRecipe for each
+ *   recipe in the message, then spawns its particles using a Random with the seed from the server.
+ * See MessageHandlerOnClient for more information about the threading.
+ */
+public class ParticleRecipeMessageHandlerOnClient {
+
+  /**
+   * Called when a message is received of the appropriate type.
+   * CALLED BY THE NETWORK THREAD, NOT THE CLIENT THREAD
+   */
+  public static void onMessageReceived(final ParticleRecipeMessageToClient message, Supplier<NetworkEvent.Context> ctxSupplier) {
+    pipeline.onMessageReceived(message, ctxSupplier);
+  }
+
+  // Called from the network thread: look up the recipes, so that the client thread only needs to spawn the particles
+  private static PreparedRecipes prepareMessage(ParticleRecipeMessageToClient message, NetworkEvent.Context ctx) {
+    Optional<ClientWorld> clientWorld = LogicalSidedProvider.CLIENTWORLD.get(LogicalSide.CLIENT);
+    if (!clientWorld.isPresent()) {
+      LOGGER.warn("ParticleRecipeMessageToClient context could not provide a ClientWorld.");
+      return null;
+    }
+
+    PreparedRecipes preparedRecipes = new PreparedRecipes(clientWorld.get());
+    for (ParticleRecipeMessageToClient.Recipe recipe : message.getRecipes()) {
+      ParticleRecipe particleRecipe = ParticleRecipes.get(recipe.getRecipeID());
+      if (particleRecipe == null) {
+        LOGGER.warn("ParticleRecipeMessageToClient contained an unknown recipe ID:" + recipe.getRecipeID());
+        continue;
+      }
+      preparedRecipes.particleRecipes.add(particleRecipe);
+      preparedRecipes.recipes.add(recipe);
+    }
+    return preparedRecipes.recipes.isEmpty() ? null : preparedRecipes;
+  }
+
+  // This message is called from the Client thread.
+  private static void processMessage(PreparedRecipes preparedRecipes) {
+    for (int i = 0; i < preparedRecipes.recipes.size(); ++i) {
+      ParticleRecipeMessageToClient.Recipe recipe = preparedRecipes.recipes.get(i);
+      Random random = new Random(recipe.getSeed());
+      preparedRecipes.particleRecipes.get(i).spawnParticles(preparedRecipes.clientWorld, recipe.getPosition(), random,
+                                                            recipe.getParameters());
+    }
+  }
+
+  private static class PreparedRecipes {
+    PreparedRecipes(ClientWorld clientWorld) {
+      this.clientWorld = clientWorld;
+    }
+    final ClientWorld clientWorld;
+    final List<ParticleRecipe> particleRecipes = new ArrayList<>();
+    final List<ParticleRecipeMessageToClient.Recipe> recipes = new ArrayList<>();
+  }
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  private static final MessagePipeline<ParticleRecipeMessageToClient, PreparedRecipes> pipeline =
+          new MessagePipeline<>(ParticleRecipeMessageToClient.class, LogicalSide.CLIENT, ParticleRecipeMessageToClient::isMessageValid,
+                                ParticleRecipeMessageHandlerOnClient::prepareMessage, ParticleRecipeMessageHandlerOnClient::processMessage);
+}
@@ -0,0 +1,136 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.vector.Vector3d;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * This Network Message is sent from the server to a client, containing one or more particle recipes to spawn.
+ * Each recipe is the ID of a ParticleRecipe, its position, a random seed, and a few parameters; the client expands
+ *   each recipe into the individual particles (see ParticleRecipes and ParticleRecipeMessageHandlerOnClient).
+ * The positions use the CompactCoordinates, so a recipe typically takes 15 - 20 bytes plus 4 per parameter.
+ */
+public class ParticleRecipeMessageToClient
+{
+  public static class Recipe {
+    public Recipe(int recipeID, Vector3d position, int seed, float [] parameters) {
+      if (parameters.length > MAX_PARAMETERS) throw new IllegalArgumentException("Too many parameters:" + parameters.length);
+      this.recipeID = recipeID;
+      this.position = position;
+      this.seed = seed;
+      this.parameters = parameters;
+    }
+
+    public int getRecipeID() {return recipeID;}
+    public Vector3d getPosition() {return position;}
+    public int getSeed() {return seed;}
+    public float [] getParameters() {return parameters.clone();}
+
+    private final int recipeID;
+    private final Vector3d position;
+    private final int seed;
+    private final float [] parameters;
+  }
+
+  public ParticleRecipeMessageToClient(List<Recipe> i_recipes)
+  {
+    if (i_recipes.size() > MAX_RECIPES_PER_MESSAGE) throw new IllegalArgumentException("Too many recipes:" + i_recipes.size());
+    recipes = i_recipes;
+    messageIsValid = true;
+  }
+
+  public List<Recipe> getRecipes() {
+    return Collections.unmodifiableList(recipes);
+  }
+
+  public boolean isMessageValid() {
+    return messageIsValid;
+  }
+
+  // for use by the message handler only.
+  public ParticleRecipeMessageToClient()
+  {
+    recipes = new ArrayList<>();
+    messageIsValid = false;
+  }
+
+  /**
+   * Called by the network code once it has received the message bytes over the network.
+   * Used to read the ByteBuf contents into your member variables
+   * @param buf
+   */
+  public static ParticleRecipeMessageToClient decode(PacketBuffer buf)
+  {
+    ParticleRecipeMessageToClient retval = new ParticleRecipeMessageToClient();
+    try {
+      int recipeCount = buf.readVarInt();
+      if (recipeCount < 0 || recipeCount > MAX_RECIPES_PER_MESSAGE) {
+        LOGGER.warn("Invalid recipe count in ParticleRecipeMessageToClient: " + recipeCount);
+        return retval;
+      }
+      for (int i = 0; i < recipeCount; ++i) {
+        int recipeID = buf.readVarInt();
+        Vector3d position = CompactCoordinates.read(buf);
+        int seed = buf.readInt();
+        int parameterCount = buf.readUnsignedByte();
+        if (parameterCount > MAX_PARAMETERS) {
+          LOGGER.warn("Invalid parameter count in ParticleRecipeMessageToClient: " + parameterCount);
+          return retval;
+        }
+        float [] parameters = new float[parameterCount];
+        for (int j = 0; j < parameterCount; ++j) {
+          parameters[j] = buf.readFloat();
+        }
+        retval.recipes.add(new Recipe(recipeID, position, seed, parameters));
+      }
+    } catch (RuntimeException e) {
+      // not just IllegalArgumentException and IndexOutOfBoundsException: readVarInt() throws a plain RuntimeException
+      //   if the varint is too long
+      LOGGER.warn("Exception while reading ParticleRecipeMessageToClient: " + e);
+      return retval;
+    }
+    retval.messageIsValid = true;
+    return retval;
+  }
+
+  /**
+   * Called by the network code.
+   * Used to write the contents of your message member variables into the ByteBuf, ready for transmission over the network.
+   * @param buf
+   */
+  public void encode(PacketBuffer buf)
+  {
+    if (!messageIsValid) return;
+    buf.writeVarInt(recipes.size());
+    for (Recipe recipe : recipes) {
+      buf.writeVarInt(recipe.recipeID);
+      CompactCoordinates.write(buf, recipe.position);
+      buf.writeInt(recipe.seed);
+      buf.writeByte(recipe.parameters.length);
+      for (float parameter : recipe.parameters) {
+        buf.writeFloat(parameter);
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ParticleRecipeMessageToClient[recipes=" + recipes.size() + "]";
+  }
+
+  public static final int MAX_RECIPES_PER_MESSAGE = 1024;  // if there are more than this, split into multiple messages
+  public static final int MAX_PARAMETERS = 8;
+
+  private final List<Recipe> recipes;
+  private boolean messageIsValid;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
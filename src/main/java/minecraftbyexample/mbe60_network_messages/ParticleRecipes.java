@@ -0,0 +1,88 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.fml.network.PacketDistributor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Lets the server create particle effects on the clients by sending a "recipe" instead of the particles themselves:
+ *   the recipe ID, the position, a random seed, and a few parameters.  The client looks up the ParticleRecipe for the
+ *   ID, and uses it to spawn the particles; the random numbers come from the seed, so every client spawns exactly the
+ *   same particles.
+ * However complicated the effect is, it only costs about 20 bytes.
+ *
+ * Usage:
+ * 1) During setup, register the recipe with a unique ID (on both sides, eg in StartupCommon)
+ * 2) On the server, call ParticleRecipes.send(), or if you want to send several effects in one message, use
+ *    ParticleRecipes.createRecipe() for each one, then send(player, recipes).
+ */
+public class ParticleRecipes {
+
+  /**
+   * Register a recipe
+   * @param recipeID a unique ID for the recipe, in the same way as the message IDs (see StartupCommon)
+   */
+  public static void register(int recipeID, ParticleRecipe particleRecipe) {
+    if (recipeID < 0) throw new IllegalArgumentException("Particle recipe ID must not be negative:" + recipeID);
+    if (recipes.putIfAbsent(recipeID, particleRecipe) != null) {
+      throw new IllegalArgumentException("Duplicate particle recipe ID:" + recipeID);
+    }
+  }
+
+  /**
+   * @return the recipe with the given ID, or null if there isn't one.  Thread-safe.
+   */
+  @Nullable
+  public static ParticleRecipe get(int recipeID) {
+    return recipes.get(recipeID);
+  }
+
+  /**
+   * Create a recipe with a new random seed, ready to be sent in a ParticleRecipeMessageToClient.
+   * Server thread only.
+   */
+  public static ParticleRecipeMessageToClient.Recipe createRecipe(int recipeID, Vector3d position, float... parameters) {
+    return new ParticleRecipeMessageToClient.Recipe(recipeID, position, random.nextInt(), parameters);
+  }
+
+  /**
+   * Send a single particle effect to all the players who are close enough to see it.
+   * Server thread only.
+   */
+  public static void send(ServerWorld world, int recipeID, Vector3d position, float... parameters) {
+    ParticleRecipeMessageToClient msg =
+            new ParticleRecipeMessageToClient(Collections.singletonList(createRecipe(recipeID, position, parameters)));
+    PlayerInterestIndex.sendToPlayersInViewDistance(StartupCommon.simpleChannel, world, position, msg);
+  }
+
+  /**
+   * Send several particle effects to one player, in as few messages as possible (see MAX_RECIPES_PER_MESSAGE)
+   * Server thread only.
+   * @param recipes created by createRecipe()
+   */
+  public static void send(ServerPlayerEntity player, List<ParticleRecipeMessageToClient.Recipe> recipes) {
+    final int MAX_RECIPES = ParticleRecipeMessageToClient.MAX_RECIPES_PER_MESSAGE;
+    for (int start = 0; start < recipes.size(); start += MAX_RECIPES) {
+      List<ParticleRecipeMessageToClient.Recipe> recipesForThisMessage =
+              new ArrayList<>(recipes.subList(start, Math.min(start + MAX_RECIPES, recipes.size())));
+      StartupCommon.simpleChannel.send(PacketDistributor.PLAYER.with(() -> player),
+                                       new ParticleRecipeMessageToClient(recipesForThisMessage));
+    }
+  }
+
+  private static final Random random = new Random();
+
+  // looked up by the network thread, so must be thread-safe
+  private static final Map<Integer, ParticleRecipe> recipes = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,112 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.network.PacketDistributor;
+import net.minecraftforge.fml.network.simple.SimpleChannel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Sends positional messages (eg "draw an effect at this spot") only to the players who are close enough to see them,
+ *   instead of to every player in the dimension.
+ * A player can see a position if its chunk is within the server's view distance of the player's chunk; this is the same
+ *   square of chunks that the server sends to the client.
+ *
+ * To find those players quickly, each world has a grid of the players in it: the world is divided into square cells
+ *   of CELL_SIZE_IN_CHUNKS x CELL_SIZE_IN_CHUNKS chunks, and each cell holds the players inside it.  A query only needs
+ *   to look at the cells which overlap the view distance around the position.
+ * The grid is rebuilt lazily, the first time it is queried in each tick.
+ *
+ * Usage: call sendToPlayersInViewDistance instead of simpleChannel.send(PacketDistributor.DIMENSION...)
+ *
+ * Server thread only.  Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class PlayerInterestIndex {
+
+  /**
+   * Send a message to all the players in the world who are close enough to see the given position
+   */
+  public static <MSG> void sendToPlayersInViewDistance(SimpleChannel channel, ServerWorld world, Vector3d position, MSG message) {
+    for (ServerPlayerEntity player : getPlayersInViewDistance(world, position)) {
+      channel.send(PacketDistributor.PLAYER.with(() -> player), message);
+    }
+  }
+
+  /**
+   * @return all the players in the world who are close enough to see the given position
+   */
+  public static List<ServerPlayerEntity> getPlayersInViewDistance(ServerWorld world, Vector3d position) {
+    PlayerGrid playerGrid = getPlayerGrid(world);
+    int viewDistanceChunks = world.getServer().getPlayerList().getViewDistance();
+    int chunkX = ((int)Math.floor(position.x)) >> 4;
+    int chunkZ = ((int)Math.floor(position.z)) >> 4;
+
+    List<ServerPlayerEntity> players = new ArrayList<>();
+    int minCellX = Math.floorDiv(chunkX - viewDistanceChunks, CELL_SIZE_IN_CHUNKS);
+    int maxCellX = Math.floorDiv(chunkX + viewDistanceChunks, CELL_SIZE_IN_CHUNKS);
+    int minCellZ = Math.floorDiv(chunkZ - viewDistanceChunks, CELL_SIZE_IN_CHUNKS);
+    int maxCellZ = Math.floorDiv(chunkZ + viewDistanceChunks, CELL_SIZE_IN_CHUNKS);
+    for (int cellX = minCellX; cellX <= maxCellX; ++cellX) {
+      for (int cellZ = minCellZ; cellZ <= maxCellZ; ++cellZ) {
+        List<ServerPlayerEntity> playersInCell = playerGrid.cells.get(ChunkPos.asLong(cellX, cellZ));
+        if (playersInCell == null) continue;
+        for (ServerPlayerEntity player : playersInCell) {  // the edge cells are only partly within the view distance
+          if (Math.abs(player.chunkCoordX - chunkX) <= viewDistanceChunks
+              && Math.abs(player.chunkCoordZ - chunkZ) <= viewDistanceChunks) {
+            players.add(player);
+          }
+        }
+      }
+    }
+    return players;
+  }
+
+  // the grid holds the world's players, which refer to the world, so the weak key isn't enough to release it
+  @SubscribeEvent
+  public static void onWorldUnload(WorldEvent.Unload event) {
+    playerGrids.remove(event.getWorld());
+  }
+
+  // get the grid for this world, rebuilding it if it wasn't built during this tick
+  private static PlayerGrid getPlayerGrid(ServerWorld world) {
+    long gameTime = world.getGameTime();
+    PlayerGrid playerGrid = playerGrids.get(world);
+    if (playerGrid != null && playerGrid.gameTimeWhenBuilt == gameTime) return playerGrid;
+
+    playerGrid = new PlayerGrid(gameTime);
+    for (ServerPlayerEntity player : world.getPlayers()) {
+      long cellKey = ChunkPos.asLong(Math.floorDiv(player.chunkCoordX, CELL_SIZE_IN_CHUNKS),
+                                     Math.floorDiv(player.chunkCoordZ, CELL_SIZE_IN_CHUNKS));
+      playerGrid.cells.computeIfAbsent(cellKey, k -> new ArrayList<>()).add(player);
+    }
+    playerGrids.put(world, playerGrid);
+    return playerGrid;
+  }
+
+  private static class PlayerGrid {
+    PlayerGrid(long gameTimeWhenBuilt) {
+      this.gameTimeWhenBuilt = gameTimeWhenBuilt;
+    }
+
+    final long gameTimeWhenBuilt;
+    final Map<Long, List<ServerPlayerEntity>> cells = new HashMap<>();  // key = ChunkPos.asLong(cellX, cellZ)
+  }
+
+  // Each cell is 4 x 4 chunks, so a typical view distance of 10 chunks needs at most 7 x 7 cells per query
+  private static final int CELL_SIZE_IN_CHUNKS = 4;
+
+  // Weak keys so that nothing is kept if the world is unloaded.
+  private static final Map<World, PlayerGrid> playerGrids = new WeakHashMap<>();
+}
@@ -0,0 +1,22 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.command.CommandSource;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Register the mbenetstats command when the server starts up.
+ *
+ * Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class RegisterCommandEvent
+{
+  @SubscribeEvent
+  public static void onRegisterCommandEvent(RegisterCommandsEvent event) {
+    CommandDispatcher<CommandSource> commandDispatcher = event.getDispatcher();
+    MBEnetstatsCommand.register(commandDispatcher);
+  }
+}
@@ -1,8 +1,10 @@
 package minecraftbyexample.mbe60_network_messages;
 
 
+import minecraftbyexample.mbe60_network_messages.testharness.ServerLifecycleEvents;
 import net.minecraft.item.Item;
 import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
@@ -26,9 +28,17 @@ public class StartupCommon
 
   public static final byte AIRSTRIKE_MESSAGE_ID = 35;      // a unique ID for this message type.  It helps detect errors if you don't use zero!
   public static final byte TARGET_EFFECT_MESSAGE_ID = 63;
+  public static final byte PARTICLE_RECIPE_MESSAGE_ID = 64;
 
-  public static final String MESSAGE_PROTOCOL_VERSION = "1.0";  // a version number for the protocol you're using.  Can be used to maintain backward
-                                                                // compatibility.  But to be honest you'll probably never need it for anything useful...
+  public static final String MESSAGE_PROTOCOL_VERSION_FULL_PRECISION = "1.0";  // the original format: coordinates as doubles
+  public static final String MESSAGE_PROTOCOL_VERSION_COMPACT = "2.0";         // coordinates quantised to 1/256 of a block
+  public static final String MESSAGE_PROTOCOL_VERSION_PARTICLE_RECIPES = "3.0";  // compact, plus ParticleRecipeMessageToClient
+
+  public static final String MESSAGE_PROTOCOL_VERSION = MESSAGE_PROTOCOL_VERSION_PARTICLE_RECIPES;  // a version number for the protocol you're using.
+                                         // Can be used to maintain backward compatibility.
+                                         // The message codecs are chosen according to this version (see registerMessageCodecs)
+                                         // The ParticleRecipe message only exists from version 3.0 onwards, so that an
+                                         //   older client can't connect and then fail on a message it doesn't know.
 
   public static final ResourceLocation simpleChannelRL = new ResourceLocation("minecraftbyexample", "mbechannel");
 
@@ -52,16 +62,46 @@ public class StartupCommon
     //  AirStrike, which is sent from the client to the server to say "call an air strike on {this location} that I just clicked on"
     //  TargetEffect, which is sent from the server to all clients to say "someone called an air strike on {this location}, draw some particles there"
 
+    //  The encoder and decoder for each message depend on the protocol version
+    //  They are wrapped by MessageStatistics to count the number and size of the messages
+    registerMessageCodecs();
+    MessageCodec<AirstrikeMessageToServer> airstrikeCodec =
+            MessageCodecs.get(MESSAGE_PROTOCOL_VERSION, AirstrikeMessageToServer.class);
+    MessageCodec<TargetEffectMessageToClient> targetEffectCodec =
+            MessageCodecs.get(MESSAGE_PROTOCOL_VERSION, TargetEffectMessageToClient.class);
+    MessageCodec<ParticleRecipeMessageToClient> particleRecipeCodec =
+            MessageCodecs.get(MESSAGE_PROTOCOL_VERSION, ParticleRecipeMessageToClient.class);
+
     simpleChannel.registerMessage(AIRSTRIKE_MESSAGE_ID, AirstrikeMessageToServer.class,
-            AirstrikeMessageToServer::encode, AirstrikeMessageToServer::decode,
+            MessageStatistics.countEncoded(AirstrikeMessageToServer.class, airstrikeCodec.getEncoder()),
+            MessageStatistics.countDecoded(AirstrikeMessageToServer.class, airstrikeCodec.getDecoder()),
             MessageHandlerOnServer::onMessageReceived,
             Optional.of(PLAY_TO_SERVER));
 
     simpleChannel.registerMessage(TARGET_EFFECT_MESSAGE_ID, TargetEffectMessageToClient.class,
-            TargetEffectMessageToClient::encode, TargetEffectMessageToClient::decode,
+            MessageStatistics.countEncoded(TargetEffectMessageToClient.class, targetEffectCodec.getEncoder()),
+            MessageStatistics.countDecoded(TargetEffectMessageToClient.class, targetEffectCodec.getDecoder()),
             MessageHandlerOnClient::onMessageReceived,
             Optional.of(PLAY_TO_CLIENT));
 
+    // ParticleRecipe, which is sent from the server to clients to say "spawn the particles for {this recipe}"; it can be
+    //   used by any example (see ParticleRecipes)
+    simpleChannel.registerMessage(PARTICLE_RECIPE_MESSAGE_ID, ParticleRecipeMessageToClient.class,
+            MessageStatistics.countEncoded(ParticleRecipeMessageToClient.class, particleRecipeCodec.getEncoder()),
+            MessageStatistics.countDecoded(ParticleRecipeMessageToClient.class, particleRecipeCodec.getDecoder()),
+            ParticleRecipeMessageHandlerOnClient::onMessageReceived,
+            Optional.of(PLAY_TO_CLIENT));
+
+    // limit the rate of airstrikes from each player, and merge airstrikes which arrive in the same tick
+    MinecraftForge.EVENT_BUS.register(AirstrikeRateLimiter.class);
+    MinecraftForge.EVENT_BUS.register(AirstrikeCoalescer.class);
+    MinecraftForge.EVENT_BUS.register(PlayerInterestIndex.class);
+
+    MinecraftForge.EVENT_BUS.register(MessageStatistics.class);    // for the periodic CSV dump of the statistics
+    MinecraftForge.EVENT_BUS.register(RegisterCommandEvent.class);  // for the mbenetstats command
+
+    MinecraftForge.EVENT_BUS.register(ServerLifecycleEvents.class);  // used for our test harness code only; delete if you don't want that
+
     // it is possible to register the same message class and handler on both sides if you want, eg,
 //    simpleChannel.registerMessage(AIRSTRIKE_MESSAGE_ID, AirstrikeMessageToServer.class,
 //            AirstrikeMessageBothDirections::encode, AirstrikeMessageBothDirections::decode,
@@ -70,4 +110,28 @@ public class StartupCommon
     //    very careful to keep the client-side and server-side code separate
   }
 
+  /**
+   * Register the codecs for each protocol version.  To change the format of a message, add a codec for a new
+   *   protocol version and change MESSAGE_PROTOCOL_VERSION.
+   */
+  private static void registerMessageCodecs() {
+    MessageCodecs.register(MESSAGE_PROTOCOL_VERSION_FULL_PRECISION, AirstrikeMessageToServer.class,
+            new MessageCodec<>(AirstrikeMessageToServer::encode, AirstrikeMessageToServer::decode));
+    MessageCodecs.register(MESSAGE_PROTOCOL_VERSION_FULL_PRECISION, TargetEffectMessageToClient.class,
+            new MessageCodec<>(TargetEffectMessageToClient::encode, TargetEffectMessageToClient::decode));
+
+    MessageCodecs.register(MESSAGE_PROTOCOL_VERSION_COMPACT, AirstrikeMessageToServer.class,
+            new MessageCodec<>(AirstrikeMessageToServer::encodeCompact, AirstrikeMessageToServer::decodeCompact));
+    MessageCodecs.register(MESSAGE_PROTOCOL_VERSION_COMPACT, TargetEffectMessageToClient.class,
+            new MessageCodec<>(TargetEffectMessageToClient::encodeCompact, TargetEffectMessageToClient::decodeCompact));
+
+    // version 3.0 = the same compact messages, plus ParticleRecipeMessageToClient
+    MessageCodecs.register(MESSAGE_PROTOCOL_VERSION_PARTICLE_RECIPES, AirstrikeMessageToServer.class,
+            new MessageCodec<>(AirstrikeMessageToServer::encodeCompact, AirstrikeMessageToServer::decodeCompact));
+    MessageCodecs.register(MESSAGE_PROTOCOL_VERSION_PARTICLE_RECIPES, TargetEffectMessageToClient.class,
+            new MessageCodec<>(TargetEffectMessageToClient::encodeCompact, TargetEffectMessageToClient::decodeCompact));
+    MessageCodecs.register(MESSAGE_PROTOCOL_VERSION_PARTICLE_RECIPES, ParticleRecipeMessageToClient.class,
+            new MessageCodec<>(ParticleRecipeMessageToClient::encode, ParticleRecipeMessageToClient::decode));
+  }
+
 }
@@ -91,6 +91,37 @@ public class TargetEffectMessageToClient
 //    System.out.println("TargetEffectMessageToClient:toBytes length=" + buf.readableBytes());  // debugging only
   }
 
+  /**
+   * The compact version of decode(), used by protocol version 2.0 (see StartupCommon): block-relative fixed-point
+   *   coordinates (see CompactCoordinates) instead of three doubles.
+   * This message is sent to every player in the dimension, so the saving is multiplied by the number of players.
+   * @param buf
+   */
+  public static TargetEffectMessageToClient decodeCompact(PacketBuffer buf)
+  {
+    TargetEffectMessageToClient retval = new TargetEffectMessageToClient();
+    try {
+      retval.targetCoordinates = CompactCoordinates.read(buf);
+    } catch (RuntimeException e) {
+      // not just IllegalArgumentException and IndexOutOfBoundsException: readVarInt() throws a plain RuntimeException
+      //   if the varint is too long
+      LOGGER.warn("Exception while reading TargetEffectMessageToClient: " + e);
+      return retval;
+    }
+    retval.messageIsValid = true;
+    return retval;
+  }
+
+  /**
+   * The compact version of encode(); see decodeCompact()
+   * @param buf
+   */
+  public void encodeCompact(PacketBuffer buf)
+  {
+    if (!messageIsValid) return;
+    CompactCoordinates.write(buf, targetCoordinates);
+  }
+
   @Override
   public String toString()
   {
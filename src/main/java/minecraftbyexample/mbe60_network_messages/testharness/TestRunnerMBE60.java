@@ -0,0 +1,45 @@
+package minecraftbyexample.mbe60_network_messages.testharness;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.world.World;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Test Runner for MBE60
+ * 6001 = microbenchmark of the message codecs for each protocol version: size, encode/decode speed, and accuracy
+ */
+public class TestRunnerMBE60
+{
+  public boolean runServerSideTest(World worldIn, PlayerEntity playerIn, int testNumber)
+  {
+    boolean success = false;
+    switch (testNumber) {
+      case 6001: {
+        TestRunnerMBE60_A testRunner = new TestRunnerMBE60_A();
+        success = testRunner.runTest(worldIn, playerIn);
+        break;
+      }
+      default: {  // not intended for this TestRunner
+        return false;
+      }
+    }
+
+    LOGGER.error("Test Number " + testNumber + " called on server side:" + (success ? "success" : "failure"));
+    return success;
+  }
+
+  /**
+   * Prints success or failure of test
+   * @param resultChainIn
+   * @param failmessage
+   * @param result
+   * @return resultChainIn && result
+   */
+  public static boolean test(boolean resultChainIn, String failmessage, boolean result) {
+    LOGGER.error("Test #" + failmessage + (result ? " passed." : " failed."));
+    return resultChainIn && result;
+  }
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
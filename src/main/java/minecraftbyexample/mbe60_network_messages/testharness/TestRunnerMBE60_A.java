@@ -0,0 +1,126 @@
+package minecraftbyexample.mbe60_network_messages.testharness;
+
+import io.netty.buffer.Unpooled;
+import minecraftbyexample.mbe60_network_messages.AirstrikeMessageToServer;
+import minecraftbyexample.mbe60_network_messages.MessageCodec;
+import minecraftbyexample.mbe60_network_messages.MessageCodecs;
+import minecraftbyexample.mbe60_network_messages.StartupCommon;
+import minecraftbyexample.mbe60_network_messages.TargetEffectMessageToClient;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Created by TGG on 18/10/2020.
+ * Microbenchmark of the message codecs: for each protocol version, encodes and decodes a large number of random
+ *   messages, then prints
+ * 1) the number of bytes per message
+ * 2) the time taken to encode and decode each message
+ * 3) the largest error in the decoded coordinates
+ * The test passes if the compact codec is smaller than the full-precision codec, and accurate to within 1/512 of a block
+ */
+public class TestRunnerMBE60_A {
+  public boolean runTest(World worldIn, PlayerEntity playerIn) {
+    final int NUMBER_OF_MESSAGES = 100_000;
+    final double MAX_COORDINATE = 30_000;
+    Random random = new Random(1);
+    List<AirstrikeMessageToServer> airstrikeMessages = new ArrayList<>();
+    List<TargetEffectMessageToClient> targetEffectMessages = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_MESSAGES; ++i) {
+      Vector3d target = new Vector3d((random.nextDouble() * 2 - 1) * MAX_COORDINATE,
+                                     random.nextDouble() * 256,
+                                     (random.nextDouble() * 2 - 1) * MAX_COORDINATE);
+      airstrikeMessages.add(new AirstrikeMessageToServer(AirstrikeMessageToServer.Projectile.getRandom(), target));
+      targetEffectMessages.add(new TargetEffectMessageToClient(target));
+    }
+
+    boolean result = true;
+    BenchmarkResult airstrikeFull = runBenchmark(StartupCommon.MESSAGE_PROTOCOL_VERSION_FULL_PRECISION,
+            AirstrikeMessageToServer.class, airstrikeMessages, AirstrikeMessageToServer::getTargetCoordinates);
+    BenchmarkResult airstrikeCompact = runBenchmark(StartupCommon.MESSAGE_PROTOCOL_VERSION_COMPACT,
+            AirstrikeMessageToServer.class, airstrikeMessages, AirstrikeMessageToServer::getTargetCoordinates);
+    BenchmarkResult targetEffectFull = runBenchmark(StartupCommon.MESSAGE_PROTOCOL_VERSION_FULL_PRECISION,
+            TargetEffectMessageToClient.class, targetEffectMessages, TargetEffectMessageToClient::getTargetCoordinates);
+    BenchmarkResult targetEffectCompact = runBenchmark(StartupCommon.MESSAGE_PROTOCOL_VERSION_COMPACT,
+            TargetEffectMessageToClient.class, targetEffectMessages, TargetEffectMessageToClient::getTargetCoordinates);
+
+    final double MAX_ALLOWED_ERROR = 1.0 / 512 + 1.0E-9;
+    result = TestRunnerMBE60.test(result, "6001a", airstrikeCompact.bytesPerMessage < airstrikeFull.bytesPerMessage);
+    result = TestRunnerMBE60.test(result, "6001b", targetEffectCompact.bytesPerMessage < targetEffectFull.bytesPerMessage);
+    result = TestRunnerMBE60.test(result, "6001c", airstrikeCompact.maxError <= MAX_ALLOWED_ERROR);
+    result = TestRunnerMBE60.test(result, "6001d", targetEffectCompact.maxError <= MAX_ALLOWED_ERROR);
+    result = TestRunnerMBE60.test(result, "6001e", airstrikeFull.maxError == 0 && targetEffectFull.maxError == 0);
+    return result;
+  }
+
+  @FunctionalInterface
+  private interface CoordinateGetter<MSG> {
+    Vector3d getCoordinates(MSG message);
+  }
+
+  private static class BenchmarkResult {
+    double bytesPerMessage;
+    double maxError;
+  }
+
+  private static <MSG> BenchmarkResult runBenchmark(String protocolVersion, Class<MSG> messageClass, List<MSG> messages,
+                                                    CoordinateGetter<MSG> coordinateGetter) {
+    MessageCodec<MSG> codec = MessageCodecs.get(protocolVersion, messageClass);
+    PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+
+    final int WARMUP_ROUNDS = 3;
+    for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+      buf.clear();
+      encodeAll(codec, messages, buf);
+      decodeAll(codec, messages.size(), buf);
+    }
+
+    buf.clear();
+    long startNanos = System.nanoTime();
+    encodeAll(codec, messages, buf);
+    long encodeNanos = System.nanoTime() - startNanos;
+    int totalBytes = buf.readableBytes();
+    startNanos = System.nanoTime();
+    List<MSG> decodedMessages = decodeAll(codec, messages.size(), buf);
+    long decodeNanos = System.nanoTime() - startNanos;
+
+    BenchmarkResult benchmarkResult = new BenchmarkResult();
+    benchmarkResult.bytesPerMessage = totalBytes / (double)messages.size();
+    for (int i = 0; i < messages.size(); ++i) {
+      Vector3d original = coordinateGetter.getCoordinates(messages.get(i));
+      Vector3d decoded = coordinateGetter.getCoordinates(decodedMessages.get(i));
+      double error = Math.max(Math.abs(original.x - decoded.x),
+                              Math.max(Math.abs(original.y - decoded.y), Math.abs(original.z - decoded.z)));
+      benchmarkResult.maxError = Math.max(benchmarkResult.maxError, error);
+    }
+
+    LOGGER.error(String.format("%s protocol %s: %.2f bytes per message, encode %.1f ns, decode %.1f ns, max error %.5f",
+                               messageClass.getSimpleName(), protocolVersion, benchmarkResult.bytesPerMessage,
+                               encodeNanos / (double)messages.size(), decodeNanos / (double)messages.size(),
+                               benchmarkResult.maxError));
+    return benchmarkResult;
+  }
+
+  private static <MSG> void encodeAll(MessageCodec<MSG> codec, List<MSG> messages, PacketBuffer buf) {
+    for (MSG message : messages) {
+      codec.getEncoder().accept(message, buf);
+    }
+  }
+
+  private static <MSG> List<MSG> decodeAll(MessageCodec<MSG> codec, int numberOfMessages, PacketBuffer buf) {
+    List<MSG> decodedMessages = new ArrayList<>(numberOfMessages);
+    for (int i = 0; i < numberOfMessages; ++i) {
+      decodedMessages.add(codec.getDecoder().apply(buf));
+    }
+    return decodedMessages;
+  }
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
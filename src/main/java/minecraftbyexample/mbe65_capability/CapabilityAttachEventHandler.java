@@ -29,7 +29,11 @@ public class CapabilityAttachEventHandler {
     Entity entity = event.getObject();
     if (entity instanceof AbstractArrowEntity
         || entity instanceof LivingEntity        ) {
-      event.addCapability(new ResourceLocation("minecraftbyexample:mbe65_capability_provider_entities") , new CapabilityProviderEntities());
+      CapabilityProviderEntities capabilityProviderEntities = new CapabilityProviderEntities(entity);
+      event.addCapability(new ResourceLocation("minecraftbyexample:mbe65_capability_provider_entities") , capabilityProviderEntities);
+      // When the entity is removed from the world (eg killed), forge invalidates its capabilities and calls our listener
+      //  (but not when the entity is just moving between dimensions)
+      event.addListener(capabilityProviderEntities::invalidate);
     }
   }
 }
@@ -0,0 +1,43 @@
+package minecraftbyexample.mbe65_capability;
+
+import net.minecraft.nbt.INBT;
+import net.minecraft.util.Direction;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+
+import javax.annotation.Nullable;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * The marker for the read-only capability which tells you whether an Entity holds any elemental charge (see
+ *   ElementalChargeStatus).  The status is calculated from the entity's ElementalCharges, so there is nothing to store:
+ *   the storage doesn't read or write any NBT.
+ * register() should be called during FMLCommonSetupEvent: forge comes back later and stores the
+ *   CapabilityElementalChargeStatus instance into the @CapabilityInject field.
+ */
+
+public class CapabilityElementalChargeStatus {
+    @CapabilityInject(ElementalChargeStatus.class)
+    public static Capability<ElementalChargeStatus> CAPABILITY_ELEMENTAL_CHARGE_STATUS = null;
+
+    public static void register() {
+      CapabilityManager.INSTANCE.register(
+              ElementalChargeStatus.class,
+              new NoNBTStorage(),
+              () -> () -> false);
+    }
+
+    private static class NoNBTStorage implements Capability.IStorage<ElementalChargeStatus> {
+      @Nullable
+      @Override
+      public INBT writeNBT(Capability<ElementalChargeStatus> capability, ElementalChargeStatus instance, Direction side) {
+        return null;
+      }
+
+      @Override
+      public void readNBT(Capability<ElementalChargeStatus> capability, ElementalChargeStatus instance, Direction side, INBT nbt) {
+      }
+    }
+}
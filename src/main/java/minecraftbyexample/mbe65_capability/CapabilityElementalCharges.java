@@ -0,0 +1,25 @@
+package minecraftbyexample.mbe65_capability;
+
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * The marker for the capability which holds all the elemental charges of an Entity (see ElementalCharges).
+ * register() should be called during FMLCommonSetupEvent: forge comes back later and stores the
+ *   CapabilityElementalCharges instance into the @CapabilityInject field.
+ */
+
+public class CapabilityElementalCharges {
+    @CapabilityInject(ElementalCharges.class)
+    public static Capability<ElementalCharges> CAPABILITY_ELEMENTAL_CHARGES = null;
+
+    public static void register() {
+      CapabilityManager.INSTANCE.register(
+              ElementalCharges.class,
+              new ElementalCharges.ElementalChargesNBTStorage(),
+              ElementalCharges::createADefaultInstance);
+    }
+}
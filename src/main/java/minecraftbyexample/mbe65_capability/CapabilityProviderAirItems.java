@@ -26,15 +26,15 @@ public class CapabilityProviderAirItems implements ICapabilitySerializable<INBT>
    * @return a lazy-initialisation supplier of the interface instance that is used to access this capability
    *         In this case, we don't actually use lazy initialisation because the instance is very quick to create.
    *         See CapabilityProviderFlowerBag for an example of lazy initialisation
+   *         The LazyOptional is created once and reused, because getCapability is called several times for every
+   *         crossbow shot and tooltip (see ItemElementalCrossbowAir)
    */
   @Nonnull
   @Override
   public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> capability, @Nullable Direction facing) {
-    if (CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE == capability) {
-      return (LazyOptional<T>)LazyOptional.of(()-> elementalAir);
-      // why are we using a lambda?  Because LazyOptional.of() expects a NonNullSupplier interface.  The lambda automatically
-      //   conforms itself to that interface.  This saves me having to define an inner class implementing NonNullSupplier.
-      // The explicit cast to LazyOptional<T> is required because our CAPABILITY_ELEMENTAL_FIRE can't be typed.  Our code has
+    if (CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR == capability) {
+      return (LazyOptional<T>)elementalAirSupplier;
+      // The explicit cast to LazyOptional<T> is required because our CAPABILITY_ELEMENTAL_AIR can't be typed.  Our code has
       //   checked that the requested capability matches, so the explict cast is safe (unless you have made a mistake and mixed them up!)
     }
     return LazyOptional.empty();
@@ -62,4 +62,10 @@ public class CapabilityProviderAirItems implements ICapabilitySerializable<INBT>
   }
 
   private ElementalAir elementalAir = new ElementalAir();
+
+  // why are we using a lambda?  Because LazyOptional.of() expects a NonNullSupplier interface.  The lambda automatically
+  //   conforms itself to that interface.  This saves me having to define an inner class implementing NonNullSupplier.
+  // Forge never invalidates the capabilities of an ItemStack (unlike an Entity, see CapabilityAttachEventHandler), so
+  //   this LazyOptional stays valid for as long as the ItemStack exists.
+  private final LazyOptional<ElementalAir> elementalAirSupplier = LazyOptional.of(()-> elementalAir);
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package minecraftbyexample.mbe65_capability;
 
 import minecraftbyexample.usefultools.NBTtypesMBE;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.projectile.AbstractArrowEntity;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.IntArrayNBT;
 import net.minecraft.util.Direction;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.ICapabilitySerializable;
@@ -12,14 +16,30 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
 
 /**
  * This class provides all the capabilities that an Entity can possess.
  * In this case there are two:
- * 1) CapabilityElementalFire --> ElementalFireInterfaceInstance
- * 2) CapabilityElementalAir --> ElementalAirInterfaceInstance
+ * 1) CapabilityElementalCharges --> ElementalCharges, which holds the charge of every ElementType (fire, air, ...)
+ *    A single lookup returns all the charges, instead of one lookup (and one LazyOptional, and one NBT tag) per element.
+ * 2) CapabilityElementalChargeStatus --> ElementalChargeStatus (this provider), a read-only check for whether the
+ *    entity holds any charge
+ *
+ * It is attached to every LivingEntity and arrow in the world, but only a few of them will ever be hit by an elemental
+ *   arrow.  So we use lazy initialisation:
+ * 1) The ElementalCharges isn't created until the first time someone asks for it.  ElementalChargeStatus never creates
+ *    it, so use that when you only need to know whether there is any charge (eg on every arrow impact)
+ * 2) Nothing is written to NBT unless the entity is actually holding a charge
+ *
+ * For living entities on the server, the charge decays over time (see ElementalDecayScheduler).
+ * For arrows on the server, the ElementalCharges is recycled when the arrow is removed (see ElementalChargesPool).
  */
-public class CapabilityProviderEntities implements ICapabilitySerializable<INBT> {
+public class CapabilityProviderEntities implements ICapabilitySerializable<INBT>, ElementalChargeStatus {
+
+  public CapabilityProviderEntities(Entity entity) {
+    this.entity = entity;
+  }
 
   private final Direction NO_SPECIFIC_SIDE = null;
 
@@ -29,21 +49,19 @@ public class CapabilityProviderEntities implements ICapabilitySerializable<INBT>
    * @param facing the side of the provider being checked (null = no particular side)
    * @param <T> The interface instance that is used
    * @return a lazy-initialisation supplier of the interface instance that is used to access this capability
-   *         In this case, we don't actually use lazy initialisation because the instance is very quick to create.
-   *         See CapabilityProviderFlowerBag for an example of lazy initialisation
+   *         The LazyOptional is created once and reused, because getCapability is called several times for every
+   *         arrow impact (see ElementalInteractions)
    */
   @Nonnull
   @Override
   public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> capability, @Nullable Direction facing) {
-    if (CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE == capability) {
-      return (LazyOptional<T>)LazyOptional.of(()-> elementalFire);
-      // why are we using a lambda?  Because LazyOptional.of() expects a NonNullSupplier interface.  The lambda automatically
-      //   conforms itself to that interface.  This save me having to define an inner class implementing NonNullSupplier.
-      // The explicit cast to LazyOptional<T> is required because our CAPABILITY_ELEMENTAL_FIRE can't be typed.  Our code has
+    if (CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES == capability) {
+      return (LazyOptional<T>)elementalChargesSupplier;
+      // The explicit cast to LazyOptional<T> is required because our CAPABILITY_ELEMENTAL_CHARGES can't be typed.  Our code has
       //   checked that the requested capability matches, so the explict cast is safe (unless you have mixed them up)
     }
-    if (CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR == capability) {
-      return (LazyOptional<T>)LazyOptional.of(()-> elementalAir);
+    if (CapabilityElementalChargeStatus.CAPABILITY_ELEMENTAL_CHARGE_STATUS == capability) {
+      return (LazyOptional<T>)chargeStatusSupplier;
     }
 
     return LazyOptional.empty();
@@ -55,23 +73,25 @@ public class CapabilityProviderEntities implements ICapabilitySerializable<INBT>
     // return LazyOptional.empty();
   }
 
-  private final static String AIR_NBT = "air";
-  private final static String FIRE_NBT = "fire";
+  private final static String CHARGES_NBT = "charges";
+  private final static String LEGACY_AIR_NBT = "air";    // saved by older versions, which stored each element separately
+  private final static String LEGACY_FIRE_NBT = "fire";
 
-  /**Write all the capability state information to NBT - fire, and air
+  /**Write all the capability state information to NBT
+   * If the entity has no charge, nothing is written (just an empty tag; forge always saves one tag for each provider)
    */
   @Override
   public INBT serializeNBT() {
     CompoundNBT nbt = new CompoundNBT();
-    INBT fireNBT = CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE.writeNBT(elementalFire, NO_SPECIFIC_SIDE);
-    INBT airNBT = CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR.writeNBT(elementalAir, NO_SPECIFIC_SIDE);
-    nbt.put(AIR_NBT, airNBT);
-    nbt.put(FIRE_NBT, fireNBT);
+    if (elementalCharges != null && elementalCharges.hasAnyCharge()) {
+      INBT chargesNBT = CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES.writeNBT(elementalCharges, NO_SPECIFIC_SIDE);
+      nbt.put(CHARGES_NBT, chargesNBT);
+    }
     return nbt;
   }
 
-  /**Read the capability state information out of NBT - fire, and air
-   * Overwrite the interface instances with the nbt information
+  /**Read the capability state information out of NBT
+   * Overwrite the interface instance with the nbt information
    */
   @Override
   public void deserializeNBT(INBT nbt) {
@@ -80,15 +100,119 @@ public class CapabilityProviderEntities implements ICapabilitySerializable<INBT>
       return;  // leave as default in case of error
     }
     CompoundNBT compoundNBT = (CompoundNBT)nbt;
-    INBT airNBT = compoundNBT.get(AIR_NBT);
-    INBT fireNBT = compoundNBT.get(FIRE_NBT);
+    INBT chargesNBT = NO_CHARGE_NBT;
+    if (compoundNBT.contains(CHARGES_NBT)) {
+      chargesNBT = compoundNBT.get(CHARGES_NBT);
+    } else if (compoundNBT.contains(LEGACY_FIRE_NBT) || compoundNBT.contains(LEGACY_AIR_NBT)) {
+      int [] charges = new int[ElementType.NUMBER_OF_ELEMENTS];
+      charges[ElementType.FIRE.ordinal()] = compoundNBT.getInt(LEGACY_FIRE_NBT);
+      charges[ElementType.AIR.ordinal()] = compoundNBT.getInt(LEGACY_AIR_NBT);
+      chargesNBT = new IntArrayNBT(charges);
+    }
+
+    // don't create the interface instance just to store zero in it
+    if (elementalCharges != null || chargesNBT != NO_CHARGE_NBT) {
+      CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES.readNBT(getCachedCharges(), NO_SPECIFIC_SIDE, chargesNBT);
+    }
+  }
 
-    CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR.readNBT(elementalAir, NO_SPECIFIC_SIDE, airNBT);
-    CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE.readNBT(elementalFire, NO_SPECIFIC_SIDE, fireNBT);
+  /**
+   * @return true if the entity holds any charge.  Doesn't create the ElementalCharges if there isn't one yet.
+   */
+  @Override
+  public boolean hasAnyCharge() {
+    return elementalCharges != null && elementalCharges.hasAnyCharge();
   }
 
-  private ElementalFire elementalFire = new ElementalFire();
-  private ElementalAir elementalAir = new ElementalAir();
+  /**
+   * Return a lazily-initialised ElementalCharges (created the first time that it is needed, then reused)
+   */
+  private ElementalCharges getCachedCharges() {
+    if (elementalCharges == null) {
+      elementalCharges = isPooled() ? ElementalChargesPool.acquire() : new ElementalCharges();
+      if (isDecayEnabled()) {
+        for (ElementType elementType : ElementType.values()) {
+          elementalCharges.enableDecay(elementType, this::getGameTime, DECAY_INTERVAL_TICKS, elementType.getDecayPerSecond());
+        }
+        scheduledDecayTicks = new long[ElementType.NUMBER_OF_ELEMENTS];
+        Arrays.fill(scheduledDecayTicks, NO_DECAY_EVENT_SCHEDULED);
+        elementalCharges.setChargeChangedListener(this::onChargeChanged);
+      }
+    }
+    return elementalCharges;
+  }
+
+  // ---- pooling: only for arrows, and only on the server (see ElementalChargesPool)
+
+  private boolean isPooled() {
+    return entity instanceof AbstractArrowEntity && entity.world != null && !entity.world.isRemote;
+  }
+
+  // ---- charge decay: only for living entities, and only on the server
+
+  private boolean isDecayEnabled() {
+    return entity instanceof LivingEntity && entity.world != null && !entity.world.isRemote;
+  }
+
+  private long getGameTime() {
+    return entity.world.getGameTime();
+  }
+
+  // Only one decay event per element is kept in the scheduler (each one holds on to this entity until it fires).
+  // If the charge now runs out later than the scheduled event (eg it has been topped up), keep the scheduled event; it
+  //   will schedule the next one when it fires.  Only schedule a new event if the charge now runs out sooner.
+  private void onChargeChanged(ElementType elementType) {
+    int idx = elementType.ordinal();
+    long tick = elementalCharges.getTickWhenFullyDecayed(elementType);
+    if (tick >= scheduledDecayTicks[idx]) return;
+    scheduledDecayTicks[idx] = tick;
+    ElementalDecayScheduler.schedule(entity.world, tick, () -> onDecayEvent(elementType, tick));
+  }
+
+  private void onDecayEvent(ElementType elementType, long tick) {
+    int idx = elementType.ordinal();
+    if (scheduledDecayTicks[idx] != tick) return;  // an earlier event has been scheduled in the meantime
+    scheduledDecayTicks[idx] = NO_DECAY_EVENT_SCHEDULED;
+    if (!entity.isAlive()) return;
+    if (elementalCharges.getChargeLevel(elementType) > 0) {  // topped up since this event was scheduled
+      onChargeChanged(elementType);
+      return;
+    }
+    switch (elementType) {
+      case FIRE:
+        ElementalInteractions.onFireFullyDecayed((LivingEntity)entity);
+        break;
+      case AIR:
+        ElementalInteractions.onAirFullyDecayed((LivingEntity)entity);
+        break;
+    }
+  }
+
+  /**
+   * Invalidate the LazyOptional so that anyone holding it knows that the capability is no longer available.
+   * Called when the entity is removed from the world: see CapabilityAttachEventHandler
+   */
+  public void invalidate() {
+    elementalChargesSupplier.invalidate();
+    chargeStatusSupplier.invalidate();
+    if (elementalCharges != null && isPooled()) {  // the arrow is gone; recycle its charges for the next arrow
+      ElementalChargesPool.release(elementalCharges);
+      elementalCharges = null;
+    }
+  }
+
+  private ElementalCharges elementalCharges;  // initially null until our first call to getCachedCharges
+  private long [] scheduledDecayTicks;  // for each element, the tick of the pending decay event.  null if no decay
+
+  //  supplier: when called, returns the result of getCachedCharges()
+  private final LazyOptional<ElementalCharges> elementalChargesSupplier = LazyOptional.of(this::getCachedCharges);
+  private final LazyOptional<ElementalChargeStatus> chargeStatusSupplier = LazyOptional.of(() -> this);
+
+  private final Entity entity;
+
+  private static final INBT NO_CHARGE_NBT = new IntArrayNBT(new int[0]);
+  private static final int DECAY_INTERVAL_TICKS = 20;  // one second
+  private static final long NO_DECAY_EVENT_SCHEDULED = Long.MAX_VALUE;
 
   private static final Logger LOGGER = LogManager.getLogger();
 
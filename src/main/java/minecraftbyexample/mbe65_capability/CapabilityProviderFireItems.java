@@ -26,14 +26,14 @@ public class CapabilityProviderFireItems implements ICapabilitySerializable<INBT
    * @return a lazy-initialisation supplier of the interface instance that is used to access this capability
    *         In this case, we don't actually use lazy initialisation because the instance is very quick to create.
    *         See CapabilityProviderFlowerBag for an example of lazy initialisation
+   *         The LazyOptional is created once and reused, because getCapability is called several times for every
+   *         bow shot and tooltip (see ItemElementalBowFire)
    */
   @Nonnull
   @Override
   public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> capability, @Nullable Direction facing) {
     if (CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE == capability) {
-      return (LazyOptional<T>)LazyOptional.of(()-> elementalFire);
-      // why are we using a lambda?  Because LazyOptional.of() expects a NonNullSupplier interface.  The lambda automatically
-      //   conforms itself to that interface.  This save me having to define an inner class implementing NonNullSupplier.
+      return (LazyOptional<T>)elementalFireSupplier;
       // The explicit cast to LazyOptional<T> is required because our CAPABILITY_ELEMENTAL_FIRE can't be typed.  Our code has
       //   checked that the requested capability matches, so the explicit cast is safe (unless you have made a mistake and mixed them up!)
     }
@@ -61,4 +61,10 @@ public class CapabilityProviderFireItems implements ICapabilitySerializable<INBT
   }
 
   private ElementalFire elementalFire = new ElementalFire();
+
+  // why are we using a lambda?  Because LazyOptional.of() expects a NonNullSupplier interface.  The lambda automatically
+  //   conforms itself to that interface.  This saves me having to define an inner class implementing NonNullSupplier.
+  // Forge never invalidates the capabilities of an ItemStack (unlike an Entity, see CapabilityAttachEventHandler), so
+  //   this LazyOptional stays valid for as long as the ItemStack exists.
+  private final LazyOptional<ElementalFire> elementalFireSupplier = LazyOptional.of(()-> elementalFire);
 }
\ No newline at end of file
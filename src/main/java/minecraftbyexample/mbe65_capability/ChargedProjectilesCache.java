@@ -0,0 +1,109 @@
+package minecraftbyexample.mbe65_capability;
+
+import minecraftbyexample.usefultools.NBTtypesMBE;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A cache of the decoded crossbow NBT ("Charged" and "ChargedProjectiles"), so that ItemElementalCrossbowAir doesn't
+ *   need to parse the NBT every time it is rendered or fired.  Decoding the projectiles is relatively expensive because
+ *   every projectile ItemStack has to be recreated from NBT.
+ *
+ * There is one cache entry per crossbow ItemStack.  The entry is thrown away if:
+ * 1) the ItemStack's tag has been replaced (eg the client has received a new copy of the tag from the server), or
+ * 2) the crossbow code changes the tag (it must call invalidate()), or
+ * 3) the ChargedProjectiles list in the tag has been replaced or changed size.
+ * The cache holds the ItemStacks weakly, so it doesn't stop them being garbage collected.
+ *
+ * The ItemStacks returned by getChargedProjectiles are shared, so don't modify them.
+ *
+ * Only call it from the client thread or the server thread, never from the network threads or other worker threads.
+ * In single player both threads use it, so each thread gets its own cache.  The crossbow ItemStacks on the client
+ *   and on the server are always different objects, so the two caches never need to share entries, and no locking is
+ *   needed.
+ */
+public class ChargedProjectilesCache {
+
+  public static boolean isCharged(ItemStack crossbowItemStack) {
+    DecodedCrossbowTag decodedCrossbowTag = getDecodedCrossbowTag(crossbowItemStack);
+    if (!decodedCrossbowTag.chargedIsValid) {
+      decodedCrossbowTag.charged = decodedCrossbowTag.tag != null && decodedCrossbowTag.tag.getBoolean(CHARGED_NBT);
+      decodedCrossbowTag.chargedIsValid = true;
+    }
+    return decodedCrossbowTag.charged;
+  }
+
+  /**
+   * @return an unmodifiable list of the projectiles that the crossbow is charged with (empty if none)
+   */
+  public static List<ItemStack> getChargedProjectiles(ItemStack crossbowItemStack) {
+    DecodedCrossbowTag decodedCrossbowTag = getDecodedCrossbowTag(crossbowItemStack);
+    ListNBT projectilesNBT = null;
+    CompoundNBT tag = decodedCrossbowTag.tag;
+    if (tag != null && tag.contains(CHARGED_PROJECTILES_NBT, NBTtypesMBE.LIST_NBT_ID)) {
+      projectilesNBT = tag.getList(CHARGED_PROJECTILES_NBT, NBTtypesMBE.COMPOUND_NBT_ID);
+    }
+    int projectilesNBTsize = (projectilesNBT == null) ? 0 : projectilesNBT.size();
+    if (decodedCrossbowTag.projectiles == null
+        || decodedCrossbowTag.projectilesNBT != projectilesNBT
+        || decodedCrossbowTag.projectilesNBTsize != projectilesNBTsize) {
+      List<ItemStack> projectiles = new ArrayList<>(projectilesNBTsize);
+      for (int i = 0; i < projectilesNBTsize; ++i) {
+        projectiles.add(ItemStack.read(projectilesNBT.getCompound(i)));
+      }
+      decodedCrossbowTag.projectiles = Collections.unmodifiableList(projectiles);
+      decodedCrossbowTag.projectilesNBT = projectilesNBT;
+      decodedCrossbowTag.projectilesNBTsize = projectilesNBTsize;
+    }
+    return decodedCrossbowTag.projectiles;
+  }
+
+  /**
+   * Must be called whenever the crossbow code changes the crossbow's tag
+   */
+  public static void invalidate(ItemStack crossbowItemStack) {
+    decodedCrossbowTags.get().remove(crossbowItemStack);
+  }
+
+  // get the cache entry for this crossbow; create a new one if there isn't one, or if the tag has been replaced
+  private static DecodedCrossbowTag getDecodedCrossbowTag(ItemStack crossbowItemStack) {
+    CompoundNBT tag = crossbowItemStack.getTag();
+    Map<ItemStack, DecodedCrossbowTag> decodedCrossbowTagsForThisThread = decodedCrossbowTags.get();
+    DecodedCrossbowTag decodedCrossbowTag = decodedCrossbowTagsForThisThread.get(crossbowItemStack);
+    if (decodedCrossbowTag == null || decodedCrossbowTag.tag != tag) {
+      decodedCrossbowTag = new DecodedCrossbowTag(tag);
+      decodedCrossbowTagsForThisThread.put(crossbowItemStack, decodedCrossbowTag);
+    }
+    return decodedCrossbowTag;
+  }
+
+  private static class DecodedCrossbowTag {
+    DecodedCrossbowTag(CompoundNBT tag) {
+      this.tag = tag;
+    }
+
+    final CompoundNBT tag;  // the tag that this entry was decoded from (may be null)
+    boolean chargedIsValid = false;
+    boolean charged;
+    List<ItemStack> projectiles = null;  // null = not decoded yet
+    ListNBT projectilesNBT;
+    int projectilesNBTsize;
+  }
+
+  public static final String CHARGED_NBT = "Charged";
+  public static final String CHARGED_PROJECTILES_NBT = "ChargedProjectiles";
+
+  // ItemStack doesn't override equals() or hashCode(), so each ItemStack instance has its own entry
+  // One map per thread (client thread, server thread) - see class comments
+  private static final ThreadLocal<Map<ItemStack, DecodedCrossbowTag>> decodedCrossbowTags =
+          ThreadLocal.withInitial(WeakHashMap::new);
+}
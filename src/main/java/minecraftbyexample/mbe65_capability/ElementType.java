@@ -0,0 +1,28 @@
+package minecraftbyexample.mbe65_capability;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * The different types of elemental charge which can be stored in ElementalCharges.
+ * The ordinal is used as the index into ElementalCharges' arrays, and in the saved NBT, so only ever add new elements
+ *   to the end of the list.
+ */
+public enum ElementType {
+  FIRE(ElementalInteractions.FIRE_DECAY_PER_SECOND),
+  AIR(ElementalInteractions.AIR_DECAY_PER_SECOND);
+
+  ElementType(int decayPerSecond) {
+    this.decayPerSecond = decayPerSecond;
+  }
+
+  /**
+   * How much charge a living entity loses every second
+   */
+  public int getDecayPerSecond() {
+    return decayPerSecond;
+  }
+
+  public static final int NUMBER_OF_ELEMENTS = values().length;
+
+  private final int decayPerSecond;
+}
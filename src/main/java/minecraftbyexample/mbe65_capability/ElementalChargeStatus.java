@@ -0,0 +1,18 @@
+package minecraftbyexample.mbe65_capability;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A read-only view of an Entity's elemental charges, which answers "does this entity hold any charge?" without
+ *   creating the entity's ElementalCharges.
+ * Most arrows are fired by vanilla bows (skeletons, players) and never hold a charge; looking up
+ *   CAPABILITY_ELEMENTAL_CHARGES on them would create (or take from the pool) an ElementalCharges just to find out that
+ *   it's empty.  Check CAPABILITY_ELEMENTAL_CHARGE_STATUS first instead.
+ */
+@FunctionalInterface
+public interface ElementalChargeStatus {
+  /**
+   * @return true if the entity holds a non-zero charge of any element
+   */
+  boolean hasAnyCharge();
+}
@@ -0,0 +1,164 @@
+package minecraftbyexample.mbe65_capability;
+
+import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.IntArrayNBT;
+import net.minecraft.util.Direction;
+import net.minecraftforge.common.capabilities.Capability;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * This class stores the amount of every type of elemental charge (see ElementType) that has been attached to an Entity.
+ * It does the same job as ElementalFire and ElementalAir together, but:
+ * 1) a single capability lookup gives you all the charges, and
+ * 2) the charges are stored in an int[] indexed by ElementType, which is saved as a single IntArrayNBT
+ * So adding a new element doesn't add another lookup or another NBT tag to every entity.
+ *
+ * Each charge can optionally decay over time (see enableDecay)
+ * It contains a static inner class which is used to convert to/from NBT storage, for loading/saving to disk and for network transmission
+ */
+public class ElementalCharges {
+
+  public int getChargeLevel(ElementType elementType) {
+    applyDecay(elementType);
+    return chargeLevels[elementType.ordinal()];
+  }
+
+  public void addCharge(ElementType elementType, int chargeToAdd) {
+    applyDecay(elementType);
+    chargeLevels[elementType.ordinal()] += chargeToAdd;
+    chargeChangedListener.onChargeChanged(elementType);
+  }
+
+  /**
+   * @return true if any of the elements has a non-zero charge
+   */
+  public boolean hasAnyCharge() {
+    for (ElementType elementType : ELEMENT_TYPES) {
+      if (getChargeLevel(elementType) != 0) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Make the given element's charge decay over time: it loses chargeLostPerInterval every intervalTicks, until it
+   *   reaches zero.
+   * The decay is calculated lazily, i.e. when the charge is read, so nothing needs to be ticked.
+   * @param gameTimeSupplier supplies the current game time in ticks
+   */
+  public void enableDecay(ElementType elementType, LongSupplier gameTimeSupplier, int intervalTicks,
+                          int chargeLostPerInterval) {
+    int idx = elementType.ordinal();
+    this.gameTimeSupplier = gameTimeSupplier;
+    decayIntervalTicks[idx] = intervalTicks;
+    this.chargeLostPerInterval[idx] = chargeLostPerInterval;
+    lastDecayTick[idx] = gameTimeSupplier.getAsLong();
+  }
+
+  /**
+   * @return the game time at which the given element's charge will have decayed to zero, or Long.MAX_VALUE if it
+   *   doesn't decay
+   */
+  public long getTickWhenFullyDecayed(ElementType elementType) {
+    int idx = elementType.ordinal();
+    if (!isDecayEnabled(idx)) return Long.MAX_VALUE;
+    applyDecay(elementType);
+    if (chargeLevels[idx] <= 0) return lastDecayTick[idx];
+    long intervalsNeeded = (chargeLevels[idx] + chargeLostPerInterval[idx] - 1) / chargeLostPerInterval[idx];
+    return lastDecayTick[idx] + intervalsNeeded * decayIntervalTicks[idx];
+  }
+
+  /**
+   * Reset to the same state as a newly-created ElementalCharges: no charge, no decay, no listener.
+   * Used by ElementalChargesPool to recycle instances.
+   */
+  public void reset() {
+    for (int i = 0; i < ElementType.NUMBER_OF_ELEMENTS; ++i) {
+      chargeLevels[i] = 0;
+      decayIntervalTicks[i] = 0;
+      chargeLostPerInterval[i] = 0;
+      lastDecayTick[i] = 0;
+    }
+    gameTimeSupplier = null;
+    chargeChangedListener = elementType->{};
+  }
+
+  // the function to call whenever a charge is changed (not including decay)
+  // default is "do nothing"
+  public void setChargeChangedListener(ChargeChangedListener chargeChangedListener) {
+    this.chargeChangedListener = chargeChangedListener;
+  }
+
+  @FunctionalInterface
+  public interface ChargeChangedListener {
+    void onChargeChanged(ElementType elementType);
+  }
+
+  private void setChargeLevel(ElementType elementType, int chargeLevelToSet) {
+    int idx = elementType.ordinal();
+    chargeLevels[idx] = chargeLevelToSet;
+    if (isDecayEnabled(idx)) lastDecayTick[idx] = gameTimeSupplier.getAsLong();
+    chargeChangedListener.onChargeChanged(elementType);
+  }
+
+  private boolean isDecayEnabled(int idx) {
+    return gameTimeSupplier != null && decayIntervalTicks[idx] > 0;
+  }
+
+  // apply all the decay since the last time we did it
+  private void applyDecay(ElementType elementType) {
+    int idx = elementType.ordinal();
+    if (!isDecayEnabled(idx)) return;
+    long now = gameTimeSupplier.getAsLong();
+    if (chargeLevels[idx] <= 0 || now < lastDecayTick[idx]) {
+      lastDecayTick[idx] = now;
+      return;
+    }
+    long intervalsElapsed = (now - lastDecayTick[idx]) / decayIntervalTicks[idx];
+    if (intervalsElapsed == 0) return;
+    chargeLevels[idx] = (int)Math.max(0, chargeLevels[idx] - intervalsElapsed * chargeLostPerInterval[idx]);
+    lastDecayTick[idx] = (chargeLevels[idx] == 0) ? now : lastDecayTick[idx] + intervalsElapsed * decayIntervalTicks[idx];
+  }
+
+  private static final ElementType[] ELEMENT_TYPES = ElementType.values();
+
+  private final int[] chargeLevels = new int[ElementType.NUMBER_OF_ELEMENTS];
+
+  private LongSupplier gameTimeSupplier = null;  // null = no decay
+  private final int[] decayIntervalTicks = new int[ElementType.NUMBER_OF_ELEMENTS];  // 0 = no decay for this element
+  private final int[] chargeLostPerInterval = new int[ElementType.NUMBER_OF_ELEMENTS];
+  private final long[] lastDecayTick = new long[ElementType.NUMBER_OF_ELEMENTS];
+  private ChargeChangedListener chargeChangedListener = elementType->{};
+
+  // Convert to/from NBT: one int for each element, in ElementType order
+  public static class ElementalChargesNBTStorage implements Capability.IStorage<ElementalCharges> {
+    @Override
+    public INBT writeNBT(Capability<ElementalCharges> capability, ElementalCharges instance, Direction side) {
+      int [] charges = new int[ElementType.NUMBER_OF_ELEMENTS];
+      for (ElementType elementType : ELEMENT_TYPES) {
+        charges[elementType.ordinal()] = instance.getChargeLevel(elementType);
+      }
+      return new IntArrayNBT(charges);
+    }
+
+    @Override
+    public void readNBT(Capability<ElementalCharges> capability, ElementalCharges instance, Direction side, INBT nbt) {
+      int [] charges = new int[0];
+      if (nbt instanceof IntArrayNBT) {
+        charges = ((IntArrayNBT)nbt).getIntArray();
+      }
+      for (ElementType elementType : ELEMENT_TYPES) {  // missing elements (eg saved by an older version) are zero
+        int idx = elementType.ordinal();
+        int chargeLevel = (idx < charges.length) ? charges[idx] : 0;
+        if (chargeLevel != 0 || instance.chargeLevels[idx] != 0) instance.setChargeLevel(elementType, chargeLevel);
+      }
+    }
+  }
+
+  public static ElementalCharges createADefaultInstance() {
+    return new ElementalCharges();
+  }
+
+}
@@ -0,0 +1,65 @@
+package minecraftbyexample.mbe65_capability;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A pool of ElementalCharges for arrows, so that the elemental state of an arrow which has been removed from the world
+ *   can be reused for the next arrow that is fired, instead of allocating a new one each time.
+ * CapabilityProviderEntities acquires an ElementalCharges from the pool the first time an arrow's charges are needed,
+ *   and releases it when the arrow is removed from the world (when forge invalidates the arrow's capabilities).
+ *
+ * Only the elemental state is pooled, not the arrow entities themselves.  Vanilla doesn't support reusing an entity
+ *   after it has been removed: the entity ID and UUID, the client's copy of the entity, and the arrow's private fields
+ *   (inGround, pierced entities, pickup status, etc) would all need to be reset.
+ *
+ * Server thread only.  The statistics can be printed with /mbedebug test 6502.
+ */
+public class ElementalChargesPool {
+
+  /**
+   * Get an ElementalCharges from the pool, or a new one if the pool is empty
+   * @return an ElementalCharges in the same state as a new one
+   */
+  public static ElementalCharges acquire() {
+    ++numberOfAcquires;
+    ElementalCharges elementalCharges = freeInstances.pollFirst();
+    if (elementalCharges != null) {
+      ++numberOfHits;
+      return elementalCharges;
+    }
+    return new ElementalCharges();
+  }
+
+  /**
+   * Return an ElementalCharges to the pool.  Don't use it again afterwards!
+   */
+  public static void release(ElementalCharges elementalCharges) {
+    ++numberOfReleases;
+    if (freeInstances.size() >= MAXIMUM_POOL_SIZE) return;  // let the garbage collector have it
+    elementalCharges.reset();
+    freeInstances.addFirst(elementalCharges);
+  }
+
+  /**
+   * @return the fraction of acquires which reused a pooled instance (0.0 - 1.0)
+   */
+  public static double getHitRate() {
+    return numberOfAcquires == 0 ? 0.0 : numberOfHits / (double)numberOfAcquires;
+  }
+
+  public static String getStatistics() {
+    return String.format("ElementalChargesPool: %d acquires, %d releases, %d reused (hit rate %.1f%%), %d allocations saved, %d in pool",
+                         numberOfAcquires, numberOfReleases, numberOfHits, 100.0 * getHitRate(), numberOfHits,
+                         freeInstances.size());
+  }
+
+  private static final int MAXIMUM_POOL_SIZE = 256;
+  private static final Deque<ElementalCharges> freeInstances = new ArrayDeque<>();
+
+  private static long numberOfAcquires = 0;
+  private static long numberOfHits = 0;
+  private static long numberOfReleases = 0;
+}
@@ -0,0 +1,63 @@
+package minecraftbyexample.mbe65_capability;
+
+import minecraftbyexample.usefultools.HierarchicalTimingWheel;
+import net.minecraft.world.World;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Schedules the "decay events" for the elemental charge on entities, i.e. the time at which an entity's charge will
+ *   have fully decayed.
+ * The decay itself is calculated lazily when the charge is read (see ElementalCharges.enableDecay), so we don't need to
+ *   tick every charged entity.  We only need to do something at the moment the charge runs out (eg remove the speed
+ *   boost given by the fire).
+ * Each world has its own HierarchicalTimingWheel, so the cost per tick depends on the number of decay events, not on
+ *   the number of charged entities.
+ *
+ * Server side only.  Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class ElementalDecayScheduler {
+
+  @FunctionalInterface
+  public interface DecayListener {
+    void onDecayEvent();
+  }
+
+  /**
+   * Schedule a decay event
+   * @param world the world the entity is in
+   * @param tick the game time of the event
+   * @param listener called at the given tick.  Check whether the event is still relevant, eg the entity might have
+   *                 been given more charge in the meantime
+   */
+  public static void schedule(World world, long tick, DecayListener listener) {
+    if (world.isRemote) throw new IllegalArgumentException("ElementalDecayScheduler is only valid on the server");
+    HierarchicalTimingWheel<DecayListener> timingWheel =
+            timingWheels.computeIfAbsent(world, k -> new HierarchicalTimingWheel<>(world.getGameTime()));
+    timingWheel.schedule(listener, tick);
+  }
+
+  @SubscribeEvent
+  public static void onWorldTick(TickEvent.WorldTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+    HierarchicalTimingWheel<DecayListener> timingWheel = timingWheels.get(event.world);
+    if (timingWheel == null) return;
+    timingWheel.advanceTo(event.world.getGameTime(), DecayListener::onDecayEvent);
+  }
+
+  // the listeners refer to the entities, which refer to the world, so the weak key isn't enough to release it
+  @SubscribeEvent
+  public static void onWorldUnload(WorldEvent.Unload event) {
+    timingWheels.remove(event.getWorld());
+  }
+
+  // one timing wheel per world.  Weak keys as a backup; the timing wheel is removed when the world is unloaded.
+  private static final Map<World, HierarchicalTimingWheel<DecayListener>> timingWheels = new WeakHashMap<>();
+}
@@ -0,0 +1,115 @@
+package minecraftbyexample.mbe65_capability;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.play.server.SExplosionPacket;
+import net.minecraft.util.DamageSource;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.Explosion;
+import net.minecraft.world.ExplosionContext;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.ForgeEventFactory;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Collects the explosions caused by fire/air mixtures during a tick, and creates them at the end of the tick.
+ * Each explosion keeps its own centre and strength, so the damage to each entity and the blocks within reach of each
+ *   explosion are the same as if they had been created individually.  The batching shares the expensive part instead:
+ * 1) every explosion casts its rays and damages the entities (Explosion.doExplosionA)
+ * 2) the affected blocks of all the explosions are collected into one set, so that a block in the overlap of several
+ *    explosions is only destroyed (and its drops only spawned) once, by the first explosion which reached it
+ * 3) each explosion then destroys its share of the set (Explosion.doExplosionB)
+ * For example a volley of arrows into a crowd of mobs produces a dozen overlapping explosions, but each block in the
+ *   crater is only broken once.
+ *
+ * Server side only.  Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class ElementalExplosionBatcher {
+
+  /**
+   * Queue an explosion to be created at the end of this tick
+   * @param world
+   * @param position the centre of the explosion
+   * @param radius the explosion strength (as per World.createExplosion)
+   */
+  public static void addExplosion(World world, Vector3d position, float radius) {
+    if (world.isRemote) throw new IllegalArgumentException("ElementalExplosionBatcher is only valid on the server");
+    pendingExplosions.computeIfAbsent(world, k -> new ArrayList<>())
+                     .add(new PendingExplosion(position.getX(), position.getY(), position.getZ(), radius));
+  }
+
+  @SubscribeEvent
+  public static void onWorldTick(TickEvent.WorldTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+    List<PendingExplosion> pending = pendingExplosions.remove(event.world);
+    if (pending == null) return;
+    ServerWorld serverWorld = (ServerWorld)event.world;
+
+    // first pass: cast the rays and damage the entities, for every explosion.  This is the same as the first half of
+    //   World.createExplosion()
+    final Entity NO_ENTITY_CAUSED_DAMAGE = null;
+    final boolean CAUSES_FIRE = true;
+    List<PendingExplosion> started = new ArrayList<>(pending.size());
+    for (PendingExplosion pendingExplosion : pending) {
+      Explosion explosion = new Explosion(serverWorld, NO_ENTITY_CAUSED_DAMAGE, DamageSource.MAGIC, (ExplosionContext)null,
+                                          pendingExplosion.x, pendingExplosion.y, pendingExplosion.z,
+                                          pendingExplosion.radius, CAUSES_FIRE, Explosion.Mode.BREAK);
+      if (ForgeEventFactory.onExplosionStart(serverWorld, explosion)) continue;  // cancelled
+      explosion.doExplosionA();
+      pendingExplosion.explosion = explosion;
+      started.add(pendingExplosion);
+    }
+
+    // each block is only destroyed once, by the first explosion which reached it
+    Set<BlockPos> destroyedBlocks = new HashSet<>();
+    for (PendingExplosion pendingExplosion : started) {
+      pendingExplosion.explosion.getAffectedBlockPositions().removeIf(blockPos -> !destroyedBlocks.add(blockPos));
+    }
+
+    // second pass: destroy the blocks and tell the nearby clients, same as the second half of ServerWorld.createExplosion()
+    final boolean SPAWN_PARTICLES = false;  // the clients spawn the particles when they receive the SExplosionPacket
+    final double MAXIMUM_DISTANCE_SQ_TO_NOTIFY = 64.0 * 64.0;
+    for (PendingExplosion pendingExplosion : started) {
+      Explosion explosion = pendingExplosion.explosion;
+      explosion.doExplosionB(SPAWN_PARTICLES);
+      for (ServerPlayerEntity player : serverWorld.getPlayers()) {
+        if (player.getDistanceSq(pendingExplosion.x, pendingExplosion.y, pendingExplosion.z) < MAXIMUM_DISTANCE_SQ_TO_NOTIFY) {
+          player.connection.sendPacket(new SExplosionPacket(pendingExplosion.x, pendingExplosion.y, pendingExplosion.z,
+                                       pendingExplosion.radius, explosion.getAffectedBlockPositions(),
+                                       explosion.getPlayerKnockbackMap().get(player)));
+        }
+      }
+    }
+  }
+
+  private static class PendingExplosion {
+    PendingExplosion(double x, double y, double z, float radius) {
+      this.x = x;
+      this.y = y;
+      this.z = z;
+      this.radius = radius;
+    }
+
+    final double x;
+    final double y;
+    final double z;
+    final float radius;
+    Explosion explosion;  // set once the explosion has been started
+  }
+
+  // the explosions waiting to be created, for each world.  Weak keys so that nothing is kept if the world is unloaded.
+  private static final Map<World, List<PendingExplosion>> pendingExplosions = new WeakHashMap<>();
+}
@@ -3,16 +3,12 @@ package minecraftbyexample.mbe65_capability;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.projectile.AbstractArrowEntity;
-import net.minecraft.particles.ParticleTypes;
 import net.minecraft.potion.EffectInstance;
 import net.minecraft.potion.Effects;
-import net.minecraft.util.DamageSource;
 import net.minecraft.util.math.BlockRayTraceResult;
 import net.minecraft.util.math.EntityRayTraceResult;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.util.math.vector.Vector3d;
-import net.minecraft.world.Explosion;
-import net.minecraft.world.ExplosionContext;
 import net.minecraft.world.World;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.event.entity.ProjectileImpactEvent;
@@ -28,13 +24,17 @@ import java.util.Optional;
  * This class models what happens when elemental Fire or Air interact with Entities:
  *
  * 1) The arrow disappears immediately without causing damage or impact
- * 2) If the arrow strikes a block, it produces a harmless particle effect only
+ * 2) If the arrow strikes a block, it produces a harmless particle effect only.  The particle effects are batched up
+ *    by ElementalParticleBatcher and sent to the clients once per tick.
  * 3) If the arrow strikes a living entity:
  *   a) Elemental Air is transferred to the entity.  The entity levitates into the air by a variable amount depending
  *      on how much Elemental Air it has accumulated
  *   b) Elemental Fire is transferred to the entity.  The entity receives a variable speed boost depending on how
  *      much Elemental Fire is has accumulated
- *   c) If the entity receives both Elemental Air and Elemental Fire, it explodes.
+ *   c) If the entity receives both Elemental Air and Elemental Fire, it explodes.  The explosions are created at the
+ *      end of the tick by ElementalExplosionBatcher, so that overlapping explosions only destroy each block once.
+ * 4) The Elemental Air and Elemental Fire held by a living entity gradually decay.  When the fire has gone, so has the
+ *    speed boost.
  *
  * It is triggered by subscribing to the ProjectileImpactEvent.
  *
@@ -47,36 +47,51 @@ public class ElementalInteractions {
   public static final int MAX_AIR_CHARGE_LEVEL_ARROW = 100;    // an arrow can't hold more than this amount of air
   public static final int MAX_AIR_CHARGE_LEVEL_ENTITY = 1000;  // a living entity can't hold more than this amount of air
 
+  public static final int FIRE_DECAY_PER_SECOND = 10;  // a living entity loses this much fire every second
+  public static final int AIR_DECAY_PER_SECOND = 20;   // a living entity loses this much air every second
+
+  public static final float MAXIMUM_EXPLOSION_RADIUS = 10F;  // the strength of the explosion when an entity is fully charged
+
   // When a fire or air arrow strikes an entity or block...
   @SubscribeEvent
   public static void onProjectileImpact(ProjectileImpactEvent.Arrow event) {
     AbstractArrowEntity arrowEntity = event.getArrow();
-    ElementalFire arrowFire = arrowEntity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).orElse(null);
-    ElementalAir arrowAir = arrowEntity.getCapability(CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR).orElse(null);
-
-    // If this arrow wasn't fired by an elemental bow, return immediately and treat it like a vanilla arrow
-    if (    (arrowFire == null || arrowFire.getChargeLevel() == 0)
-            && (arrowAir == null || arrowAir.getChargeLevel() == 0)) {
-      return;
-    }
-
     World world = arrowEntity.getEntityWorld();
     if (world.isRemote()) return;
     if (!(world instanceof ServerWorld)) throw new AssertionError("ServerWorld expected");
     ServerWorld serverWorld = (ServerWorld)world;
 
+    // If this arrow wasn't fired by an elemental bow, return immediately and treat it like a vanilla arrow.
+    // Check the status first, so that we don't create an ElementalCharges for every vanilla arrow
+    ElementalChargeStatus arrowChargeStatus =
+            arrowEntity.getCapability(CapabilityElementalChargeStatus.CAPABILITY_ELEMENTAL_CHARGE_STATUS).orElse(null);
+    if (arrowChargeStatus == null || !arrowChargeStatus.hasAnyCharge()) {
+      return;
+    }
+    ElementalCharges arrowCharges =
+            arrowEntity.getCapability(CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES).orElse(null);
+    if (arrowCharges == null) return;
+
+    int arrowFire = arrowCharges.getChargeLevel(ElementType.FIRE);
+    int arrowAir = arrowCharges.getChargeLevel(ElementType.AIR);
+
     RayTraceResult rayTraceResult = event.getRayTraceResult();
     switch (rayTraceResult.getType()) {
       case BLOCK:
-        if (arrowFire != null) blockHitFire(serverWorld, rayTraceResult, arrowFire);
-        if (arrowAir != null) blockHitAir(serverWorld, rayTraceResult, arrowAir);
+        blockHitFire(serverWorld, rayTraceResult, arrowFire);
+        blockHitAir(serverWorld, rayTraceResult, arrowAir);
         break;
       case ENTITY:
         Optional<LivingEntity> livingEntity = getLivingEntityFromRayTraceResult(rayTraceResult);
         if (livingEntity.isPresent()) {
-          if (arrowAir != null) entityHitAir(serverWorld, livingEntity.get(), arrowAir);
-          if (arrowFire != null) entityHitFire(serverWorld, livingEntity.get(), arrowFire);
-          checkForFireAirMixture(serverWorld, livingEntity.get());
+          // one lookup gives us all the entity's charges.  The arrow has a charge, so it's ok to create them.
+          ElementalCharges entityCharges =
+                  livingEntity.get().getCapability(CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES).orElse(null);
+          if (entityCharges != null) {
+            entityHitAir(serverWorld, livingEntity.get(), entityCharges, arrowAir);
+            entityHitFire(serverWorld, livingEntity.get(), entityCharges, arrowFire);
+            checkForFireAirMixture(serverWorld, livingEntity.get(), entityCharges);
+          }
         }
         break;
 
@@ -97,11 +112,10 @@ public class ElementalInteractions {
    * When the block is hit by a fire arrow, spawn particles at the point of impact
    * @param serverWorld
    * @param rayTraceResult
-   * @param fireInterfaceInstance
+   * @param arrowFireChargeLevel
    */
   private static void blockHitFire(ServerWorld serverWorld, RayTraceResult rayTraceResult,
-                                   ElementalFire fireInterfaceInstance) {
-    int arrowFireChargeLevel = fireInterfaceInstance.getChargeLevel();
+                                   int arrowFireChargeLevel) {
     if (arrowFireChargeLevel == 0) return;
 
     if (!(rayTraceResult instanceof BlockRayTraceResult)) throw new AssertionError("BlockRayTraceResult expected");
@@ -110,60 +124,49 @@ public class ElementalInteractions {
 
     final int MAX_SMOKE_PARTICLES = 20;
     int smokeParticleCount = 1 + ((MAX_SMOKE_PARTICLES - 1) * arrowFireChargeLevel / MAX_FIRE_CHARGE_LEVEL_ARROW);
-    final Vector3d OFFSET_VARIATION = new Vector3d(0.5, 0.25, 0.5);
-    final int SPEED = 0;
-
-    serverWorld.spawnParticle(ParticleTypes.LARGE_SMOKE, hitPosition.getX(), hitPosition.getY(), hitPosition.getZ(),
-            smokeParticleCount, OFFSET_VARIATION.getX(), OFFSET_VARIATION.getY(), OFFSET_VARIATION.getZ(), SPEED);
 
-    serverWorld.spawnParticle(ParticleTypes.FLAME, hitPosition.getX(), hitPosition.getY(), hitPosition.getZ(),
-            1, 0, 0, 0, SPEED);
+    // the smoke and flame particles are sent to the clients at the end of the tick, together with all the others
+    ElementalParticleBatcher.addEffect(serverWorld, ElementalParticleRecipes.EffectType.FIRE_IMPACT,
+                                       hitPosition, smokeParticleCount);
   }
 
   /**
    * When the block is hit by an air arrow, spawn particles at the point of impact
    * @param serverWorld
    * @param rayTraceResult
-   * @param airInterfaceInstance
+   * @param arrowAirChargeLevel
    */
   private static void blockHitAir(ServerWorld serverWorld, RayTraceResult rayTraceResult,
-                                   ElementalAir airInterfaceInstance) {
-    int arrowAirChargeLevel = airInterfaceInstance.getChargeLevel();
+                                  int arrowAirChargeLevel) {
     if (arrowAirChargeLevel == 0) return;
 
     if (!(rayTraceResult instanceof BlockRayTraceResult)) throw new AssertionError("BlockRayTraceResult expected");
     BlockRayTraceResult blockRayTraceResult = (BlockRayTraceResult)rayTraceResult;
     Vector3d hitPosition = blockRayTraceResult.getHitVec();
 
-    final Vector3d OFFSET_VARIATION = new Vector3d(0.0, 0.0, 0.0);
-    final int SPEED = 0;
-    final int PARTICLE_COUNT = 1;
-    serverWorld.spawnParticle(ParticleTypes.CLOUD, hitPosition.getX(), hitPosition.getY(), hitPosition.getZ(),
-            PARTICLE_COUNT, OFFSET_VARIATION.getX(), OFFSET_VARIATION.getY(), OFFSET_VARIATION.getZ(), SPEED);
-
-    serverWorld.spawnParticle(ParticleTypes.HAPPY_VILLAGER, hitPosition.getX(), hitPosition.getY(), hitPosition.getZ(),
-            1, 0, 0, 0, SPEED);
+    final int NUMBER_OF_HITS = 1;
+    ElementalParticleBatcher.addEffect(serverWorld, ElementalParticleRecipes.EffectType.AIR_IMPACT,
+                                       hitPosition, NUMBER_OF_HITS);
   }
 
   /**
    * When the entity is hit by a fire arrow, add to the entity's elemental fire level and grant it a speed boost
    * @param serverWorld
    * @param livingEntity
-   * @param arrowFire
+   * @param entityCharges
+   * @param arrowFireChargeLevel
    */
   private static void entityHitFire(ServerWorld serverWorld, LivingEntity livingEntity,
-                                    ElementalFire arrowFire) {
-    ElementalFire entityFire = livingEntity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).orElse(null);
-    if (arrowFire.getChargeLevel() == 0) return;
-    if (entityFire == null) return;
+                                    ElementalCharges entityCharges, int arrowFireChargeLevel) {
+    if (arrowFireChargeLevel == 0) return;
 
-    entityFire.addCharge(arrowFire.getChargeLevel());
+    entityCharges.addCharge(ElementType.FIRE, arrowFireChargeLevel);
 
     final int DURATION_SECONDS = 600;
     final int TICKS_PER_SECOND = 20;
     final int DURATION_TICKS = DURATION_SECONDS * TICKS_PER_SECOND;
     final int MAXIMUM_AMPLIFICATION = 10;
-    int amplification = 0 + MAXIMUM_AMPLIFICATION * (entityFire.getChargeLevel() / MAX_FIRE_CHARGE_LEVEL_ENTITY);
+    int amplification = 0 + MAXIMUM_AMPLIFICATION * (entityCharges.getChargeLevel(ElementType.FIRE) / MAX_FIRE_CHARGE_LEVEL_ENTITY);
     EffectInstance speedEffect = new EffectInstance(Effects.SPEED, DURATION_TICKS, amplification);
     livingEntity.addPotionEffect(speedEffect);
   }
@@ -172,54 +175,65 @@ public class ElementalInteractions {
    * When the entity is hit by an air arrow, add to the entity's elemental air level and levitate it
    * @param serverWorld
    * @param livingEntity
-   * @param arrowAir
+   * @param entityCharges
+   * @param arrowAirChargeLevel
    */
   private static void entityHitAir(ServerWorld serverWorld, LivingEntity livingEntity,
-                                    ElementalAir arrowAir) {
-    ElementalAir entityAir = livingEntity.getCapability(CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR).orElse(null);
-    if (entityAir == null) return;
-    if (arrowAir.getChargeLevel() == 0) return;
+                                   ElementalCharges entityCharges, int arrowAirChargeLevel) {
+    if (arrowAirChargeLevel == 0) return;
 
-    entityAir.addCharge(arrowAir.getChargeLevel());
+    entityCharges.addCharge(ElementType.AIR, arrowAirChargeLevel);
 
     final int DURATION_SECONDS = 2;
     final int TICKS_PER_SECOND = 20;
     final int DURATION_TICKS = DURATION_SECONDS * TICKS_PER_SECOND;
     final int MAXIMUM_AMPLIFICATION = 10;
-    float amplification = 0 + MAXIMUM_AMPLIFICATION * (entityAir.getChargeLevel() / (float)MAX_AIR_CHARGE_LEVEL_ENTITY);
+    float amplification = 0 + MAXIMUM_AMPLIFICATION * (entityCharges.getChargeLevel(ElementType.AIR) / (float)MAX_AIR_CHARGE_LEVEL_ENTITY);
     EffectInstance speedEffect = new EffectInstance(Effects.LEVITATION, DURATION_TICKS, (int)amplification);
     livingEntity.addPotionEffect(speedEffect);
   }
 
   /**
-   * If the entity has both fire and air, create an explosion (the greater the stored fire and air, the greater the explosion)
+   * If the entity has both fire and air, create an explosion at the end of the tick (the greater the stored fire and air, the greater the explosion)
    * @param serverWorld
    * @param livingEntity
+   * @param entityCharges
    */
-  private static void checkForFireAirMixture(ServerWorld serverWorld, LivingEntity livingEntity) {
-    ElementalFire entityFire = livingEntity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).orElse(null);
-    if (entityFire == null) return;
-    ElementalAir entityAir = livingEntity.getCapability(CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR).orElse(null);
-    if (entityAir == null) return;
-    if (entityAir.getChargeLevel() > 0 && entityFire.getChargeLevel() > 0) {
+  private static void checkForFireAirMixture(ServerWorld serverWorld, LivingEntity livingEntity,
+                                             ElementalCharges entityCharges) {
+    int entityAir = entityCharges.getChargeLevel(ElementType.AIR);
+    int entityFire = entityCharges.getChargeLevel(ElementType.FIRE);
+    if (entityAir > 0 && entityFire > 0) {
       Vector3d entityPos = livingEntity.getPositionVec();
 
       final float MINIMUM_RADIUS = 0.5F;
-      final float MAXIMUM_RADIUS = 10F;
-      float airChargeFraction = entityAir.getChargeLevel() / (float)MAX_AIR_CHARGE_LEVEL_ENTITY;
-      float fireChargeFraction = entityFire.getChargeLevel() / (float)MAX_FIRE_CHARGE_LEVEL_ENTITY;
+      float airChargeFraction = entityAir / (float)MAX_AIR_CHARGE_LEVEL_ENTITY;
+      float fireChargeFraction = entityFire / (float)MAX_FIRE_CHARGE_LEVEL_ENTITY;
       float combinedChargeFraction = Math.max(airChargeFraction, fireChargeFraction);
 
-      float explosionRadius = MINIMUM_RADIUS + (MAXIMUM_RADIUS - MINIMUM_RADIUS) * combinedChargeFraction;
+      float explosionRadius = MINIMUM_RADIUS + (MAXIMUM_EXPLOSION_RADIUS - MINIMUM_RADIUS) * combinedChargeFraction;
 
-      final Entity NO_ENTITY_CAUSED_DAMAGE = null;
-      final boolean CAUSES_FIRE = true;
-      serverWorld.createExplosion(NO_ENTITY_CAUSED_DAMAGE, DamageSource.MAGIC, (ExplosionContext)null,
-                                  entityPos.getX(), entityPos.getY(), entityPos.getZ(),
-                                  explosionRadius, CAUSES_FIRE, Explosion.Mode.BREAK);
+      // the explosion happens at the end of the tick, batched together with any others (see ElementalExplosionBatcher)
+      ElementalExplosionBatcher.addExplosion(serverWorld, entityPos, explosionRadius);
     }
   }
 
+  /**
+   * Called when the elemental fire held by an entity has fully decayed: remove the speed boost that the fire gave it
+   * @param livingEntity
+   */
+  public static void onFireFullyDecayed(LivingEntity livingEntity) {
+    livingEntity.removePotionEffect(Effects.SPEED);
+  }
+
+  /**
+   * Called when the elemental air held by an entity has fully decayed.
+   * Nothing to do: the levitation effect only lasts a short time anyway.
+   * @param livingEntity
+   */
+  public static void onAirFullyDecayed(LivingEntity livingEntity) {
+  }
+
   /**
    * Retrieves a LivingEntity from the rayTraceResult, if possible
    * @param rayTraceResult
@@ -0,0 +1,99 @@
+package minecraftbyexample.mbe65_capability;
+
+import minecraftbyexample.mbe60_network_messages.ParticleRecipeMessageToClient;
+import minecraftbyexample.mbe60_network_messages.ParticleRecipes;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Collects the particle effects caused by elemental arrow impacts during a tick, and at the end of the tick sends each
+ *   player a single ParticleRecipeMessageToClient containing all the effects within particle range of that player.
+ * Effects of the same type in the same block are merged into one (their intensities are added together), so a volley
+ *   of arrows into the same spot costs hardly any more than a single arrow.
+ * Each effect gets its own random seed (see ElementalParticleRecipes), so all the players see the same particles.
+ *
+ * Server side only.  Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class ElementalParticleBatcher {
+
+  /**
+   * Queue an effect to be sent to the nearby players at the end of this tick
+   * @param world
+   * @param effectType
+   * @param position
+   * @param intensity the meaning depends on the effectType; see ElementalParticleRecipes.EffectType
+   */
+  public static void addEffect(World world, ElementalParticleRecipes.EffectType effectType, Vector3d position,
+                               int intensity) {
+    if (world.isRemote) throw new IllegalArgumentException("ElementalParticleBatcher is only valid on the server");
+    Map<BlockPos, PendingEffect> effectsOfThisType =
+            pendingEffects.computeIfAbsent(world, k -> new EnumMap<>(ElementalParticleRecipes.EffectType.class))
+                          .computeIfAbsent(effectType, k -> new LinkedHashMap<>());
+    BlockPos blockPos = new BlockPos(position);
+    PendingEffect existingEffect = effectsOfThisType.get(blockPos);
+    if (existingEffect != null) {
+      position = existingEffect.position;
+      intensity = Math.min(intensity + existingEffect.intensity, ElementalParticleRecipes.MAX_INTENSITY);
+    }
+    effectsOfThisType.put(blockPos, new PendingEffect(position, intensity));
+  }
+
+  @SubscribeEvent
+  public static void onWorldTick(TickEvent.WorldTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+    Map<ElementalParticleRecipes.EffectType, Map<BlockPos, PendingEffect>> effectsByType = pendingEffects.remove(event.world);
+    if (effectsByType == null) return;
+    if (!(event.world instanceof ServerWorld)) return;
+    ServerWorld serverWorld = (ServerWorld)event.world;
+
+    // the recipes (including the random seeds) are created once, and the same ones are sent to every player
+    List<ParticleRecipeMessageToClient.Recipe> allRecipes = new ArrayList<>();
+    for (Map.Entry<ElementalParticleRecipes.EffectType, Map<BlockPos, PendingEffect>> entry : effectsByType.entrySet()) {
+      int recipeID = entry.getKey().getRecipeID();
+      for (PendingEffect effect : entry.getValue().values()) {
+        allRecipes.add(ParticleRecipes.createRecipe(recipeID, effect.position, effect.intensity));
+      }
+    }
+
+    for (ServerPlayerEntity player : serverWorld.getPlayers()) {
+      Vector3d playerPosition = player.getPositionVec();
+      List<ParticleRecipeMessageToClient.Recipe> recipesForThisPlayer = new ArrayList<>();
+      for (ParticleRecipeMessageToClient.Recipe recipe : allRecipes) {
+        if (recipe.getPosition().squareDistanceTo(playerPosition) > PARTICLE_RANGE * PARTICLE_RANGE) continue;
+        recipesForThisPlayer.add(recipe);
+      }
+      if (!recipesForThisPlayer.isEmpty()) ParticleRecipes.send(player, recipesForThisPlayer);
+    }
+  }
+
+  private static class PendingEffect {
+    PendingEffect(Vector3d position, int intensity) {
+      this.position = position;
+      this.intensity = intensity;
+    }
+
+    final Vector3d position;
+    final int intensity;
+  }
+
+  private static final double PARTICLE_RANGE = 32.0;  // the same range as ServerWorld.spawnParticle
+
+  // the effects waiting to be sent, for each world.  Weak keys so that nothing is kept if the world is unloaded.
+  private static final Map<World, Map<ElementalParticleRecipes.EffectType, Map<BlockPos, PendingEffect>>>
+          pendingEffects = new WeakHashMap<>();
+}
@@ -0,0 +1,77 @@
+package minecraftbyexample.mbe65_capability;
+
+import minecraftbyexample.mbe60_network_messages.ParticleRecipes;
+import net.minecraft.particles.IParticleData;
+import net.minecraft.particles.ParticleTypes;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+
+import java.util.Random;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * The particle effects from elemental arrow impacts.  Each effect is registered as a ParticleRecipe (see mbe60), so
+ *   the server only sends the type, position, intensity and a random seed, and the client spawns the particles.
+ * The particles are the same ones that ServerWorld.spawnParticle would have produced.
+ */
+public class ElementalParticleRecipes {
+
+  public enum EffectType {
+    FIRE_IMPACT(FIRE_IMPACT_RECIPE_ID),  // smoke (intensity = number of smoke particles) + one flame
+    AIR_IMPACT(AIR_IMPACT_RECIPE_ID);    // one cloud + one happy villager for each hit (intensity = number of hits)
+
+    EffectType(int recipeID) {
+      this.recipeID = recipeID;
+    }
+
+    public int getRecipeID() {return recipeID;}
+
+    private final int recipeID;
+  }
+
+  /**
+   * Register the recipes.  Call during setup, on both sides.
+   */
+  public static void registerRecipes() {
+    ParticleRecipes.register(FIRE_IMPACT_RECIPE_ID, ElementalParticleRecipes::spawnFireImpact);
+    ParticleRecipes.register(AIR_IMPACT_RECIPE_ID, ElementalParticleRecipes::spawnAirImpact);
+  }
+
+  // parameters[0] = intensity
+  private static void spawnFireImpact(World world, Vector3d position, Random random, float [] parameters) {
+    final Vector3d SMOKE_OFFSET_VARIATION = new Vector3d(0.5, 0.25, 0.5);
+    spawnParticles(world, random, ParticleTypes.LARGE_SMOKE, position, getIntensity(parameters), SMOKE_OFFSET_VARIATION);
+    spawnParticles(world, random, ParticleTypes.FLAME, position, 1, Vector3d.ZERO);
+  }
+
+  // parameters[0] = intensity
+  private static void spawnAirImpact(World world, Vector3d position, Random random, float [] parameters) {
+    int intensity = getIntensity(parameters);
+    spawnParticles(world, random, ParticleTypes.CLOUD, position, intensity, Vector3d.ZERO);
+    spawnParticles(world, random, ParticleTypes.HAPPY_VILLAGER, position, intensity, Vector3d.ZERO);
+  }
+
+  // the parameters come from the network, so don't trust them
+  private static int getIntensity(float [] parameters) {
+    if (parameters.length < 1) return 0;
+    return (int)Math.max(0, Math.min(parameters[0], MAX_INTENSITY));  // also turns NaN into 0
+  }
+
+  // spawns the particles the same way as the vanilla client does for an SSpawnParticlePacket with zero speed:
+  //  gaussian spread around the position
+  private static void spawnParticles(World world, Random random, IParticleData particleData, Vector3d position,
+                                     int count, Vector3d offsetVariation) {
+    for (int i = 0; i < count; ++i) {
+      double x = position.getX() + random.nextGaussian() * offsetVariation.getX();
+      double y = position.getY() + random.nextGaussian() * offsetVariation.getY();
+      double z = position.getZ() + random.nextGaussian() * offsetVariation.getZ();
+      world.addParticle(particleData, x, y, z, 0, 0, 0);
+    }
+  }
+
+  public static final int MAX_INTENSITY = 255;
+
+  public static final int FIRE_IMPACT_RECIPE_ID = 65;
+  public static final int AIR_IMPACT_RECIPE_ID = 66;
+}
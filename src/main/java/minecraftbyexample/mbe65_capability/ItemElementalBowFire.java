@@ -53,9 +53,9 @@ public class ItemElementalBowFire extends BowItem  // extend BowItem instead of
    * @param fireCharge
    */
   private void setElementalFireLevel(Entity abstractArrowEntity, int fireCharge) {
-    ElementalFire fireInterface = abstractArrowEntity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).orElse(null);
-    if (fireInterface == null) return;;
-    fireInterface.addCharge(fireCharge);
+    ElementalCharges arrowCharges = abstractArrowEntity.getCapability(CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES).orElse(null);
+    if (arrowCharges == null) return;
+    arrowCharges.addCharge(ElementType.FIRE, fireCharge);
   }
 
   /**
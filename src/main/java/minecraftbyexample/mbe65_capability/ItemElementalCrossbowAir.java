@@ -58,9 +58,9 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
     * @param airCharge
     */
    private static void setElementalAirLevel(Entity abstractArrowEntity, int airCharge) {
-     ElementalAir airInterface = abstractArrowEntity.getCapability(CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR).orElse(null);
-     if (airInterface == null) return;
-     airInterface.addCharge(airCharge);
+     ElementalCharges arrowCharges = abstractArrowEntity.getCapability(CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES).orElse(null);
+     if (arrowCharges == null) return;
+     arrowCharges.addCharge(ElementType.AIR, airCharge);
    }
 
    /**
@@ -224,14 +224,15 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
     }
   }
 
+  // the decoded NBT is cached (see ChargedProjectilesCache) because isCharged is called every frame during rendering
   public static boolean isCharged(ItemStack crossbowItemStack) {
-    CompoundNBT crossbowBaseTag = crossbowItemStack.getTag();
-    return crossbowBaseTag != null && crossbowBaseTag.getBoolean("Charged");
+    return ChargedProjectilesCache.isCharged(crossbowItemStack);
   }
 
   public static void setCharged(ItemStack itemStackCrossbow, boolean charged) {
     CompoundNBT crossbowBaseTag = itemStackCrossbow.getOrCreateTag();
     crossbowBaseTag.putBoolean("Charged", charged);
+    ChargedProjectilesCache.invalidate(itemStackCrossbow);
   }
 
   private static void addChargedProjectile(ItemStack itemStackCrossbow, ItemStack itemStackProjectile) {
@@ -247,22 +248,12 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
     itemStackProjectile.write(projectileNBT);
     listOfProjectilesNBT.add(projectileNBT);
     crossbowBaseTag.put("ChargedProjectiles", listOfProjectilesNBT);
+    ChargedProjectilesCache.invalidate(itemStackCrossbow);
   }
 
+  // the decoded projectiles are cached (see ChargedProjectilesCache), so the returned ItemStacks mustn't be modified
   private static List<ItemStack> getChargedProjectiles(ItemStack crossbowItemStack) {
-    ArrayList projectileList = Lists.newArrayList();
-    CompoundNBT crossbowBaseTag = crossbowItemStack.getTag();
-    if (crossbowBaseTag != null && crossbowBaseTag.contains("ChargedProjectiles", NBTtypesMBE.LIST_NBT_ID)) {
-      ListNBT chargedProjectilesNBTlist = crossbowBaseTag.getList("ChargedProjectiles", NBTtypesMBE.COMPOUND_NBT_ID);
-      if (chargedProjectilesNBTlist != null) {
-        for (int i = 0; i < chargedProjectilesNBTlist.size(); ++i) {
-          CompoundNBT projectileNBT = chargedProjectilesNBTlist.getCompound(i);
-          projectileList.add(ItemStack.read(projectileNBT));
-        }
-      }
-    }
-
-    return projectileList;
+    return ChargedProjectilesCache.getChargedProjectiles(crossbowItemStack);
   }
 
   private static void clearProjectiles(ItemStack crossbowItemStack) {
@@ -271,6 +262,7 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
       ListNBT chargedProjectileListNBT = crossbowBaseTag.getList("ChargedProjectiles", NBTtypesMBE.LIST_NBT_ID);
       chargedProjectileListNBT.clear();
       crossbowBaseTag.put("ChargedProjectiles", chargedProjectileListNBT);
+      ChargedProjectilesCache.invalidate(crossbowItemStack);
     }
   }
 
@@ -2,6 +2,7 @@ package minecraftbyexample.mbe65_capability;
 
 import minecraftbyexample.mbe32_inventory_item.ContainerFlowerBag;
 import minecraftbyexample.mbe32_inventory_item.ItemFlowerBag;
+import minecraftbyexample.mbe65_capability.testharness.ServerLifecycleEvents;
 import net.minecraft.client.Minecraft;
 import net.minecraft.inventory.container.ContainerType;
 import net.minecraft.item.Item;
@@ -37,10 +38,25 @@ public class StartupCommon
     // used to define our Capabilities
     CapabilityElementalFire.register();
     CapabilityElementalAir.register();
+    CapabilityElementalCharges.register();
+    CapabilityElementalChargeStatus.register();
     // CapabilityAttachEvent is used to attach Capabilities to vanilla objects
     MinecraftForge.EVENT_BUS.register(CapabilityAttachEventHandler.class);
 
     // used to capture the ProjectileImpactEvent event, for when the arrow hits a target.
     MinecraftForge.EVENT_BUS.register(ElementalInteractions.class);
+
+    // the particle effects from arrow impacts are batched up and sent once per tick, as particle recipes on the mbe60
+    //   channel (see mbe60 ParticleRecipes for more information)
+    ElementalParticleRecipes.registerRecipes();
+    MinecraftForge.EVENT_BUS.register(ElementalParticleBatcher.class);
+
+    // the explosions from fire/air mixtures are created at the end of each tick, merging any which overlap
+    MinecraftForge.EVENT_BUS.register(ElementalExplosionBatcher.class);
+
+    // used to schedule the decay of elemental charge on entities
+    MinecraftForge.EVENT_BUS.register(ElementalDecayScheduler.class);
+
+    MinecraftForge.EVENT_BUS.register(ServerLifecycleEvents.class);  // used for our test harness code only; delete if you don't want that
   }
 }
@@ -0,0 +1,24 @@
+package minecraftbyexample.mbe65_capability.testharness;
+
+import minecraftbyexample.usefultools.debugging.DebugSettings;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+
+/**
+ * Created by TGG on 18/10/2020.
+ * Used in conjunction with the MBEdebugCommand to trigger execution of an in-game test
+ *
+ * /mbedebug test testnumber   (6500 - 6599)
+ */
+public class DebugTestWatcherMBE65 {
+  @SubscribeEvent
+  public static void onServerTick(TickEvent.PlayerTickEvent event) {
+    if (event.side != LogicalSide.SERVER) return;
+
+    int testNumber = DebugSettings.getDebugTest(6500, 6600);
+    if (testNumber == DebugSettings.NO_TEST_TRIGGERED) return;
+    testRunner.runServerSideTest(event.player.world, event.player, testNumber);
+  }
+  public static TestRunnerMBE65 testRunner = new TestRunnerMBE65();
+}
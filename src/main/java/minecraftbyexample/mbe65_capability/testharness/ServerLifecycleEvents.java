@@ -0,0 +1,20 @@
+package minecraftbyexample.mbe65_capability.testharness;
+
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * Register our test harness when the server starts up.
+ *
+ * Don't forget to register this class on the MinecraftForge.EVENT_BUS.
+ */
+public class ServerLifecycleEvents
+{
+  @SubscribeEvent
+  public static void onServerStartingEvent(FMLServerStartingEvent event) {
+    MinecraftForge.EVENT_BUS.register(DebugTestWatcherMBE65.class);
+  }
+}
@@ -0,0 +1,64 @@
+package minecraftbyexample.mbe65_capability.testharness;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.world.World;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Test Runner for MBE65
+ * 6501 = benchmark of the memory allocated by capability lookups
+ * 6502 = ElementalChargesPool statistics, and benchmark of the memory saved by pooling
+ */
+public class TestRunnerMBE65
+{
+  public boolean runServerSideTest(World worldIn, PlayerEntity playerIn, int testNumber)
+  {
+    boolean success = false;
+    switch (testNumber) {
+      case 6501: {
+        TestRunnerMBE65_A testRunner = new TestRunnerMBE65_A();
+        success = testRunner.runTest(worldIn, playerIn);
+        break;
+      }
+      case 6502: {
+        TestRunnerMBE65_B testRunner = new TestRunnerMBE65_B();
+        success = testRunner.runTest(worldIn, playerIn);
+        break;
+      }
+      default: {  // not intended for this TestRunner
+        return false;
+      }
+    }
+
+    LOGGER.error("Test Number " + testNumber + " called on server side:" + (success ? "success" : "failure"));
+    return success;
+  }
+
+  /**
+   * Prints success or failure of test
+   * @param resultChainIn
+   * @param failmessage
+   * @param result
+   * @return resultChainIn && result
+   */
+  public static boolean test(boolean resultChainIn, String failmessage, boolean result) {
+    LOGGER.error("Test #" + failmessage + (result ? " passed." : " failed."));
+    return resultChainIn && result;
+  }
+
+  /**
+   * How many bytes have been allocated by the current thread so far?
+   * @return the number of bytes, or -1 if the JVM doesn't support allocation measurement
+   */
+  public static long getAllocatedBytesForCurrentThread() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) return -1;
+    return ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -0,0 +1,83 @@
+package minecraftbyexample.mbe65_capability.testharness;
+
+import minecraftbyexample.mbe65_capability.CapabilityElementalCharges;
+import minecraftbyexample.mbe65_capability.ElementType;
+import minecraftbyexample.mbe65_capability.ElementalAir;
+import minecraftbyexample.mbe65_capability.ElementalCharges;
+import minecraftbyexample.mbe65_capability.ElementalFire;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.world.World;
+import net.minecraftforge.common.util.LazyOptional;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Created by TGG on 18/10/2020.
+ * Benchmark: memory allocated by getCapability, comparing
+ * 1) the old method: a new LazyOptional (and lambda) created for every query, with a separate fire lookup and air lookup
+ * 2) the LazyOptional cached in CapabilityProviderEntities, queried via the player's capabilities.  A single
+ *    ElementalCharges lookup returns both fire and air, the same as ElementalInteractions.checkForFireAirMixture
+ */
+public class TestRunnerMBE65_A {
+  public boolean runTest(World worldIn, PlayerEntity playerIn) {
+    if (TestRunnerMBE65.getAllocatedBytesForCurrentThread() < 0) {
+      LOGGER.error("This JVM doesn't support measurement of allocated memory");
+      return false;
+    }
+    boolean result = true;
+    result = TestRunnerMBE65.test(result, "6501a",
+            playerIn.getCapability(CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES).isPresent());
+    if (!result) return false;
+
+    final int WARMUP_QUERIES = 100_000;
+    final int QUERIES = 1_000_000;
+    ElementalFire elementalFire = new ElementalFire();
+    ElementalAir elementalAir = new ElementalAir();
+
+    runUncached(elementalFire, elementalAir, WARMUP_QUERIES);
+    long startBytes = TestRunnerMBE65.getAllocatedBytesForCurrentThread();
+    long startNanos = System.nanoTime();
+    runUncached(elementalFire, elementalAir, QUERIES);
+    long uncachedNanos = System.nanoTime() - startNanos;
+    long uncachedBytes = TestRunnerMBE65.getAllocatedBytesForCurrentThread() - startBytes;
+
+    runCached(playerIn, WARMUP_QUERIES);
+    startBytes = TestRunnerMBE65.getAllocatedBytesForCurrentThread();
+    startNanos = System.nanoTime();
+    runCached(playerIn, QUERIES);
+    long cachedNanos = System.nanoTime() - startNanos;
+    long cachedBytes = TestRunnerMBE65.getAllocatedBytesForCurrentThread() - startBytes;
+
+    LOGGER.error(String.format("Uncached LazyOptional: %.1f bytes per query, %.1f ns per query",
+                               uncachedBytes / (double)QUERIES, uncachedNanos / (double)QUERIES));
+    LOGGER.error(String.format("Cached LazyOptional: %.1f bytes per query, %.1f ns per query",
+                               cachedBytes / (double)QUERIES, cachedNanos / (double)QUERIES));
+    result = TestRunnerMBE65.test(result, "6501b", cachedBytes < uncachedBytes);
+    return result;
+  }
+
+  // the way that CapabilityProviderEntities used to do it
+  private static void runUncached(ElementalFire elementalFire, ElementalAir elementalAir, int numberOfQueries) {
+    for (int i = 0; i < numberOfQueries; ++i) {
+      LazyOptional<ElementalFire> fireOptional = LazyOptional.of(()-> elementalFire);
+      LazyOptional<ElementalAir> airOptional = LazyOptional.of(()-> elementalAir);
+      sink = fireOptional;  // stop the JIT from optimising the allocation away
+      sink = airOptional;
+      checksum += fireOptional.orElse(null).getChargeLevel() + airOptional.orElse(null).getChargeLevel();
+    }
+  }
+
+  private static void runCached(PlayerEntity playerIn, int numberOfQueries) {
+    for (int i = 0; i < numberOfQueries; ++i) {
+      LazyOptional<ElementalCharges> chargesOptional = playerIn.getCapability(CapabilityElementalCharges.CAPABILITY_ELEMENTAL_CHARGES);
+      sink = chargesOptional;
+      ElementalCharges charges = chargesOptional.orElse(null);
+      checksum += charges.getChargeLevel(ElementType.FIRE) + charges.getChargeLevel(ElementType.AIR);
+    }
+  }
+
+  private static volatile Object sink;
+  private static long checksum;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
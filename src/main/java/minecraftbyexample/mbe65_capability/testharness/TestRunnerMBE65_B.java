@@ -0,0 +1,68 @@
+package minecraftbyexample.mbe65_capability.testharness;
+
+import minecraftbyexample.mbe65_capability.ElementType;
+import minecraftbyexample.mbe65_capability.ElementalCharges;
+import minecraftbyexample.mbe65_capability.ElementalChargesPool;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.world.World;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Created by TGG on 18/10/2020.
+ * Prints the statistics of the ElementalChargesPool (how often arrows have reused the elemental state of an earlier
+ *   arrow), then benchmarks the memory allocated by
+ * 1) a new ElementalCharges for every arrow, versus
+ * 2) acquiring and releasing an ElementalCharges from the pool
+ * NB the benchmark uses the real pool, so after the first run the statistics include the benchmark as well
+ */
+public class TestRunnerMBE65_B {
+  public boolean runTest(World worldIn, PlayerEntity playerIn) {
+    LOGGER.error(ElementalChargesPool.getStatistics());
+    if (TestRunnerMBE65.getAllocatedBytesForCurrentThread() < 0) {
+      LOGGER.error("This JVM doesn't support measurement of allocated memory");
+      return false;
+    }
+
+    final int WARMUP_ARROWS = 100_000;
+    final int ARROWS = 1_000_000;
+
+    runUnpooled(WARMUP_ARROWS);
+    long startBytes = TestRunnerMBE65.getAllocatedBytesForCurrentThread();
+    runUnpooled(ARROWS);
+    long unpooledBytes = TestRunnerMBE65.getAllocatedBytesForCurrentThread() - startBytes;
+
+    runPooled(WARMUP_ARROWS);
+    startBytes = TestRunnerMBE65.getAllocatedBytesForCurrentThread();
+    runPooled(ARROWS);
+    long pooledBytes = TestRunnerMBE65.getAllocatedBytesForCurrentThread() - startBytes;
+
+    LOGGER.error(String.format("New ElementalCharges per arrow: %.1f bytes per arrow", unpooledBytes / (double)ARROWS));
+    LOGGER.error(String.format("Pooled ElementalCharges: %.1f bytes per arrow", pooledBytes / (double)ARROWS));
+    return TestRunnerMBE65.test(true, "6502a", pooledBytes < unpooledBytes);
+  }
+
+  private static void runUnpooled(int numberOfArrows) {
+    for (int i = 0; i < numberOfArrows; ++i) {
+      ElementalCharges elementalCharges = new ElementalCharges();
+      sink = elementalCharges;  // stop the JIT from optimising the allocation away
+      elementalCharges.addCharge(ElementType.FIRE, i);
+      checksum += elementalCharges.getChargeLevel(ElementType.FIRE);
+    }
+  }
+
+  private static void runPooled(int numberOfArrows) {
+    for (int i = 0; i < numberOfArrows; ++i) {
+      ElementalCharges elementalCharges = ElementalChargesPool.acquire();
+      sink = elementalCharges;
+      elementalCharges.addCharge(ElementType.FIRE, i);
+      checksum += elementalCharges.getChargeLevel(ElementType.FIRE);
+      ElementalChargesPool.release(elementalCharges);
+    }
+  }
+
+  private static volatile Object sink;
+  private static long checksum;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
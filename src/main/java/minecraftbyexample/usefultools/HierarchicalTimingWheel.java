@@ -0,0 +1,140 @@
+package minecraftbyexample.usefultools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Created by TGG on 18/10/2020.
+ *
+ * A hierarchical timing wheel: schedules items to "expire" at a given tick, where the cost of advancing the time depends
+ *   on the number of items which expire, not on the total number of items waiting.
+ * It works like the hands of a clock:
+ * Level 0 has one slot for each of the next 64 ticks.  Level 1 has one slot for each of the next 64 blocks of 64 ticks,
+ *   level 2 for blocks of 64*64 ticks, etc.
+ * An item is placed in the lowest level which can hold it.  Each time a level "wraps around", the next slot of the level
+ *   above is emptied out and its items are redistributed into the lower levels (cascaded).
+ * Items further in the future than the top level can hold are kept in an overflow list, which is checked each time the
+ *   top level wraps around.
+ *
+ * Items can't be cancelled; if you need to cancel, check whether the item is still relevant when it expires.
+ *
+ * Typical usage:
+ * 1) schedule(item, dueTick) for each item
+ * 2) every tick, call advanceTo(currentTick, item -> doSomething(item))
+ *
+ * @param <T> the type of item being scheduled
+ */
+public class HierarchicalTimingWheel<T> {
+
+  /**
+   * @param startTick the current time, in ticks
+   */
+  public HierarchicalTimingWheel(long startTick) {
+    currentTick = startTick;
+    for (int level = 0; level < NUMBER_OF_LEVELS; ++level) {
+      for (int slot = 0; slot < SLOTS_PER_LEVEL; ++slot) {
+        slots[level][slot] = new ArrayList<>();
+      }
+    }
+  }
+
+  /**
+   * Schedule an item to expire at the given tick
+   * @param item
+   * @param dueTick if in the past, the item will expire during the next tick
+   */
+  public void schedule(T item, long dueTick) {
+    insert(new Entry<>(item, Math.max(dueTick, currentTick + 1)));
+    ++numberOfItems;
+  }
+
+  /**
+   * Advance the time to the given tick, and process all the items which have expired in the meantime
+   * @param tick the new time.  If earlier than the current time, nothing happens
+   * @param expiredItemProcessor called for each item which has expired, in the order of expiry
+   */
+  public void advanceTo(long tick, Consumer<T> expiredItemProcessor) {
+    while (currentTick < tick) {
+      ++currentTick;
+      for (int level = NUMBER_OF_LEVELS - 1; level >= 1; --level) {  // higher levels first, they can cascade into lower levels
+        if ((currentTick & levelMask(level)) == 0) cascade(level);
+      }
+      if ((currentTick & levelMask(NUMBER_OF_LEVELS)) == 0) cascadeOverflow();
+
+      int slot = (int)(currentTick & SLOT_MASK);
+      if (slots[0][slot].isEmpty()) continue;
+      List<Entry<T>> expired = slots[0][slot];
+      slots[0][slot] = new ArrayList<>();  // swap in a new list, in case the processor schedules new items
+      for (Entry<T> entry : expired) {
+        --numberOfItems;
+        expiredItemProcessor.accept(entry.item);
+      }
+    }
+  }
+
+  public long getCurrentTick() {
+    return currentTick;
+  }
+
+  public int getNumberOfItems() {
+    return numberOfItems;
+  }
+
+  // -------------
+
+  private void insert(Entry<T> entry) {
+    long ticksRemaining = entry.dueTick - currentTick;
+    for (int level = 0; level < NUMBER_OF_LEVELS; ++level) {
+      if (ticksRemaining <= levelMask(level + 1)) {
+        int slot = (int)((entry.dueTick >> (BITS_PER_LEVEL * level)) & SLOT_MASK);
+        slots[level][slot].add(entry);
+        return;
+      }
+    }
+    overflow.add(entry);
+  }
+
+  private void cascade(int level) {
+    int slot = (int)((currentTick >> (BITS_PER_LEVEL * level)) & SLOT_MASK);
+    if (slots[level][slot].isEmpty()) return;
+    List<Entry<T>> entries = slots[level][slot];
+    slots[level][slot] = new ArrayList<>();
+    for (Entry<T> entry : entries) {
+      insert(entry);
+    }
+  }
+
+  private void cascadeOverflow() {
+    if (overflow.isEmpty()) return;
+    List<Entry<T>> entries = overflow;
+    overflow = new ArrayList<>();
+    for (Entry<T> entry : entries) {
+      insert(entry);
+    }
+  }
+
+  // the mask for the ticks covered by one slot of the given level, eg level 1 --> 63
+  private static long levelMask(int level) {
+    return (1L << (BITS_PER_LEVEL * level)) - 1;
+  }
+
+  private static class Entry<T> {
+    public Entry(T item, long dueTick) {
+      this.item = item;
+      this.dueTick = dueTick;
+    }
+    final T item;
+    final long dueTick;
+  }
+
+  private static final int BITS_PER_LEVEL = 6;
+  private static final int SLOTS_PER_LEVEL = 1 << BITS_PER_LEVEL;
+  private static final long SLOT_MASK = SLOTS_PER_LEVEL - 1;
+  private static final int NUMBER_OF_LEVELS = 4;  // 64^4 ticks = 9.7 days before we need the overflow
+
+  private long currentTick;
+  private int numberOfItems = 0;
+  private final List<Entry<T>>[][] slots = new List[NUMBER_OF_LEVELS][SLOTS_PER_LEVEL];
+  private List<Entry<T>> overflow = new ArrayList<>();
+}